@@ -0,0 +1,378 @@
+package com.aviadmini.quickimagepick;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.os.StrictMode;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Triggers picks and handles their results as if process was killed while camera app was open, with StrictMode killing the process on main thread
+ * disk I/O
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class ColdResultStrictModeTest {
+
+    private Instrumentation mInstrumentation;
+
+    private Context mContext;
+
+    private HostActivity mActivity;
+
+    private StrictMode.ThreadPolicy mOldPolicy;
+
+    @Before
+    public void setUp() {
+
+        this.mInstrumentation = InstrumentationRegistry.getInstrumentation();
+
+        this.mContext = InstrumentationRegistry.getTargetContext();
+
+        // no sessions left by earlier runs
+        //noinspection ResultOfMethodCallIgnored
+        new File(this.mContext.getFilesDir(), "qip_pick_state").delete();
+
+        // nothing loaded or resolved, as in a new process
+        PickStateStore.resetInstance();
+        CameraOutputAllocator.resetInstance();
+
+        // host is started before the policy is on, its own startup is not under test
+        this.mActivity = (HostActivity) this.mInstrumentation.startActivitySync(
+                new Intent(this.mContext, HostActivity.class).addFlags(Intent.FLAG_ACTIVITY_NEW_TASK));
+
+        // policy stays on while deferred result is handled on main thread
+        this.mInstrumentation.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+
+                ColdResultStrictModeTest.this.mOldPolicy = StrictMode.getThreadPolicy();
+
+                StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder().detectDiskReads()
+                                                                               .detectDiskWrites()
+                                                                               .penaltyLog()
+                                                                               .penaltyDeath()
+                                                                               .build());
+
+            }
+
+        });
+
+    }
+
+    @After
+    public void tearDown() {
+
+        this.mInstrumentation.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+
+                StrictMode.setThreadPolicy(ColdResultStrictModeTest.this.mOldPolicy);
+
+                ColdResultStrictModeTest.this.mActivity.finish();
+
+            }
+
+        });
+
+    }
+
+    // ==== RESULT ==== //
+
+    @Test
+    public void coldCameraResultDoesNoDiskIoOnMainThread()
+            throws InterruptedException {
+
+        final RecordingCallback callback = new RecordingCallback();
+
+        final AtomicBoolean accepted = new AtomicBoolean();
+
+        this.mInstrumentation.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                accepted.set(QiPick.handleActivityResult(ColdResultStrictModeTest.this.mContext, QiPick.requestCode(QiPick.REQ_CAMERA, 0),
+                        Activity.RESULT_OK, null, callback));
+            }
+
+        });
+
+        assertTrue(accepted.get());
+
+        // there's no state of session 0, so camera result is reported as an error
+        assertTrue(callback.mLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(PickSource.CAMERA, callback.mErrorSource.get());
+
+    }
+
+    @Test
+    public void coldResultIsDroppedIfHostIsGone()
+            throws InterruptedException {
+
+        final RecordingCallback callback = new RecordingCallback();
+
+        final AtomicBoolean accepted = new AtomicBoolean();
+
+        this.mInstrumentation.runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+
+                final HostActivity activity = ColdResultStrictModeTest.this.mActivity;
+
+                activity.finish();
+
+                accepted.set(QiPick.handleActivityResult(activity, QiPick.requestCode(QiPick.REQ_CAMERA, 0), Activity.RESULT_OK, null, callback));
+
+            }
+
+        });
+
+        assertTrue(accepted.get());
+
+        // result executor is serial: once this runs, deferred result is posted to main thread and idle sync lets it run
+        final CountDownLatch executorLatch = new CountDownLatch(1);
+        QiPick.getResultExecutor()
+              .execute(new Runnable() {
+
+                  @Override
+                  public void run() {
+                      executorLatch.countDown();
+                  }
+
+              });
+
+        assertTrue(executorLatch.await(5, TimeUnit.SECONDS));
+
+        this.mInstrumentation.waitForIdleSync();
+
+        assertEquals(1, callback.mLatch.getCount());
+
+    }
+
+    @Test
+    public void warmCameraResultIsDeliveredSynchronously()
+            throws IOException {
+
+        final PickStateStore stateStore = PickStateStore.get(this.mContext);
+
+        final CameraOutputAllocator allocator = CameraOutputAllocator.get(this.mContext);
+
+        final CameraOutputAllocator.Output output = allocator.allocate(null);
+        assertNotNull(output);
+
+        try {
+
+            // picture written by camera app
+            final FileOutputStream out = new FileOutputStream(output.mFile);
+            try {
+                out.write(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9});
+            } finally {
+                out.close();
+            }
+
+            final int requestType = 7;
+
+            final int sessionId = stateStore.add(new PickState(requestType, false, QiPick.MIME_TYPE_IMAGES_ALL, null, null,
+                    output.mUri.toString()).launchedAt(SystemClock.elapsedRealtime(), System.currentTimeMillis()));
+
+            // warm: state is loaded and camera directory is resolved off main thread
+            assertTrue(stateStore.isLoaded());
+            assertTrue(allocator.isWritable(null));
+
+            final RecordingCallback callback = new RecordingCallback();
+
+            final AtomicBoolean accepted = new AtomicBoolean();
+            final AtomicBoolean deliveredBeforeReturn = new AtomicBoolean();
+
+            this.mInstrumentation.runOnMainSync(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    accepted.set(QiPick.handleActivityResult(ColdResultStrictModeTest.this.mActivity, QiPick.requestCode(QiPick.REQ_CAMERA, sessionId),
+                            Activity.RESULT_OK, null, callback));
+
+                    deliveredBeforeReturn.set(callback.mLatch.getCount() == 0);
+
+                }
+
+            });
+
+            assertTrue(accepted.get());
+            assertTrue(deliveredBeforeReturn.get());
+
+            assertNull(callback.mErrorSource.get());
+            assertEquals(PickSource.CAMERA, callback.mPickSource.get());
+            assertEquals(requestType, callback.mRequestType.get());
+            assertEquals(output.mUri, callback.mUri.get());
+
+            // session is consumed
+            assertNull(stateStore.get(sessionId));
+
+        } finally {
+
+            //noinspection ResultOfMethodCallIgnored
+            output.mFile.delete();
+
+        }
+
+    }
+
+    // ==== TRIGGER ==== //
+
+    @Test
+    public void warmTriggerDoesNoDiskIoOnMainThread()
+            throws InterruptedException {
+
+        // picker apps are not launched, startActivityForResult(...) returns right away
+        final Instrumentation.ActivityMonitor cameraMonitor = this.mInstrumentation.addMonitor(new IntentFilter(MediaStore.ACTION_IMAGE_CAPTURE), null,
+                true);
+        final Instrumentation.ActivityMonitor chooserMonitor = this.mInstrumentation.addMonitor(new IntentFilter(Intent.ACTION_CHOOSER), null, true);
+
+        try {
+
+            // what PickRequest schedules on creation has finished, as it would while user looks at the screen
+            PickStateStore.get(this.mContext)
+                          .get(0);
+            this.awaitCameraOutput();
+
+            final AtomicInteger cameraResult = new AtomicInteger();
+
+            this.mInstrumentation.runOnMainSync(new Runnable() {
+
+                @Override
+                public void run() {
+                    cameraResult.set(QiPick.in(ColdResultStrictModeTest.this.mActivity)
+                                           .fromCamera());
+                }
+
+            });
+
+            assertEquals(PickTriggerResult.TRIGGER_PICK_OK, cameraResult.get());
+            assertEquals(1, cameraMonitor.getHits());
+
+            // next camera output is prepared in background after every allocation
+            this.awaitCameraOutput();
+
+            final AtomicInteger multipleResult = new AtomicInteger();
+
+            this.mInstrumentation.runOnMainSync(new Runnable() {
+
+                @Override
+                public void run() {
+                    multipleResult.set(QiPick.in(ColdResultStrictModeTest.this.mActivity)
+                                             .fromMultipleSources("", PickSource.CAMERA, PickSource.GALLERY, PickSource.DOCUMENTS));
+                }
+
+            });
+
+            // device may have no app for any of the sources, reaching that point without disk I/O is what's tested
+            assertTrue(multipleResult.get() == PickTriggerResult.TRIGGER_PICK_OK || multipleResult.get() == PickTriggerResult.TRIGGER_PICK_ERR_NO_ACTIVITY);
+
+        } finally {
+
+            this.mInstrumentation.removeMonitor(cameraMonitor);
+            this.mInstrumentation.removeMonitor(chooserMonitor);
+
+        }
+
+    }
+
+    // ==== //
+
+    private void awaitCameraOutput()
+            throws InterruptedException {
+
+        final CameraOutputAllocator allocator = CameraOutputAllocator.get(this.mContext);
+        allocator.warmUp(null);
+
+        // allocator thread is serial, so this runs after scheduled refill
+        final CountDownLatch latch = new CountDownLatch(1);
+        allocator.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    }
+
+    private static final class RecordingCallback
+            implements PickCallback {
+
+        final CountDownLatch mLatch = new CountDownLatch(1);
+
+        final AtomicReference<PickSource> mPickSource = new AtomicReference<>();
+        final AtomicReference<PickSource> mErrorSource = new AtomicReference<>();
+        final AtomicReference<Uri> mUri = new AtomicReference<>();
+        final AtomicInteger mRequestType = new AtomicInteger(-1);
+
+        @Override
+        public void onImagePicked(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri) {
+
+            this.mPickSource.set(pPickSource);
+            this.mRequestType.set(pRequestType);
+            this.mUri.set(pImageUri);
+
+            this.mLatch.countDown();
+
+        }
+
+        @Override
+        public void onMultipleImagesPicked(final int pRequestType, @NonNull final List<Uri> pImageUris) {
+            this.mLatch.countDown();
+        }
+
+        @Override
+        public void onError(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final String pErrorString) {
+
+            this.mErrorSource.set(pPickSource);
+
+            this.mLatch.countDown();
+
+        }
+
+        @Override
+        public void onCancel(@NonNull final PickSource pPickSource, final int pRequestType) {
+            this.mLatch.countDown();
+        }
+
+    }
+
+}
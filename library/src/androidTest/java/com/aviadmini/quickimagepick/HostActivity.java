@@ -0,0 +1,12 @@
+package com.aviadmini.quickimagepick;
+
+import android.app.Activity;
+
+/**
+ * Empty Activity that pick requests are triggered in
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class HostActivity
+        extends Activity {}
@@ -0,0 +1,316 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.app.Fragment;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PickCallback} used by {@code QiPick.handleActivityResultAsync(...)} methods. It's called on result executor where it resolves
+ * {@link UriInfo} of picked Uris (which fills {@link UriMetadataCache} if one is installed) and drops Uris of content that doesn't exist,
+ * then delivers result to wrapped callback on main thread. Items of multiple images pick are delivered one by one to {@link PickStreamCallback}
+ * and validated lazily for {@link PickPullCallback}.
+ * Result is dropped if host Activity or Fragment is gone by then
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+class AsyncResultCallback
+        implements PickPullCallback {
+
+    static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    @NonNull
+    final Context mContext;
+
+    @NonNull
+    final PickCallback mCallback;
+
+    // Activity, support Fragment or Fragment
+    @NonNull
+    private final WeakReference<Object> mHost;
+
+    AsyncResultCallback(@NonNull final Context pContext, @NonNull final Object pHost, @NonNull final PickCallback pCallback) {
+
+        this.mContext = pContext.getApplicationContext();
+
+        this.mHost = new WeakReference<>(pHost);
+
+        this.mCallback = pCallback;
+
+    }
+
+    @NonNull
+    static AsyncResultCallback wrap(@NonNull final Context pContext, @NonNull final Object pHost, @NonNull final PickCallback pCallback) {
+        return pCallback instanceof PickPreviewCallback ? new Preview(pContext, pHost, (PickPreviewCallback) pCallback) :
+               new AsyncResultCallback(pContext, pHost, pCallback);
+    }
+
+    // ==== PICK CALLBACK ==== //
+
+    @Override
+    public void onImagePicked(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri) {
+
+        if (!this.isHostAlive()) {
+            return;
+        }
+
+        if (!UriInfo.resolve(this.mContext, pImageUri)
+                     .exists()) {
+
+            this.onError(pPickSource, pRequestType, QiPick.ERR_CONTENT_NOT_FOUND);
+
+            return;
+        }
+
+        this.post(new Runnable() {
+
+            @Override
+            public void run() {
+                AsyncResultCallback.this.mCallback.onImagePicked(pPickSource, pRequestType, pImageUri);
+            }
+
+        });
+
+    }
+
+    @Override
+    public void onMultipleImagesPicked(final int pRequestType, @NonNull final List<Uri> pImageUris) {
+
+        if (!this.isHostAlive()) {
+            return;
+        }
+
+        final List<Uri> validUris = new ArrayList<>(pImageUris.size());
+
+        for (final UriInfo info : UriInfo.resolve(this.mContext, pImageUris)) {
+
+            if (info.exists()) {
+                validUris.add(info.getUri());
+            }
+
+        }
+
+        if (validUris.isEmpty()) {
+
+            this.onError(PickSource.DOCUMENTS, pRequestType, QiPick.ERR_CONTENT_NOT_FOUND);
+
+            return;
+        }
+
+        this.post(new Runnable() {
+
+            @Override
+            public void run() {
+                AsyncResultCallback.this.mCallback.onMultipleImagesPicked(pRequestType, validUris);
+            }
+
+        });
+
+    }
+
+    @Override
+    public void onItemsReady(final int pRequestType, @NonNull final PickedItems pItems) {
+
+        if (!this.isHostAlive()) {
+            return;
+        }
+
+        if (this.mCallback instanceof PickPullCallback) {
+
+            // validated lazily by consumer
+            final PickedItems items = pItems.validated();
+
+            this.post(new Runnable() {
+
+                @Override
+                public void run() {
+                    ((PickPullCallback) AsyncResultCallback.this.mCallback).onItemsReady(pRequestType, items);
+                }
+
+            });
+
+            return;
+        }
+
+        if (this.mCallback instanceof PickStreamCallback) {
+
+            final PickStreamCallback callback = (PickStreamCallback) this.mCallback;
+
+            final PickedItems items = pItems.validated();
+
+            int count = 0;
+            while (items.hasNext() && this.isHostAlive()) {
+
+                final Uri uri = items.next();
+                final int index = items.getIndex();
+
+                this.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        callback.onItemPicked(pRequestType, index, uri);
+                    }
+
+                });
+
+                count++;
+
+            }
+
+            if (count == 0) {
+                this.onError(PickSource.DOCUMENTS, pRequestType, QiPick.ERR_CONTENT_NOT_FOUND);
+            } else {
+
+                final int deliveredCount = count;
+
+                this.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        callback.onItemsComplete(pRequestType, deliveredCount);
+                    }
+
+                });
+
+            }
+
+            return;
+        }
+
+        final List<Uri> uris = new ArrayList<>(pItems.getItemCount());
+        while (pItems.hasNext()) {
+            uris.add(pItems.next());
+        }
+
+        if (uris.isEmpty()) {
+            this.onError(PickSource.DOCUMENTS, pRequestType, QiPick.ERR_DOCS_NULL_RESULT);
+        } else {
+            this.onMultipleImagesPicked(pRequestType, uris);
+        }
+
+    }
+
+    @Override
+    public void onError(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final String pErrorString) {
+
+        this.post(new Runnable() {
+
+            @Override
+            public void run() {
+                AsyncResultCallback.this.mCallback.onError(pPickSource, pRequestType, pErrorString);
+            }
+
+        });
+
+    }
+
+    @Override
+    public void onCancel(@NonNull final PickSource pPickSource, final int pRequestType) {
+
+        this.post(new Runnable() {
+
+            @Override
+            public void run() {
+                AsyncResultCallback.this.mCallback.onCancel(pPickSource, pRequestType);
+            }
+
+        });
+
+    }
+
+    // ==== //
+
+    /**
+     * Posts given callback call to main thread. It's dropped if host is gone when it's about to run
+     */
+    void post(@NonNull final Runnable pRunnable) {
+
+        MAIN_HANDLER.post(new Runnable() {
+
+            @Override
+            public void run() {
+
+                if (AsyncResultCallback.this.isHostAlive()) {
+                    pRunnable.run();
+                }
+
+            }
+
+        });
+
+    }
+
+    boolean isHostAlive() {
+        return isHostAlive(this.mHost.get());
+    }
+
+    /**
+     * @param pHost Activity, support Fragment or Fragment
+     * @return true if host can still receive result: Activity is not finishing or destroyed, Fragment is added and not being removed
+     */
+    @SuppressLint("NewApi")
+    static boolean isHostAlive(@Nullable final Object pHost) {
+
+        if (pHost instanceof Activity) {
+
+            final Activity activity = (Activity) pHost;
+
+            return !activity.isFinishing() && !(QiPick.API_17 && activity.isDestroyed());
+        }
+
+        if (pHost instanceof Fragment) {
+
+            final Fragment fragment = (Fragment) pHost;
+
+            return fragment.isAdded() && !fragment.isRemoving();
+        }
+
+        if (pHost instanceof android.app.Fragment) {
+
+            final android.app.Fragment fragment = (android.app.Fragment) pHost;
+
+            return fragment.isAdded() && !fragment.isRemoving();
+        }
+
+        return false;
+    }
+
+    // ==== //
+
+    private static class Preview
+            extends AsyncResultCallback
+            implements PickPreviewCallback {
+
+        Preview(@NonNull final Context pContext, @NonNull final Object pHost, @NonNull final PickPreviewCallback pCallback) {
+            super(pContext, pHost, pCallback);
+        }
+
+        @Override
+        public void onPreviewReady(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri,
+                                   @NonNull final Bitmap pPreview) {
+
+            this.post(new Runnable() {
+
+                @Override
+                public void run() {
+                    ((PickPreviewCallback) Preview.this.mCallback).onPreviewReady(pPickSource, pRequestType, pImageUri, pPreview);
+                }
+
+            });
+
+        }
+
+    }
+
+}
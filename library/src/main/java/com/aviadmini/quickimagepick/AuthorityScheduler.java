@@ -0,0 +1,320 @@
+package com.aviadmini.quickimagepick;
+
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs content I/O tasks on an {@link Executor} with separate queue and concurrency limit for every {@link Uri} authority,
+ * so that a slow (e.g. cloud-backed) provider cannot occupy all executor threads and starve fast local ones.
+ * <br><br>
+ * Limits adapt to observed latency: a limit grows by one while its queue is backed up and latency stays close to the best observed,
+ * and is cut by a quarter when latency grows to more than twice the best observed (provider is saturated).
+ * Latency of copy tasks is time until provider opened the content (time to first byte), so it doesn't depend on content size.
+ * Tasks that don't open content with {@link UriUtils} are measured as a whole
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AuthorityScheduler {
+
+    private static final String TAG = "QiPick";
+
+    /**
+     * Authorities backed by local storage. They start at max concurrency, all others start at {@link #INITIAL_REMOTE_LIMIT}
+     */
+    private static final Set<String> LOCAL_AUTHORITIES = new HashSet<>(
+            Arrays.asList("", MediaStore.AUTHORITY, "com.android.externalstorage.documents", "com.android.providers.media.documents",
+                    "com.android.providers.downloads.documents"));
+
+    static final int INITIAL_REMOTE_LIMIT = 2;
+
+    // task that runs on current thread, if any
+    private static final ThreadLocal<TimedTask> CURRENT_TASK = new ThreadLocal<>();
+
+    @NonNull
+    private final Executor mExecutor;
+
+    private final int mMaxConcurrency;
+
+    private final Map<String, Lane> mLanes = new HashMap<>();
+
+    /**
+     * @param pExecutor       executor that runs the tasks. Should be able to run several tasks concurrently
+     * @param pMaxConcurrency max number of tasks running at the same time for a single authority
+     */
+    public AuthorityScheduler(@NonNull final Executor pExecutor, final int pMaxConcurrency) {
+
+        this.mExecutor = pExecutor;
+
+        this.mMaxConcurrency = Math.max(1, pMaxConcurrency);
+
+    }
+
+    /**
+     * Queues a task that reads content of given {@link Uri}
+     *
+     * @param pUri  uri which authority the task is queued for
+     * @param pTask the task
+     * @throws RejectedExecutionException if executor rejected given task or an earlier queued task of same authority. Rejected task is dropped
+     */
+    public void execute(@NonNull final Uri pUri, @NonNull final Runnable pTask) {
+
+        final String authority = authorityOf(pUri);
+
+        final List<TimedTask> ready;
+        synchronized (this) {
+
+            Lane lane = this.mLanes.get(authority);
+            if (lane == null) {
+
+                lane = new Lane(LOCAL_AUTHORITIES.contains(authority) ? this.mMaxConcurrency : Math.min(INITIAL_REMOTE_LIMIT, this.mMaxConcurrency));
+
+                this.mLanes.put(authority, lane);
+
+            }
+
+            lane.mQueue.add(pTask);
+
+            ready = this.drain(lane);
+
+        }
+
+        this.submit(ready, true);
+
+    }
+
+    /**
+     * @param pAuthority uri authority, empty string for Uris without one (e.g. file:/// Uris)
+     * @return current concurrency limit for given authority
+     */
+    public synchronized int getConcurrencyLimit(@NonNull final String pAuthority) {
+
+        final Lane lane = this.mLanes.get(pAuthority);
+
+        return lane == null ? LOCAL_AUTHORITIES.contains(pAuthority) ? this.mMaxConcurrency : Math.min(INITIAL_REMOTE_LIMIT, this.mMaxConcurrency) :
+               lane.mLimit;
+    }
+
+    /**
+     * @param pAuthority uri authority, empty string for Uris without one (e.g. file:/// Uris)
+     * @return number of tasks waiting for given authority
+     */
+    public synchronized int getQueuedCount(@NonNull final String pAuthority) {
+
+        final Lane lane = this.mLanes.get(pAuthority);
+
+        return lane == null ? 0 : lane.mQueue.size();
+    }
+
+    @NonNull
+    static String authorityOf(@NonNull final Uri pUri) {
+
+        final String authority = pUri.getAuthority();
+
+        return authority == null ? "" : authority;
+    }
+
+    /**
+     * Marks that task running on current thread has opened its content. Time to this point is used as task latency
+     */
+    static void markContentOpened() {
+
+        final TimedTask task = CURRENT_TASK.get();
+
+        if (task != null && task.mOpenedNanos == 0) {
+            task.mOpenedNanos = System.nanoTime();
+        }
+
+    }
+
+    /**
+     * Takes tasks that fit lane's limit from its queue. Must hold lock, returned tasks are submitted after lock is released
+     */
+    @NonNull
+    private List<TimedTask> drain(@NonNull final Lane pLane) {
+
+        final List<TimedTask> ready = new ArrayList<>();
+
+        while (pLane.mRunning < pLane.mLimit && !pLane.mQueue.isEmpty()) {
+
+            ready.add(new TimedTask(pLane, pLane.mQueue.poll()));
+
+            pLane.mRunning++;
+
+        }
+
+        return ready;
+    }
+
+    private void submit(@NonNull final List<TimedTask> pReady, final boolean pRethrow) {
+
+        RejectedExecutionException rejection = null;
+
+        for (final TimedTask task : pReady) {
+
+            try {
+                this.mExecutor.execute(task);
+            } catch (final RejectedExecutionException e) {
+
+                synchronized (this) {
+                    task.mLane.mRunning--;
+                }
+
+                if (task.mTask instanceof RejectionAware) {
+                    ((RejectionAware) task.mTask).onRejected(e);
+                } else {
+
+                    Log.w(TAG, "Executor rejected a task, it's dropped", e);
+
+                    rejection = e;
+
+                }
+
+            }
+
+        }
+
+        if (pRethrow && rejection != null) {
+            throw rejection;
+        }
+
+    }
+
+    private void onTaskFinished(@NonNull final Lane pLane, final long pLatencyNanos) {
+
+        final List<TimedTask> ready;
+        synchronized (this) {
+
+            pLane.mRunning--;
+
+            pLane.onSample(pLatencyNanos, this.mMaxConcurrency);
+
+            ready = this.drain(pLane);
+
+        }
+
+        // can't throw to executor thread, rejected tasks are reported or logged
+        this.submit(ready, false);
+
+    }
+
+    // ==== //
+
+    /**
+     * Task that is told when executor rejected it instead of being dropped, e.g. to report failure
+     */
+    interface RejectionAware
+            extends Runnable {
+
+        void onRejected(@NonNull RejectedExecutionException pException);
+
+    }
+
+    private static class Lane {
+
+        final ArrayDeque<Runnable> mQueue = new ArrayDeque<>();
+
+        int mRunning = 0;
+
+        int mLimit;
+
+        long mLatencyAvg = 0;
+        long mLatencyBest = 0;
+
+        // adjust limit at most once per this many samples so that the effect of previous change is observed first
+        int mSamplesUntilAdjust;
+
+        Lane(final int pLimit) {
+
+            this.mLimit = pLimit;
+
+            this.mSamplesUntilAdjust = pLimit;
+
+        }
+
+        void onSample(final long pLatencyNanos, final int pMaxLimit) {
+
+            this.mLatencyAvg = this.mLatencyAvg == 0 ? pLatencyNanos : this.mLatencyAvg + (pLatencyNanos - this.mLatencyAvg) / 4;
+
+            // best latency slowly drifts up so that it recovers when provider conditions change for good
+            this.mLatencyBest = this.mLatencyBest == 0 ? pLatencyNanos : Math.min(pLatencyNanos, this.mLatencyBest + this.mLatencyBest / 64);
+
+            if (--this.mSamplesUntilAdjust > 0) {
+                return;
+            }
+
+            if (this.mLatencyAvg > 2 * this.mLatencyBest) {
+                this.mLimit = Math.max(1, this.mLimit * 3 / 4);
+            } else if (!this.mQueue.isEmpty() && this.mLimit < pMaxLimit) {
+                this.mLimit++;
+            }
+
+            this.mSamplesUntilAdjust = this.mLimit;
+
+        }
+
+    }
+
+    private class TimedTask
+            implements Runnable {
+
+        @NonNull
+        private final Lane mLane;
+
+        @Nullable
+        private final Runnable mTask;
+
+        // set by markContentOpened() on task's thread
+        private long mOpenedNanos = 0;
+
+        TimedTask(@NonNull final Lane pLane, @Nullable final Runnable pTask) {
+
+            this.mLane = pLane;
+
+            this.mTask = pTask;
+
+        }
+
+        @Override
+        public void run() {
+
+            final long start = System.nanoTime();
+
+            CURRENT_TASK.set(this);
+
+            try {
+
+                if (this.mTask != null) {
+                    this.mTask.run();
+                }
+
+            } finally {
+
+                CURRENT_TASK.remove();
+
+                final long end = this.mOpenedNanos == 0 ? System.nanoTime() : this.mOpenedNanos;
+
+                AuthorityScheduler.this.onTaskFinished(this.mLane, end - start);
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handle of a running batch copy started with
+ * {@link UriUtils#saveContentToFiles(Context, List, File, Executor, int, BatchCopyCallback)} or
+ * {@link UriUtils#saveContentToFiles(Context, List, File, AuthorityScheduler, BatchCopyCallback)}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BatchCopy {
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final List<Uri> mUris;
+
+    @NonNull
+    private final File mDir;
+
+    @NonNull
+    private final String mFilePrefix;
+
+    @NonNull
+    private final BatchCopyCallback mCallback;
+
+    private final AtomicBoolean mCancelled = new AtomicBoolean(false);
+    private final AtomicBoolean mFinished  = new AtomicBoolean(false);
+
+    private final AtomicInteger mNextIndex     = new AtomicInteger(0);
+    private final AtomicInteger mActiveWorkers = new AtomicInteger(0);
+    private final AtomicInteger mDoneItems     = new AtomicInteger(0);
+
+    private final AtomicInteger mCopiedCount = new AtomicInteger(0);
+    private final AtomicInteger mFailedCount = new AtomicInteger(0);
+
+    private final AtomicLong mBytesCopied = new AtomicLong(0);
+
+    private long mStartNanos;
+
+    BatchCopy(@NonNull final Context pContext, @NonNull final List<Uri> pUris, @NonNull final File pDir, @NonNull final BatchCopyCallback pCallback) {
+
+        this.mContext = pContext.getApplicationContext();
+
+        this.mUris = new ArrayList<>(pUris);
+
+        this.mDir = pDir;
+        this.mFilePrefix = "qip_" + System.currentTimeMillis() + "_";
+
+        this.mCallback = pCallback;
+
+    }
+
+    void start(@NonNull final Executor pExecutor, final int pParallelism) {
+
+        this.mStartNanos = System.nanoTime();
+
+        final int workers = Math.max(1, Math.min(pParallelism, this.mUris.size()));
+
+        if (this.mUris.isEmpty()) {
+
+            this.finish();
+
+            return;
+        }
+
+        this.mActiveWorkers.set(workers);
+
+        for (int i = 0; i < workers; i++) {
+
+            try {
+                pExecutor.execute(new Worker());
+            } catch (final RejectedExecutionException e) {
+
+                // started workers take care of all items, fail them here only if there are none
+                if (i == 0) {
+
+                    int index;
+                    while ((index = this.mNextIndex.getAndIncrement()) < this.mUris.size()) {
+                        this.failItem(index, new IOException("Executor rejected batch copy", e));
+                    }
+
+                }
+
+                if (this.mActiveWorkers.addAndGet(i - workers) == 0) {
+                    this.finish();
+                }
+
+                return;
+            }
+
+        }
+
+    }
+
+    void start(@NonNull final AuthorityScheduler pScheduler) {
+
+        this.mStartNanos = System.nanoTime();
+
+        if (this.mUris.isEmpty()) {
+
+            this.finish();
+
+            return;
+        }
+
+        for (int i = 0; i < this.mUris.size(); i++) {
+
+            // rejected items are failed by ItemTask.onRejected()
+            pScheduler.execute(this.mUris.get(i), new ItemTask(i));
+
+        }
+
+    }
+
+    /**
+     * Cancels the batch. Items that were not started are skipped, in-flight copies are stopped and their files are deleted.
+     * {@link BatchCopyCallback#onBatchFinished(BatchCopyStats)} is still called
+     */
+    public void cancel() {
+        this.mCancelled.set(true);
+    }
+
+    /**
+     * @return true if batch was cancelled
+     */
+    public boolean isCancelled() {
+        return this.mCancelled.get();
+    }
+
+    /**
+     * @return true if all workers are done
+     */
+    public boolean isFinished() {
+        return this.mFinished.get();
+    }
+
+    /**
+     * @return number of items processed so far, both saved and failed
+     */
+    public int getCompletedCount() {
+        return this.mCopiedCount.get() + this.mFailedCount.get();
+    }
+
+    /**
+     * @return number of items in batch
+     */
+    public int getItemCount() {
+        return this.mUris.size();
+    }
+
+    private void copyItem(final int pIndex) {
+
+        final Uri uri = this.mUris.get(pIndex);
+
+        File file = null;
+
+        final CopyResult result;
+        try {
+
+            // provider may throw on type query as well as on open
+            final String extension = UriUtils.getFileExtension(this.mContext, uri);
+            file = new File(this.mDir, this.mFilePrefix + pIndex + (TextUtils.isEmpty(extension) ? "" : "." + extension));
+
+            result = UriUtils.copyContent(this.mContext, uri, file, this.mCancelled);
+
+        } catch (final RuntimeException e) {
+
+            // any provider failure is reported per item, so that worker goes on with the rest of its items
+            deleteQuietly(file);
+
+            this.failItem(pIndex, new IOException(e));
+
+            return;
+        } catch (final IOException e) {
+
+            deleteQuietly(file);
+
+            // cancelled items are reported as skipped, not failed
+            if (!(e instanceof InterruptedIOException && this.mCancelled.get())) {
+                this.failItem(pIndex, e);
+            }
+
+            return;
+        }
+
+        this.mCopiedCount.incrementAndGet();
+        this.mBytesCopied.addAndGet(result.getBytesCopied());
+
+        this.mCallback.onItemCopied(pIndex, uri, file, result);
+
+    }
+
+    private void failItem(final int pIndex, @NonNull final IOException pException) {
+
+        this.mFailedCount.incrementAndGet();
+
+        this.mCallback.onItemFailed(pIndex, this.mUris.get(pIndex), pException);
+
+    }
+
+    private void onItemDone() {
+
+        if (this.mDoneItems.incrementAndGet() == this.mUris.size()) {
+            this.finish();
+        }
+
+    }
+
+    private static void deleteQuietly(@Nullable final File pFile) {
+
+        if (pFile != null) {
+
+            //noinspection ResultOfMethodCallIgnored
+            pFile.delete();
+
+        }
+
+    }
+
+    private void finish() {
+
+        if (this.mFinished.compareAndSet(false, true)) {
+            this.mCallback.onBatchFinished(
+                    new BatchCopyStats(this.mUris.size(), this.mCopiedCount.get(), this.mFailedCount.get(), this.mBytesCopied.get(),
+                            System.nanoTime() - this.mStartNanos, this.mCancelled.get()));
+        }
+
+    }
+
+    private class ItemTask
+            implements AuthorityScheduler.RejectionAware {
+
+        private final int mIndex;
+
+        ItemTask(final int pIndex) {
+            this.mIndex = pIndex;
+        }
+
+        @Override
+        public void run() {
+
+            try {
+
+                if (!BatchCopy.this.mCancelled.get()) {
+                    BatchCopy.this.copyItem(this.mIndex);
+                }
+
+            } finally {
+                BatchCopy.this.onItemDone();
+            }
+
+        }
+
+        @Override
+        public void onRejected(@NonNull final RejectedExecutionException pException) {
+
+            BatchCopy.this.failItem(this.mIndex, new IOException("Executor rejected batch copy", pException));
+
+            BatchCopy.this.onItemDone();
+
+        }
+
+    }
+
+    private class Worker
+            implements Runnable {
+
+        @Override
+        public void run() {
+
+            try {
+
+                int index;
+                while (!BatchCopy.this.mCancelled.get() && (index = BatchCopy.this.mNextIndex.getAndIncrement()) < BatchCopy.this.mUris.size()) {
+                    BatchCopy.this.copyItem(index);
+                }
+
+            } finally {
+
+                if (BatchCopy.this.mActiveWorkers.decrementAndGet() == 0) {
+                    BatchCopy.this.finish();
+                }
+
+            }
+
+        }
+
+    }
+
+}
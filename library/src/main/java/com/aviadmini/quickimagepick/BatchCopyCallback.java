@@ -0,0 +1,43 @@
+package com.aviadmini.quickimagepick;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Callback for {@code UriUtils.saveContentToFiles(...)} methods. Methods are called on executor threads, possibly concurrently
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public interface BatchCopyCallback {
+
+    /**
+     * Triggered when content of an item was saved
+     *
+     * @param pIndex  index of the item in source list
+     * @param pUri    {@link Uri} of the item
+     * @param pFile   File to which content was saved
+     * @param pResult copy result
+     */
+    void onItemCopied(final int pIndex, @NonNull final Uri pUri, @NonNull final File pFile, @NonNull final CopyResult pResult);
+
+    /**
+     * Triggered when content of an item could not be saved. Partially written file is deleted
+     *
+     * @param pIndex     index of the item in source list
+     * @param pUri       {@link Uri} of the item
+     * @param pException the cause. Runtime exceptions thrown by content provider are wrapped in {@link IOException}
+     */
+    void onItemFailed(final int pIndex, @NonNull final Uri pUri, @NonNull final IOException pException);
+
+    /**
+     * Triggered once after all items were processed or after batch was cancelled and in-flight items were stopped
+     *
+     * @param pStats batch statistics
+     */
+    void onBatchFinished(@NonNull final BatchCopyStats pStats);
+
+}
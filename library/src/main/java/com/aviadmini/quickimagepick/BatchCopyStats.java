@@ -0,0 +1,99 @@
+package com.aviadmini.quickimagepick;
+
+/**
+ * Statistics of a finished {@link BatchCopy}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BatchCopyStats {
+
+    private final int mItemCount;
+    private final int mCopiedCount;
+    private final int mFailedCount;
+
+    private final long mBytesCopied;
+
+    private final long mElapsedNanos;
+
+    private final boolean mCancelled;
+
+    BatchCopyStats(final int pItemCount, final int pCopiedCount, final int pFailedCount, final long pBytesCopied, final long pElapsedNanos,
+                   final boolean pCancelled) {
+
+        this.mItemCount = pItemCount;
+        this.mCopiedCount = pCopiedCount;
+        this.mFailedCount = pFailedCount;
+
+        this.mBytesCopied = pBytesCopied;
+
+        this.mElapsedNanos = pElapsedNanos;
+
+        this.mCancelled = pCancelled;
+
+    }
+
+    /**
+     * @return number of items in batch
+     */
+    public int getItemCount() {
+        return this.mItemCount;
+    }
+
+    /**
+     * @return number of items that were saved
+     */
+    public int getCopiedCount() {
+        return this.mCopiedCount;
+    }
+
+    /**
+     * @return number of items that failed to be saved
+     */
+    public int getFailedCount() {
+        return this.mFailedCount;
+    }
+
+    /**
+     * @return number of items that were not saved because batch was cancelled
+     */
+    public int getSkippedCount() {
+        return this.mItemCount - this.mCopiedCount - this.mFailedCount;
+    }
+
+    /**
+     * @return total number of bytes saved
+     */
+    public long getBytesCopied() {
+        return this.mBytesCopied;
+    }
+
+    /**
+     * @return wall time of the batch in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.mElapsedNanos;
+    }
+
+    /**
+     * @return overall throughput in bytes per second
+     */
+    public long getThroughput() {
+        return this.mElapsedNanos <= 0 ? 0 : (long) (this.mBytesCopied * 1e9 / this.mElapsedNanos);
+    }
+
+    /**
+     * @return true if batch was cancelled
+     */
+    public boolean isCancelled() {
+        return this.mCancelled;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCopyStats{" + this.mCopiedCount + "/" + this.mItemCount + " copied, " + this.mFailedCount + " failed, " + this.mBytesCopied +
+               " bytes in " + this.mElapsedNanos / 1000000 + " ms" + (this.mCancelled ? ", cancelled" : "") + "}";
+    }
+
+}
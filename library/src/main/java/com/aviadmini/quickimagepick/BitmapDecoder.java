@@ -0,0 +1,236 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Memory-bounded decoding of picked images. Sample size is computed from image header, so content is decoded in a single pass,
+ * and opaque images are decoded as {@link Bitmap.Config#RGB_565} which takes half the memory of {@link Bitmap.Config#ARGB_8888}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BitmapDecoder {
+
+    /**
+     * Pass as max bytes to not limit decoded bitmap size
+     */
+    public static final long NO_BYTE_LIMIT = Long.MAX_VALUE;
+
+    @Nullable
+    private static volatile BitmapPool sBitmapPool = null;
+
+    private BitmapDecoder() {}
+
+    // ==== POOL ==== //
+
+    /**
+     * Set a pool decoded bitmaps are drawn from. Bitmap reuse works on Honeycomb (API 11) and later.
+     * Before KitKat (API 19) only JPEG and PNG images decoded without subsampling can reuse bitmaps. There's no pool by default
+     *
+     * @param pPool the pool or null to disable reuse
+     * @see LruBitmapPool
+     */
+    public static void setBitmapPool(@Nullable final BitmapPool pPool) {
+        sBitmapPool = pPool;
+    }
+
+    /**
+     * @return pool decoded bitmaps are drawn from or null if reuse is disabled
+     */
+    @Nullable
+    public static BitmapPool getBitmapPool() {
+        return sBitmapPool;
+    }
+
+    // ==== DECODING ==== //
+
+    /**
+     * Decodes image subsampled so that both sides are not smaller than requested (unless image itself is smaller).
+     * Image is not rotated according to EXIF orientation
+     *
+     * @param pContext      app {@link Context}
+     * @param pUri          image uri
+     * @param pTargetWidth  min width of decoded bitmap
+     * @param pTargetHeight min height of decoded bitmap
+     * @return decoded bitmap or null if image could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    public static Bitmap decode(@NonNull final Context pContext, @NonNull final Uri pUri, final int pTargetWidth, final int pTargetHeight) {
+        return decode(pContext, pUri, pTargetWidth, pTargetHeight, NO_BYTE_LIMIT);
+    }
+
+    /**
+     * Decodes image subsampled so that both sides are not smaller than requested (unless image itself is smaller)
+     * and decoded bitmap takes no more than given number of bytes. Byte limit wins over target size.
+     * Image is not rotated according to EXIF orientation
+     *
+     * @param pContext      app {@link Context}
+     * @param pUri          image uri
+     * @param pTargetWidth  min width of decoded bitmap
+     * @param pTargetHeight min height of decoded bitmap
+     * @param pMaxBytes     max size of decoded bitmap in bytes or {@link #NO_BYTE_LIMIT}
+     * @return decoded bitmap or null if image could not be decoded
+     */
+    @WorkerThread
+    @Nullable
+    public static Bitmap decode(@NonNull final Context pContext, @NonNull final Uri pUri, final int pTargetWidth, final int pTargetHeight,
+                                final long pMaxBytes) {
+
+        final ImageHeader header = probe(pContext, pUri);
+        if (header == null) {
+            return null;
+        }
+
+        final Bitmap.Config config = configFor(header);
+
+        return decode(pContext, pUri, header, config, sampleSizeFor(header, config, pTargetWidth, pTargetHeight, pMaxBytes));
+    }
+
+    /**
+     * @return header from streaming probe or from bounds decode if probe could not get dimensions
+     */
+    @Nullable
+    static ImageHeader probe(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final ImageHeader header = UriUtils.probeImageHeader(pContext, pUri);
+        if (header != null && header.hasDimensions()) {
+            return header;
+        }
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+
+        decodeStream(pContext, pUri, options);
+
+        return options.outWidth <= 0 || options.outHeight <= 0 ? null :
+               new ImageHeader(header == null ? ImageFormat.JPEG : header.getFormat(), options.outWidth, options.outHeight, true);
+    }
+
+    @NonNull
+    static Bitmap.Config configFor(@NonNull final ImageHeader pHeader) {
+        return pHeader.hasAlpha() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+    }
+
+    static int sampleSizeFor(@NonNull final ImageHeader pHeader, @NonNull final Bitmap.Config pConfig, final int pTargetWidth,
+                             final int pTargetHeight, final long pMaxBytes) {
+
+        final int width = pHeader.getWidth();
+        final int height = pHeader.getHeight();
+
+        int sampleSize = 1;
+
+        // largest power of two that keeps both sides not smaller than requested
+        while (width / (sampleSize * 2) >= pTargetWidth && height / (sampleSize * 2) >= pTargetHeight) {
+            sampleSize *= 2;
+        }
+
+        final int bytesPerPixel = pConfig == Bitmap.Config.RGB_565 ? 2 : 4;
+        while ((long) ceilDiv(width, sampleSize) * ceilDiv(height, sampleSize) * bytesPerPixel > pMaxBytes && sampleSize < width &&
+               sampleSize < height) {
+            sampleSize *= 2;
+        }
+
+        return sampleSize;
+    }
+
+    /**
+     * Decodes image with given sample size and config, reusing a bitmap from the shared pool when possible
+     */
+    @SuppressLint("NewApi")
+    @Nullable
+    static Bitmap decode(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final ImageHeader pHeader,
+                         @NonNull final Bitmap.Config pConfig, final int pSampleSize) {
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = pSampleSize;
+        options.inPreferredConfig = pConfig;
+
+        final BitmapPool pool = sBitmapPool;
+
+        Bitmap reusable = null;
+        if (pool != null && canReuse(pHeader, pSampleSize)) {
+
+            reusable = pool.get(ceilDiv(pHeader.getWidth(), pSampleSize), ceilDiv(pHeader.getHeight(), pSampleSize), pConfig);
+
+            options.inMutable = true;
+            options.inBitmap = reusable;
+
+        }
+
+        try {
+
+            final Bitmap bitmap = decodeStream(pContext, pUri, options);
+
+            // decoding failed, bitmap from pool was not used
+            if (bitmap == null && reusable != null) {
+                pool.put(reusable);
+            }
+
+            return bitmap;
+        } catch (final IllegalArgumentException e) {
+
+            // bitmap from pool did not fit after all, decode into a new one
+            if (reusable != null) {
+
+                pool.put(reusable);
+
+                options.inBitmap = null;
+
+                return decodeStream(pContext, pUri, options);
+            }
+
+            return null;
+        }
+
+    }
+
+    private static boolean canReuse(@NonNull final ImageHeader pHeader, final int pSampleSize) {
+        return QiPick.API_19 || QiPick.API_11 && pSampleSize == 1 && (pHeader.getFormat() == ImageFormat.JPEG || pHeader.getFormat() == ImageFormat.PNG);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@link BitmapFactory.Options#inBitmap} cannot be reused
+     */
+    @Nullable
+    private static Bitmap decodeStream(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final BitmapFactory.Options pOptions) {
+
+        InputStream is = null;
+        try {
+
+            is = pContext.getContentResolver()
+                         .openInputStream(pUri);
+
+            return is == null ? null : BitmapFactory.decodeStream(is, null, pOptions);
+        } catch (final IOException | SecurityException | IllegalStateException | OutOfMemoryError e) {
+            return null;
+        } finally {
+
+            if (is != null) {
+
+                try {
+                    is.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+    private static int ceilDiv(final int pValue, final int pDivisor) {
+        return (pValue + pDivisor - 1) / pDivisor;
+    }
+
+}
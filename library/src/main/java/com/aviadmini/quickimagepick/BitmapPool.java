@@ -0,0 +1,34 @@
+package com.aviadmini.quickimagepick;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Source of reusable bitmaps for {@link BitmapDecoder}. Bitmaps taken from pool are passed to decoder as
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}. Implementations must be thread-safe
+ *
+ * @author aviadmini
+ * @see BitmapDecoder#setBitmapPool(BitmapPool)
+ * @since v2.2.0
+ */
+public interface BitmapPool {
+
+    /**
+     * @param pWidth  width of bitmap that is going to be decoded
+     * @param pHeight height of bitmap that is going to be decoded
+     * @param pConfig config of bitmap that is going to be decoded
+     * @return mutable bitmap that can hold decoded image or null if pool has no suitable bitmap.
+     * Returned bitmap is removed from the pool
+     */
+    @Nullable
+    Bitmap get(final int pWidth, final int pHeight, @NonNull final Bitmap.Config pConfig);
+
+    /**
+     * Offers a bitmap that is no longer used to the pool. Pool either keeps the bitmap or recycles it
+     *
+     * @param pBitmap the bitmap
+     */
+    void put(@NonNull final Bitmap pBitmap);
+
+}
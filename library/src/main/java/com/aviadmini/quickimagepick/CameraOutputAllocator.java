@@ -0,0 +1,369 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.content.FileProvider;
+import android.util.Log;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Allocates camera output files without disk I/O on calling thread. Camera pics directory is resolved and created on a background thread,
+ * its writability is cached and next output file path (with its content Uri) is chosen ahead of time, so pick trigger and result handling
+ * only take prepared values. If nothing is prepared yet, falls back to doing the same work synchronously.
+ * Output files are not created here, camera app creates the file when it writes the picture, so requests that never launch camera
+ * leave nothing on disk
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class CameraOutputAllocator {
+
+    private static final String TAG = "QiPick";
+
+    static final String FILE_PROVIDER_AUTHORITY_SUFFIX = ".qip_file_provider";
+
+    // Assuming JPG output seems to be a correct way
+    static final String FILE_EXTENSION = ".jpg";
+
+    private static final String DEFAULT_DIR_KEY = "";
+
+    private static final Object LOCK = new Object();
+
+    @Nullable
+    private static CameraOutputAllocator sInstance = null;
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final Executor mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(@NonNull final Runnable pRunnable) {
+
+            final Thread thread = new Thread(pRunnable, "qip-camera-output");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    });
+
+    // keyed by custom directory path, default directory uses DEFAULT_DIR_KEY
+    private final Map<String, DirState> mDirs = new HashMap<>();
+
+    private CameraOutputAllocator(@NonNull final Context pContext) {
+        this.mContext = pContext;
+    }
+
+    @NonNull
+    static CameraOutputAllocator get(@NonNull final Context pContext) {
+
+        synchronized (LOCK) {
+
+            if (sInstance == null) {
+                sInstance = new CameraOutputAllocator(pContext.getApplicationContext());
+            }
+
+            return sInstance;
+        }
+
+    }
+
+    /**
+     * Drops the instance so that next {@link #get(Context)} starts with nothing resolved, as in a new process
+     */
+    @VisibleForTesting
+    static void resetInstance() {
+
+        synchronized (LOCK) {
+            sInstance = null;
+        }
+
+    }
+
+    // ==== ALLOCATION ==== //
+
+    /**
+     * Schedules resolution of given directory and choice of next output file in it, if not done yet
+     *
+     * @param pDirPath custom camera pics directory path or null for default one
+     */
+    synchronized void warmUp(@Nullable final String pDirPath) {
+
+        final DirState state = this.stateOf(pDirPath);
+
+        if (state.mNextOutput == null) {
+            this.scheduleRefill(pDirPath, state);
+        }
+
+    }
+
+    /**
+     * Takes prepared output file and schedules choice of the next one
+     *
+     * @param pDirPath custom camera pics directory path or null for default one
+     * @return camera output or null if directory cannot be created
+     */
+    @Nullable
+    Output allocate(@Nullable final String pDirPath) {
+
+        synchronized (this) {
+
+            final DirState state = this.stateOf(pDirPath);
+
+            final Output output = state.mNextOutput;
+            if (output != null) {
+
+                state.mNextOutput = null;
+
+                this.scheduleRefill(pDirPath, state);
+
+                return output;
+            }
+
+        }
+
+        // nothing prepared yet
+        final File dir = this.resolveDirectory(pDirPath);
+
+        synchronized (this) {
+            this.scheduleRefill(pDirPath, this.stateOf(pDirPath));
+        }
+
+        return dir == null ? null : this.createOutput(dir);
+    }
+
+    /**
+     * @param pDirPath custom camera pics directory path or null for default one
+     * @return true if directory was resolved and is writable. Checks synchronously (and caches the result) only if directory wasn't resolved yet
+     * @see #isResolved(String)
+     */
+    boolean isWritable(@Nullable final String pDirPath) {
+
+        synchronized (this) {
+
+            final DirState state = this.stateOf(pDirPath);
+            if (state.mResolved) {
+                return state.mWritable;
+            }
+
+        }
+
+        final File dir = this.resolveDirectory(pDirPath);
+        final boolean writable = dir != null && dir.canWrite();
+
+        synchronized (this) {
+
+            final DirState state = this.stateOf(pDirPath);
+
+            state.mResolved = true;
+            state.mWritable = writable;
+
+        }
+
+        return writable;
+    }
+
+    /**
+     * @param pDirPath custom camera pics directory path or null for default one
+     * @return true if {@link #isWritable(String)} for given directory doesn't touch disk
+     */
+    synchronized boolean isResolved(@Nullable final String pDirPath) {
+        return this.stateOf(pDirPath).mResolved;
+    }
+
+    /**
+     * Deletes content on background thread
+     *
+     * @param pUri content to delete
+     */
+    void deleteAsync(@NonNull final Uri pUri) {
+
+        this.mExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                UriUtils.deleteContent(CameraOutputAllocator.this.mContext, pUri);
+            }
+
+        });
+
+    }
+
+    /**
+     * Runs given task on allocator thread, serialized with output file creation
+     *
+     * @param pRunnable the task
+     */
+    void execute(@NonNull final Runnable pRunnable) {
+        this.mExecutor.execute(pRunnable);
+    }
+
+    /**
+     * @return prepared output files that were not allocated yet
+     */
+    @NonNull
+    synchronized Set<File> getReservedFiles() {
+
+        final Set<File> files = new HashSet<>();
+
+        for (final DirState state : this.mDirs.values()) {
+
+            if (state.mNextOutput != null) {
+                files.add(state.mNextOutput.mFile);
+            }
+
+        }
+
+        return files;
+    }
+
+    @NonNull
+    private DirState stateOf(@Nullable final String pDirPath) {
+
+        final String key = pDirPath == null ? DEFAULT_DIR_KEY : pDirPath;
+
+        DirState state = this.mDirs.get(key);
+        if (state == null) {
+
+            state = new DirState();
+
+            this.mDirs.put(key, state);
+
+        }
+
+        return state;
+    }
+
+    private void scheduleRefill(@Nullable final String pDirPath, @NonNull final DirState pState) {
+
+        if (pState.mRefillPending) {
+            return;
+        }
+
+        pState.mRefillPending = true;
+
+        this.mExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                CameraOutputAllocator.this.refill(pDirPath, pState);
+            }
+
+        });
+
+    }
+
+    private void refill(@Nullable final String pDirPath, @NonNull final DirState pState) {
+
+        final File dir = this.resolveDirectory(pDirPath);
+        final boolean writable = dir != null && dir.canWrite();
+
+        final Output output = writable ? this.createOutput(dir) : null;
+
+        synchronized (this) {
+
+            pState.mResolved = true;
+            pState.mWritable = writable;
+
+            if (pState.mNextOutput == null) {
+                pState.mNextOutput = output;
+            }
+
+            pState.mRefillPending = false;
+
+        }
+
+    }
+
+    // ==== FILES ==== //
+
+    @Nullable
+    private File resolveDirectory(@Nullable final String pDirPath) {
+
+        final File dir = pDirPath == null ? this.mContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES) : new File(pDirPath);
+        if (dir == null) {
+            return null;
+        }
+
+        // Workaround for #7 https://github.com/aviadmini/quickimagepick/issues/7
+        if (!dir.exists() && !dir.mkdirs()) {
+            return null;
+        }
+
+        return dir;
+    }
+
+    /**
+     * @return output with a file name that is not taken yet. File itself is not created
+     */
+    @Nullable
+    private Output createOutput(@NonNull final File pDir) {
+
+        File file = new File(pDir, System.nanoTime() + FILE_EXTENSION);
+        while (file.exists()) {
+            file = new File(pDir, System.nanoTime() + FILE_EXTENSION);
+        }
+
+        final Uri uri;
+        try {
+            uri = FileProvider.getUriForFile(this.mContext, this.mContext.getPackageName() + FILE_PROVIDER_AUTHORITY_SUFFIX, file);
+        } catch (final IllegalArgumentException e) {
+
+            Log.w(TAG, "Camera output file is not covered by file provider paths: " + file, e);
+
+            return null;
+        }
+
+        return new Output(file, uri);
+    }
+
+    // ==== //
+
+    private static final class DirState {
+
+        private boolean mResolved = false;
+        private boolean mWritable = false;
+
+        private boolean mRefillPending = false;
+
+        @Nullable
+        private Output mNextOutput = null;
+
+    }
+
+    /**
+     * Camera output file and its content Uri to pass to camera apps
+     */
+    static final class Output {
+
+        @NonNull
+        final File mFile;
+
+        @NonNull
+        final Uri mUri;
+
+        Output(@NonNull final File pFile, @NonNull final Uri pUri) {
+
+            this.mFile = pFile;
+
+            this.mUri = pUri;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,346 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Environment;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deletes abandoned camera output files from camera pics directory and keeps it within given quotas.
+ * Install with {@link QiPick#setCameraPicsSweeper(CameraPicsSweeper)} to sweep default directory after every camera or multi-source result,
+ * or call {@link #sweep(Context)} yourself, e.g. on app start
+ * <br><br>
+ * Only files named by QuickImagePick ({@code <digits>.jpg}) are touched. Files of in-flight pick sessions are never deleted.
+ * Empty files left by interrupted camera picks are always deleted, other files are deleted oldest first when they exceed max age or when
+ * directory exceeds max count or max bytes. Sweeping runs on a background thread in bounded batches
+ * <br><br>
+ * Note: camera pictures delivered to {@link PickCallback} are stored in this directory too, so copy them elsewhere if they must outlive the quotas
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CameraPicsSweeper {
+
+    /**
+     * Pass as a quota to disable it
+     */
+    public static final long NO_LIMIT = -1;
+
+    static final int BATCH_SIZE = 128;
+
+    private final long mMaxAgeMillis;
+    private final long mMaxCount;
+    private final long mMaxBytes;
+
+    // directories that have a sweep in progress
+    private final Set<String> mSweepingDirs = new HashSet<>();
+
+    /**
+     * @param pMaxAgeMillis max age of a file in milliseconds or {@link #NO_LIMIT}
+     * @param pMaxCount     max number of files in directory or {@link #NO_LIMIT}
+     * @param pMaxBytes     max total size of files in directory or {@link #NO_LIMIT}
+     */
+    public CameraPicsSweeper(final long pMaxAgeMillis, final long pMaxCount, final long pMaxBytes) {
+
+        this.mMaxAgeMillis = pMaxAgeMillis;
+        this.mMaxCount = pMaxCount;
+        this.mMaxBytes = pMaxBytes;
+
+    }
+
+    public long getMaxAgeMillis() {
+        return this.mMaxAgeMillis;
+    }
+
+    public long getMaxCount() {
+        return this.mMaxCount;
+    }
+
+    public long getMaxBytes() {
+        return this.mMaxBytes;
+    }
+
+    // ==== SWEEP ==== //
+
+    /**
+     * Schedules sweep of default camera pics directory (pictures directory in app's external files).
+     * Does nothing if this directory is already being swept
+     *
+     * @param pContext app {@link Context}
+     */
+    public void sweep(@NonNull final Context pContext) {
+        this.sweep(pContext, null);
+    }
+
+    /**
+     * Schedules sweep of given camera pics directory. Does nothing if this directory is already being swept
+     * <br><br>
+     * Note: make sure that given directory is used for QuickImagePick camera output only
+     *
+     * @param pContext app {@link Context}
+     * @param pDir     the directory or null for default one
+     */
+    public void sweep(@NonNull final Context pContext, @Nullable final File pDir) {
+
+        final Context context = pContext.getApplicationContext();
+
+        CameraOutputAllocator.get(context)
+                             .execute(new Runnable() {
+
+                                 @Override
+                                 public void run() {
+                                     CameraPicsSweeper.this.start(context, pDir);
+                                 }
+
+                             });
+
+    }
+
+    private void start(@NonNull final Context pContext, @Nullable final File pDir) {
+
+        final File dir = pDir == null ? pContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES) : pDir;
+        if (dir == null) {
+            return;
+        }
+
+        synchronized (this.mSweepingDirs) {
+
+            if (!this.mSweepingDirs.add(dir.getAbsolutePath())) {
+                return;
+            }
+
+        }
+
+        final String[] names = dir.list();
+        if (names == null || names.length == 0) {
+
+            this.finish(dir);
+
+            return;
+        }
+
+        // camera output Uris are FileProvider Uris, last path segment is the file name
+        final Set<String> protectedNames = new HashSet<>();
+
+        for (final String uri : PickStateStore.get(pContext)
+                                              .getInFlightCameraUris()) {
+            protectedNames.add(Uri.parse(uri)
+                                  .getLastPathSegment());
+        }
+
+        final CameraOutputAllocator allocator = CameraOutputAllocator.get(pContext);
+
+        for (final File file : allocator.getReservedFiles()) {
+            protectedNames.add(file.getName());
+        }
+
+        allocator.execute(new Sweep(allocator, dir, names, protectedNames));
+
+    }
+
+    private void finish(@NonNull final File pDir) {
+
+        synchronized (this.mSweepingDirs) {
+            this.mSweepingDirs.remove(pDir.getAbsolutePath());
+        }
+
+    }
+
+    static boolean isCameraOutputName(@NonNull final String pName) {
+
+        final int dot = pName.length() - CameraOutputAllocator.FILE_EXTENSION.length();
+        if (dot <= 0 || !pName.endsWith(CameraOutputAllocator.FILE_EXTENSION)) {
+            return false;
+        }
+
+        for (int i = 0; i < dot; i++) {
+
+            final char c = pName.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    // ==== //
+
+    /**
+     * Sweep of one directory. Every run processes at most {@link #BATCH_SIZE} files and reschedules itself,
+     * first pass checks age and empty files, second pass deletes oldest files over count and size quotas
+     */
+    private class Sweep
+            implements Runnable {
+
+        @NonNull
+        private final CameraOutputAllocator mAllocator;
+
+        @NonNull
+        private final File mDir;
+
+        @NonNull
+        private final String[] mNames;
+
+        @NonNull
+        private final Set<String> mProtectedNames;
+
+        private final long mNowMillis = System.currentTimeMillis();
+
+        // files kept after first pass
+        private final List<Candidate> mKept = new ArrayList<>();
+
+        private long mKeptBytes = 0;
+
+        private int mPosition = 0;
+
+        private boolean mScanning = true;
+
+        Sweep(@NonNull final CameraOutputAllocator pAllocator, @NonNull final File pDir, @NonNull final String[] pNames,
+              @NonNull final Set<String> pProtectedNames) {
+
+            this.mAllocator = pAllocator;
+
+            this.mDir = pDir;
+            this.mNames = pNames;
+
+            this.mProtectedNames = pProtectedNames;
+
+        }
+
+        @Override
+        public void run() {
+
+            final boolean done = this.mScanning ? this.scanBatch() : this.trimBatch();
+
+            if (done) {
+                CameraPicsSweeper.this.finish(this.mDir);
+
+            } else {
+                this.mAllocator.execute(this);
+            }
+
+        }
+
+        private boolean scanBatch() {
+
+            final long maxAgeMillis = CameraPicsSweeper.this.mMaxAgeMillis;
+
+            final int end = Math.min(this.mNames.length, this.mPosition + BATCH_SIZE);
+            for (; this.mPosition < end; this.mPosition++) {
+
+                final String name = this.mNames[this.mPosition];
+                if (!isCameraOutputName(name) || this.mProtectedNames.contains(name)) {
+                    continue;
+                }
+
+                final File file = new File(this.mDir, name);
+
+                final long lastModified = file.lastModified();
+                final long length = file.length();
+
+                // lastModified() is 0 if file is gone
+                if (lastModified == 0) {
+                    continue;
+                }
+
+                final boolean expired = maxAgeMillis != NO_LIMIT && this.mNowMillis - lastModified > maxAgeMillis;
+
+                if (length == 0 || expired) {
+                    this.delete(file);
+                } else {
+
+                    this.mKept.add(new Candidate(name, lastModified, length));
+
+                    this.mKeptBytes += length;
+
+                }
+
+            }
+
+            if (this.mPosition < this.mNames.length) {
+                return false;
+            }
+
+            // oldest first
+            Collections.sort(this.mKept, new Comparator<Candidate>() {
+
+                @Override
+                public int compare(final Candidate pLhs, final Candidate pRhs) {
+                    return pLhs.mLastModified < pRhs.mLastModified ? -1 : (pLhs.mLastModified == pRhs.mLastModified ? 0 : 1);
+                }
+
+            });
+
+            this.mScanning = false;
+            this.mPosition = 0;
+
+            return !this.isOverQuota();
+        }
+
+        private boolean trimBatch() {
+
+            final int end = Math.min(this.mKept.size(), this.mPosition + BATCH_SIZE);
+            for (; this.mPosition < end && this.isOverQuota(); this.mPosition++) {
+
+                final Candidate candidate = this.mKept.get(this.mPosition);
+
+                this.delete(new File(this.mDir, candidate.mName));
+
+                this.mKeptBytes -= candidate.mLength;
+
+            }
+
+            return this.mPosition >= this.mKept.size() || !this.isOverQuota();
+        }
+
+        private boolean isOverQuota() {
+
+            final long maxCount = CameraPicsSweeper.this.mMaxCount;
+            final long maxBytes = CameraPicsSweeper.this.mMaxBytes;
+
+            final int keptCount = this.mKept.size() - this.mPosition;
+
+            return maxCount != NO_LIMIT && keptCount > maxCount || maxBytes != NO_LIMIT && this.mKeptBytes > maxBytes;
+        }
+
+        private void delete(@NonNull final File pFile) {
+
+            //noinspection ResultOfMethodCallIgnored
+            pFile.delete();
+
+        }
+
+    }
+
+    private static final class Candidate {
+
+        @NonNull
+        private final String mName;
+
+        private final long mLastModified;
+        private final long mLength;
+
+        Candidate(@NonNull final String pName, final long pLastModified, final long pLength) {
+
+            this.mName = pName;
+
+            this.mLastModified = pLastModified;
+            this.mLength = pLength;
+
+        }
+
+    }
+
+}
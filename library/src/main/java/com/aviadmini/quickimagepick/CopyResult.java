@@ -0,0 +1,57 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Result of a {@link UriUtils} copy operation
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CopyResult {
+
+    @NonNull
+    private final CopyStrategy mStrategy;
+
+    private final long mBytesCopied;
+
+    private final long mReportedSize;
+
+    CopyResult(@NonNull final CopyStrategy pStrategy, final long pBytesCopied, final long pReportedSize) {
+
+        this.mStrategy = pStrategy;
+
+        this.mBytesCopied = pBytesCopied;
+        this.mReportedSize = pReportedSize;
+
+    }
+
+    /**
+     * @return strategy that was used to copy content
+     */
+    @NonNull
+    public CopyStrategy getStrategy() {
+        return this.mStrategy;
+    }
+
+    /**
+     * @return number of bytes written to destination
+     */
+    public long getBytesCopied() {
+        return this.mBytesCopied;
+    }
+
+    /**
+     * @return content size known before copy: length of file descriptor or, for pipes, size reported by content provider. -1 if unknown
+     */
+    public long getReportedSize() {
+        return this.mReportedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CopyResult{" + this.mStrategy + ", " + this.mBytesCopied + " bytes, reported " + this.mReportedSize + "}";
+    }
+
+}
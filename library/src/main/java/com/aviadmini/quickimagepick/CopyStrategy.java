@@ -0,0 +1,23 @@
+package com.aviadmini.quickimagepick;
+
+/**
+ * Strategies used by {@link UriUtils} to copy {@link android.net.Uri} content
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public enum CopyStrategy {
+
+    /**
+     * Source is a seekable file, content was transferred with {@link java.nio.channels.FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)} without copying it through a Java buffer
+     */
+    CHANNEL,
+
+    /**
+     * Source is a pipe or a socket (or is too small to benefit from channel transfer),
+     * content was copied through a buffer sized after reported content size
+     */
+    STREAM
+
+}
@@ -0,0 +1,72 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * Result of {@link ImportStore#importContent(android.net.Uri)}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ImportResult {
+
+    @NonNull
+    private final File mFile;
+
+    @NonNull
+    private final String mDigest;
+
+    private final long mSize;
+
+    private final boolean mExisting;
+
+    ImportResult(@NonNull final File pFile, @NonNull final String pDigest, final long pSize, final boolean pExisting) {
+
+        this.mFile = pFile;
+
+        this.mDigest = pDigest;
+        this.mSize = pSize;
+
+        this.mExisting = pExisting;
+
+    }
+
+    /**
+     * @return file in import store that holds the content. Don't modify or move it, it may be returned for other imports of same content
+     */
+    @NonNull
+    public File getFile() {
+        return this.mFile;
+    }
+
+    /**
+     * @return hex-encoded SHA-256 of content, also the name of {@link #getFile()}
+     */
+    @NonNull
+    public String getDigest() {
+        return this.mDigest;
+    }
+
+    /**
+     * @return content size in bytes
+     */
+    public long getSize() {
+        return this.mSize;
+    }
+
+    /**
+     * @return true if content was already in import store and was not copied again
+     */
+    public boolean isExisting() {
+        return this.mExisting;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" + this.mDigest + ", " + this.mSize + " bytes" + (this.mExisting ? ", existing" : "") + "}";
+    }
+
+}
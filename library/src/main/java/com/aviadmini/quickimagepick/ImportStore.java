@@ -0,0 +1,640 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Content-addressed store of imported content. Every imported Uri is copied to a file named after SHA-256 of its content
+ * in a library-owned directory, so picking the same image again returns the file that is already there instead of copying it again.
+ * <br><br>
+ * Content is hashed while it's copied. If there's stored content of same size as reported by content provider, hash of first
+ * {@link #PREFIX_SIZE} bytes is compared first. A prefix match is only a hint: the rest of content is then hashed without writing it
+ * anywhere, and stored file is returned only if full hash matches too. Otherwise (different content with same size and prefix)
+ * content is read again and stored, which is the only case when it's read twice.
+ * Index of stored content is kept in a small private file, read once per process and written atomically on a background thread
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ImportStore {
+
+    private static final String TAG = "QiPick";
+
+    private static final String DIR_NAME = "qip_imports";
+
+    // digests are hex, so index name can't clash with content files
+    private static final String INDEX_FILE_NAME = ".index";
+
+    private static final String TEMP_FILE_PREFIX = ".import";
+
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Number of first content bytes that are hashed separately for size + partial hash lookup
+     */
+    public static final int PREFIX_SIZE = 64 * 1024;
+
+    private static final Object LOCK = new Object();
+
+    @Nullable
+    private static ImportStore sInstance = null;
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final File mDir;
+
+    @NonNull
+    private final File mIndexFile;
+
+    @NonNull
+    private final Executor mWriteExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(@NonNull final Runnable pRunnable) {
+
+            final Thread thread = new Thread(pRunnable, "qip-import-index");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    });
+
+    private boolean mLoaded = false;
+
+    private final Map<String, Entry> mByDigest = new HashMap<>();
+
+    private final Map<Long, List<Entry>> mBySize = new HashMap<>();
+
+    // incremented on every change, writer skips snapshots that are already outdated
+    private long mVersion = 0;
+
+    private ImportStore(@NonNull final Context pContext) {
+
+        this.mContext = pContext;
+
+        this.mDir = new File(pContext.getFilesDir(), DIR_NAME);
+        this.mIndexFile = new File(this.mDir, INDEX_FILE_NAME);
+
+    }
+
+    /**
+     * @param pContext app {@link Context}
+     * @return import store of the app
+     */
+    @NonNull
+    public static ImportStore get(@NonNull final Context pContext) {
+
+        synchronized (LOCK) {
+
+            if (sInstance == null) {
+                sInstance = new ImportStore(pContext.getApplicationContext());
+            }
+
+            return sInstance;
+        }
+
+    }
+
+    /**
+     * @return directory that holds imported content
+     */
+    @NonNull
+    public File getDirectory() {
+        return this.mDir;
+    }
+
+    // ==== IMPORT ==== //
+
+    /**
+     * Imports Uri content to the store, unless same content is already there
+     *
+     * @param pUri Uri to get content from
+     * @return {@link ImportResult} with the stored file
+     * @throws IOException if the provided Uri could not be opened or if store directory could not be written
+     */
+    @WorkerThread
+    @NonNull
+    public ImportResult importContent(@NonNull final Uri pUri)
+            throws IOException {
+
+        final long startNanos = System.nanoTime();
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_COPY);
+
+        HashingInputStream his = null;
+
+        // bytes of streams that were closed before the last one
+        long bytesRead = 0;
+        try {
+
+            final ContentResolver resolver = this.mContext.getContentResolver();
+
+            final long reportedSize = UriUtils.getReportedSize(resolver, pUri);
+
+            final boolean sameSizeStored;
+            synchronized (this) {
+
+                this.ensureLoaded();
+
+                sameSizeStored = reportedSize >= 0 && this.mBySize.containsKey(reportedSize);
+
+            }
+
+            his = openHashing(resolver, pUri);
+
+            final byte[] head = new byte[PREFIX_SIZE];
+            int headLength = ImageSniffer.readFully(his, head, PREFIX_SIZE);
+
+            // head is read completely unless content is shorter
+            if (sameSizeStored && headLength == Math.min(PREFIX_SIZE, reportedSize)) {
+
+                if (this.hasPrefixMatch(reportedSize, HashingInputStream.toHex(his.prefixDigest()))) {
+
+                    // hash the rest without writing it, content is already stored if full hash matches any stored entry
+                    ContentCopier.discardStream(his, ContentCopier.bufferSizeFor(reportedSize - headLength), null);
+
+                    final String digest = HashingInputStream.toHex(his.digest());
+                    if (his.getCount() == reportedSize) {
+
+                        final File file = this.find(digest);
+                        if (file != null) {
+                            return new ImportResult(file, digest, reportedSize, true);
+                        }
+
+                    }
+
+                    // different content or stored file is gone, read content again to store it
+                    bytesRead += his.getCount();
+
+                    // not counted or closed again if reopening fails
+                    closeQuietly(his);
+                    his = null;
+
+                    his = openHashing(resolver, pUri);
+
+                    headLength = ImageSniffer.readFully(his, head, PREFIX_SIZE);
+
+                }
+
+            }
+
+            return this.store(his, head, headLength, reportedSize);
+        } finally {
+
+            if (his != null) {
+
+                closeQuietly(his);
+
+                bytesRead += his.getCount();
+
+            }
+
+            // nothing to record if content could not be opened
+            if (his != null || bytesRead > 0) {
+                QiPick.recordMetric(PickMetrics.STAGE_COPY, null, System.nanoTime() - startNanos, bytesRead);
+            }
+
+            tracer.endSection();
+
+        }
+
+    }
+
+    @NonNull
+    private static HashingInputStream openHashing(@NonNull final ContentResolver pResolver, @NonNull final Uri pUri)
+            throws IOException {
+
+        final InputStream is = pResolver.openInputStream(pUri);
+        if (is == null) {
+            throw new IOException("ContentResolver returned null InputStream for the Uri");
+        }
+
+        AuthorityScheduler.markContentOpened();
+
+        return new HashingInputStream(is, PREFIX_SIZE);
+    }
+
+    private static void closeQuietly(@NonNull final InputStream pStream) {
+
+        try {
+            pStream.close();
+        } catch (final IOException ignored) {}
+
+    }
+
+    /**
+     * Writes already read head and the rest of content to a temp file, then moves it under its digest
+     */
+    @NonNull
+    private ImportResult store(@NonNull final HashingInputStream pStream, @NonNull final byte[] pHead, final int pHeadLength,
+                               final long pReportedSize)
+            throws IOException {
+
+        if (!this.mDir.exists() && !this.mDir.mkdirs()) {
+            throw new IOException("Could not create import directory " + this.mDir);
+        }
+
+        final File tempFile = File.createTempFile(TEMP_FILE_PREFIX, null, this.mDir);
+
+        FileOutputStream fos = null;
+        try {
+
+            fos = new FileOutputStream(tempFile);
+
+            fos.write(pHead, 0, pHeadLength);
+
+            final long size = pHeadLength + ContentCopier.copyStream(pStream, fos, ContentCopier.bufferSizeFor(pReportedSize), null);
+
+            fos.close();
+            fos = null;
+
+            return this.commit(tempFile, HashingInputStream.toHex(pStream.digest()), size, HashingInputStream.toHex(pStream.prefixDigest()));
+        } finally {
+
+            if (fos != null) {
+
+                try {
+                    fos.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+            // still there if copy failed or content was already stored
+            if (tempFile.exists()) {
+
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+
+            }
+
+        }
+
+    }
+
+    @NonNull
+    private synchronized ImportResult commit(@NonNull final File pTempFile, @NonNull final String pDigest, final long pSize,
+                                             @NonNull final String pPrefixDigest)
+            throws IOException {
+
+        final File file = this.fileOf(pDigest);
+
+        final Entry existing = this.mByDigest.get(pDigest);
+        if (existing != null && file.exists()) {
+            return new ImportResult(file, pDigest, pSize, true);
+        }
+
+        if (!pTempFile.renameTo(file)) {
+            throw new IOException("Could not rename " + pTempFile + " to " + file);
+        }
+
+        if (existing == null) {
+
+            this.add(new Entry(pDigest, pSize, pPrefixDigest));
+
+            this.schedulePersist();
+
+        }
+
+        return new ImportResult(file, pDigest, pSize, false);
+    }
+
+    // ==== ACCESS ==== //
+
+    /**
+     * @param pDigest hex-encoded SHA-256 of content
+     * @return stored file with given content or null if there's none
+     */
+    @WorkerThread
+    @Nullable
+    public synchronized File find(@NonNull final String pDigest) {
+
+        this.ensureLoaded();
+
+        final Entry entry = this.mByDigest.get(pDigest);
+        if (entry == null) {
+            return null;
+        }
+
+        final File file = this.fileOf(entry.mDigest);
+        if (!file.exists()) {
+
+            this.remove(entry);
+
+            this.schedulePersist();
+
+            return null;
+        }
+
+        return file;
+    }
+
+    /**
+     * Deletes stored content
+     *
+     * @param pDigest hex-encoded SHA-256 of content
+     * @return true if content was in the store
+     */
+    @WorkerThread
+    public synchronized boolean delete(@NonNull final String pDigest) {
+
+        this.ensureLoaded();
+
+        final Entry entry = this.mByDigest.get(pDigest);
+        if (entry == null) {
+            return false;
+        }
+
+        this.remove(entry);
+
+        this.schedulePersist();
+
+        //noinspection ResultOfMethodCallIgnored
+        this.fileOf(pDigest)
+            .delete();
+
+        return true;
+    }
+
+    /**
+     * @return true if any stored content of given size has given prefix digest. Entries whose files are gone are dropped
+     */
+    private synchronized boolean hasPrefixMatch(final long pSize, @NonNull final String pPrefixDigest) {
+
+        final List<Entry> candidates = this.mBySize.get(pSize);
+        if (candidates == null) {
+            return false;
+        }
+
+        boolean found = false;
+        boolean removed = false;
+
+        // copy, entries are removed from the list while iterating
+        for (final Entry entry : new ArrayList<>(candidates)) {
+
+            if (!entry.mPrefixDigest.equals(pPrefixDigest)) {
+                continue;
+            }
+
+            if (this.fileOf(entry.mDigest)
+                    .exists()) {
+
+                found = true;
+
+                break;
+            }
+
+            // file was deleted behind store's back
+            this.remove(entry);
+
+            removed = true;
+
+        }
+
+        if (removed) {
+            this.schedulePersist();
+        }
+
+        return found;
+    }
+
+    @NonNull
+    private File fileOf(@NonNull final String pDigest) {
+        return new File(this.mDir, pDigest);
+    }
+
+    private void add(@NonNull final Entry pEntry) {
+
+        this.mByDigest.put(pEntry.mDigest, pEntry);
+
+        List<Entry> sameSize = this.mBySize.get(pEntry.mSize);
+        if (sameSize == null) {
+
+            sameSize = new ArrayList<>(1);
+
+            this.mBySize.put(pEntry.mSize, sameSize);
+
+        }
+
+        sameSize.add(pEntry);
+
+    }
+
+    private void remove(@NonNull final Entry pEntry) {
+
+        this.mByDigest.remove(pEntry.mDigest);
+
+        final List<Entry> sameSize = this.mBySize.get(pEntry.mSize);
+        if (sameSize != null) {
+
+            sameSize.remove(pEntry);
+
+            if (sameSize.isEmpty()) {
+                this.mBySize.remove(pEntry.mSize);
+            }
+
+        }
+
+    }
+
+    private void ensureLoaded() {
+
+        if (!this.mLoaded) {
+
+            this.load();
+
+            this.mLoaded = true;
+
+        }
+
+    }
+
+    private void schedulePersist() {
+
+        final long version = ++this.mVersion;
+
+        this.mWriteExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                ImportStore.this.persist(version);
+            }
+
+        });
+
+    }
+
+    // ==== INDEX FILE ==== //
+
+    private void load() {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_STATE_PERSISTENCE);
+
+        try {
+
+            DataInputStream in = null;
+            try {
+
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.mIndexFile)));
+
+                if (in.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+
+                final int entryCount = in.readInt();
+                for (int i = 0; i < entryCount; i++) {
+
+                    final String digest = in.readUTF();
+                    final long size = in.readLong();
+                    final String prefixDigest = in.readUTF();
+
+                    this.add(new Entry(digest, size, prefixDigest));
+
+                }
+
+            } catch (final FileNotFoundException ignored) {
+            } catch (final IOException e) {
+
+                Log.w(TAG, "Could not read import index", e);
+
+                this.mByDigest.clear();
+                this.mBySize.clear();
+
+            } finally {
+
+                if (in != null) {
+
+                    try {
+                        in.close();
+                    } catch (final IOException ignored) {}
+
+                }
+
+            }
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    private void persist(final long pVersion) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_STATE_PERSISTENCE);
+
+        try {
+
+            final List<Entry> entries;
+            synchronized (this) {
+
+                // a newer write is queued and will persist newer state
+                if (pVersion != this.mVersion) {
+                    return;
+                }
+
+                entries = new ArrayList<>(this.mByDigest.values());
+
+            }
+
+            final File tempFile = new File(this.mIndexFile.getPath() + ".tmp");
+
+            DataOutputStream out = null;
+            try {
+
+                final FileOutputStream fos = new FileOutputStream(tempFile);
+                out = new DataOutputStream(new BufferedOutputStream(fos));
+
+                out.writeInt(FORMAT_VERSION);
+
+                out.writeInt(entries.size());
+                for (final Entry entry : entries) {
+
+                    out.writeUTF(entry.mDigest);
+                    out.writeLong(entry.mSize);
+                    out.writeUTF(entry.mPrefixDigest);
+
+                }
+
+                out.flush();
+                fos.getFD()
+                   .sync();
+
+                out.close();
+                out = null;
+
+                if (!tempFile.renameTo(this.mIndexFile)) {
+                    throw new IOException("Could not rename " + tempFile + " to " + this.mIndexFile);
+                }
+
+            } catch (final IOException e) {
+                Log.w(TAG, "Could not persist import index", e);
+            } finally {
+
+                if (out != null) {
+
+                    try {
+                        out.close();
+                    } catch (final IOException ignored) {}
+
+                }
+
+            }
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    // ==== //
+
+    private static final class Entry {
+
+        @NonNull
+        private final String mDigest;
+
+        private final long mSize;
+
+        @NonNull
+        private final String mPrefixDigest;
+
+        Entry(@NonNull final String pDigest, final long pSize, @NonNull final String pPrefixDigest) {
+
+            this.mDigest = pDigest;
+
+            this.mSize = pSize;
+
+            this.mPrefixDigest = pPrefixDigest;
+
+        }
+
+    }
+
+}
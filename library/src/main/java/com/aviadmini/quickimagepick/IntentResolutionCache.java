@@ -0,0 +1,201 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Bundle;
+import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Caches {@link android.content.pm.PackageManager#queryIntentActivities(Intent, int)} results for pick intents,
+ * so that repeated pick triggers don't query package manager on main thread.
+ * Cache is dropped whenever a package is added, removed or changed
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class IntentResolutionCache {
+
+    private static final Object LOCK = new Object();
+
+    @Nullable
+    private static IntentResolutionCache sInstance = null;
+
+    @NonNull
+    private final Context mContext;
+
+    private final Map<String, List<ResolveInfo>> mResolutions = new HashMap<>();
+
+    // incremented on every invalidation, so that resolution queried before a package change is not cached after it
+    private int mGeneration = 0;
+
+    private IntentResolutionCache(@NonNull final Context pContext) {
+
+        this.mContext = pContext;
+
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+
+        this.mContext.registerReceiver(new BroadcastReceiver() {
+
+            @Override
+            public void onReceive(final Context pContext, final Intent pIntent) {
+                IntentResolutionCache.this.invalidate();
+            }
+
+        }, filter);
+
+    }
+
+    @NonNull
+    static IntentResolutionCache get(@NonNull final Context pContext) {
+
+        synchronized (LOCK) {
+
+            if (sInstance == null) {
+                sInstance = new IntentResolutionCache(pContext.getApplicationContext());
+            }
+
+            return sInstance;
+        }
+
+    }
+
+    /**
+     * Drops the instance so that next {@link #get(Context)} starts with empty cache, as in a new process
+     */
+    @VisibleForTesting
+    static void resetInstance() {
+
+        synchronized (LOCK) {
+            sInstance = null;
+        }
+
+    }
+
+    // ==== ACCESS ==== //
+
+    /**
+     * @param pIntent the intent
+     * @return unmodifiable list of activities that can handle given intent. Cached unless packages changed since last query
+     */
+    @NonNull
+    List<ResolveInfo> query(@NonNull final Intent pIntent) {
+
+        final String key = keyOf(pIntent);
+
+        final int generation;
+        synchronized (this) {
+
+            final List<ResolveInfo> cached = this.mResolutions.get(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            generation = this.mGeneration;
+
+        }
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_INTENT_RESOLUTION);
+
+        try {
+
+            final List<ResolveInfo> queried = this.mContext.getPackageManager()
+                                                           .queryIntentActivities(pIntent, 0);
+
+            final List<ResolveInfo> resolutions = Collections.unmodifiableList(queried == null ? new ArrayList<ResolveInfo>() : queried);
+
+            synchronized (this) {
+
+                if (generation == this.mGeneration) {
+                    this.mResolutions.put(key, resolutions);
+                }
+
+            }
+
+            return resolutions;
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    synchronized void invalidate() {
+
+        this.mResolutions.clear();
+
+        this.mGeneration++;
+
+    }
+
+    // ==== KEY ==== //
+
+    /**
+     * Key consists of everything that affects resolution of pick intents: action, data, type, categories and extras.
+     * {@link MediaStore#EXTRA_OUTPUT} is excluded because it differs for every camera pick and doesn't affect resolution
+     */
+    @NonNull
+    static String keyOf(@NonNull final Intent pIntent) {
+
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(pIntent.getAction())
+          .append('|');
+
+        final Uri data = pIntent.getData();
+        sb.append(data)
+          .append('|')
+          .append(pIntent.getType())
+          .append('|');
+
+        final Set<String> categories = pIntent.getCategories();
+        if (categories != null) {
+            sb.append(new TreeSet<>(categories));
+        }
+
+        sb.append('|');
+
+        final Bundle extras = pIntent.getExtras();
+        if (extras != null) {
+
+            for (final String extraKey : new TreeSet<>(extras.keySet())) {
+
+                if (MediaStore.EXTRA_OUTPUT.equals(extraKey)) {
+                    continue;
+                }
+
+                final Object value = extras.get(extraKey);
+
+                sb.append(extraKey)
+                  .append('=')
+                  .append(value instanceof Object[] ? Arrays.toString((Object[]) value) : String.valueOf(value))
+                  .append(';');
+
+            }
+
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,364 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link BitmapPool} that keeps bitmaps grouped by size and config and evicts least recently used groups when held bytes exceed the cap.
+ * Install it with {@link BitmapDecoder#setBitmapPool(BitmapPool)} and let it react to memory pressure with
+ * {@link #registerTrimCallbacks(Context)}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LruBitmapPool
+        implements BitmapPool {
+
+    /**
+     * On KitKat (API 19) and later a larger bitmap can be reconfigured to smaller size, but only up to this many times larger
+     * so that small decodes don't hold on to large allocations
+     */
+    private static final int MAX_RECONFIGURE_FACTOR = 2;
+
+    private final long mMaxBytes;
+
+    private final LinkedHashMap<Key, ArrayDeque<Bitmap>> mGroups = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mCurrentBytes = 0;
+
+    private long mHitCount      = 0;
+    private long mMissCount     = 0;
+    private long mEvictionCount = 0;
+
+    /**
+     * @param pMaxBytes max number of bytes held by pooled bitmaps
+     */
+    public LruBitmapPool(final long pMaxBytes) {
+        this.mMaxBytes = Math.max(0, pMaxBytes);
+    }
+
+    // ==== POOL ==== //
+
+    @SuppressLint("NewApi")
+    @Nullable
+    @Override
+    public synchronized Bitmap get(final int pWidth, final int pHeight, @NonNull final Bitmap.Config pConfig) {
+
+        final ArrayDeque<Bitmap> group = this.mGroups.get(new Key(pWidth, pHeight, pConfig));
+        if (group != null && !group.isEmpty()) {
+            return this.take(group);
+        }
+
+        if (QiPick.API_19) {
+
+            final long needed = (long) pWidth * pHeight * bytesPerPixel(pConfig);
+
+            for (final Map.Entry<Key, ArrayDeque<Bitmap>> entry : this.mGroups.entrySet()) {
+
+                final ArrayDeque<Bitmap> candidates = entry.getValue();
+                if (entry.getKey().mConfig != pConfig || candidates.isEmpty()) {
+                    continue;
+                }
+
+                final long available = sizeOf(candidates.peekFirst());
+                if (available >= needed && available <= needed * MAX_RECONFIGURE_FACTOR) {
+
+                    final Bitmap bitmap = this.take(candidates);
+                    bitmap.reconfigure(pWidth, pHeight, pConfig);
+
+                    return bitmap;
+                }
+
+            }
+
+        }
+
+        this.mMissCount++;
+
+        return null;
+    }
+
+    @Override
+    public void put(@NonNull final Bitmap pBitmap) {
+
+        final long size = sizeOf(pBitmap);
+
+        // not reusable or too large to be worth keeping
+        if (!pBitmap.isMutable() || pBitmap.isRecycled() || pBitmap.getConfig() == null || size > this.mMaxBytes / 2) {
+
+            pBitmap.recycle();
+
+            return;
+        }
+
+        synchronized (this) {
+
+            final Key key = new Key(pBitmap.getWidth(), pBitmap.getHeight(), pBitmap.getConfig());
+
+            ArrayDeque<Bitmap> group = this.mGroups.get(key);
+            if (group == null) {
+
+                group = new ArrayDeque<>();
+
+                this.mGroups.put(key, group);
+
+            }
+
+            group.addLast(pBitmap);
+
+            this.mCurrentBytes += size;
+
+            this.trimToSize(this.mMaxBytes);
+
+        }
+
+    }
+
+    @NonNull
+    private Bitmap take(@NonNull final ArrayDeque<Bitmap> pGroup) {
+
+        final Bitmap bitmap = pGroup.pollFirst();
+
+        this.mCurrentBytes -= sizeOf(bitmap);
+
+        this.mHitCount++;
+
+        return bitmap;
+    }
+
+    // ==== TRIMMING ==== //
+
+    /**
+     * Evicts least recently used bitmaps until pool holds no more than given number of bytes
+     *
+     * @param pMaxBytes bytes to keep at most
+     */
+    public synchronized void trimToSize(final long pMaxBytes) {
+
+        final Iterator<Map.Entry<Key, ArrayDeque<Bitmap>>> iterator = this.mGroups.entrySet()
+                                                                                  .iterator();
+        while (this.mCurrentBytes > pMaxBytes && iterator.hasNext()) {
+
+            final ArrayDeque<Bitmap> group = iterator.next()
+                                                     .getValue();
+
+            while (this.mCurrentBytes > pMaxBytes && !group.isEmpty()) {
+
+                final Bitmap bitmap = group.pollFirst();
+
+                this.mCurrentBytes -= sizeOf(bitmap);
+
+                this.mEvictionCount++;
+
+                bitmap.recycle();
+
+            }
+
+            if (group.isEmpty()) {
+                iterator.remove();
+            }
+
+        }
+
+    }
+
+    /**
+     * Evicts all bitmaps
+     */
+    public void clear() {
+        this.trimToSize(0);
+    }
+
+    /**
+     * Trims the pool according to memory trim level
+     *
+     * @param pLevel one of {@code ComponentCallbacks2.TRIM_MEMORY_} constants
+     */
+    @SuppressLint("InlinedApi")
+    public void trimMemory(final int pLevel) {
+
+        if (pLevel >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            this.clear();
+        } else if (pLevel >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN || pLevel == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            this.trimToSize(this.mMaxBytes / 2);
+        }
+
+    }
+
+    /**
+     * Registers callbacks that trim the pool when system is low on memory. Works on Ice Cream Sandwich (API 14) and later
+     *
+     * @param pContext any {@link Context}
+     */
+    @SuppressLint("NewApi")
+    public void registerTrimCallbacks(@NonNull final Context pContext) {
+
+        if (QiPick.API_14) {
+            pContext.getApplicationContext()
+                    .registerComponentCallbacks(new TrimCallbacks(this));
+        }
+
+    }
+
+    // ==== STATS ==== //
+
+    /**
+     * @return number of bytes held by pooled bitmaps
+     */
+    public synchronized long getCurrentBytes() {
+        return this.mCurrentBytes;
+    }
+
+    /**
+     * @return max number of bytes held by pooled bitmaps
+     */
+    public long getMaxBytes() {
+        return this.mMaxBytes;
+    }
+
+    /**
+     * @return number of requests served with a pooled bitmap
+     */
+    public synchronized long getHitCount() {
+        return this.mHitCount;
+    }
+
+    /**
+     * @return number of requests pool had no suitable bitmap for
+     */
+    public synchronized long getMissCount() {
+        return this.mMissCount;
+    }
+
+    /**
+     * @return share of requests served with a pooled bitmap, 0 if there were no requests
+     */
+    public synchronized float getHitRate() {
+
+        final long requests = this.mHitCount + this.mMissCount;
+
+        return requests == 0 ? 0 : (float) this.mHitCount / requests;
+    }
+
+    /**
+     * @return number of bitmaps recycled to keep pool within its cap
+     */
+    public synchronized long getEvictionCount() {
+        return this.mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "LruBitmapPool{" + this.mCurrentBytes + "/" + this.mMaxBytes + " bytes, hits=" + this.mHitCount + ", misses=" + this.mMissCount +
+               ", evictions=" + this.mEvictionCount + "}";
+    }
+
+    // ==== //
+
+    @SuppressLint("NewApi")
+    static long sizeOf(@NonNull final Bitmap pBitmap) {
+
+        if (QiPick.API_19) {
+            return pBitmap.getAllocationByteCount();
+        }
+
+        return (long) pBitmap.getRowBytes() * pBitmap.getHeight();
+    }
+
+    private static int bytesPerPixel(@NonNull final Bitmap.Config pConfig) {
+
+        switch (pConfig) {
+
+            case ALPHA_8:
+                return 1;
+
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+
+            default:
+                return 4;
+
+        }
+
+    }
+
+    private static class Key {
+
+        final int mWidth;
+        final int mHeight;
+
+        @NonNull
+        final Bitmap.Config mConfig;
+
+        Key(final int pWidth, final int pHeight, @NonNull final Bitmap.Config pConfig) {
+
+            this.mWidth = pWidth;
+            this.mHeight = pHeight;
+
+            this.mConfig = pConfig;
+
+        }
+
+        @Override
+        public boolean equals(final Object pObject) {
+
+            if (!(pObject instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) pObject;
+
+            return this.mWidth == other.mWidth && this.mHeight == other.mHeight && this.mConfig == other.mConfig;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.mWidth + this.mHeight) + this.mConfig.hashCode();
+        }
+
+    }
+
+    /**
+     * Separate class so that pool itself can be loaded on API levels that don't have {@link ComponentCallbacks2}
+     */
+    @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+    private static class TrimCallbacks
+            implements ComponentCallbacks2 {
+
+        @NonNull
+        private final LruBitmapPool mPool;
+
+        TrimCallbacks(@NonNull final LruBitmapPool pPool) {
+            this.mPool = pPool;
+        }
+
+        @Override
+        public void onTrimMemory(final int pLevel) {
+            this.mPool.trimMemory(pLevel);
+        }
+
+        @Override
+        public void onConfigurationChanged(final Configuration pNewConfig) {}
+
+        @Override
+        public void onLowMemory() {
+            this.mPool.clear();
+        }
+
+    }
+
+}
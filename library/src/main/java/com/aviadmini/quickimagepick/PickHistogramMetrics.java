@@ -0,0 +1,300 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free {@link PickMetrics} that aggregates durations of every stage and pick source into a log-scale histogram.
+ * Each power of two is split into 4 buckets, so percentiles are accurate within 25%. Recording doesn't allocate
+ * <br><br>
+ * Use {@link #snapshot(int)} to export percentiles or {@link #dump()} to get a readable summary
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PickHistogramMetrics
+        implements PickMetrics {
+
+    static final int BUCKET_COUNT = 256;
+
+    // one slot per pick source and one for events without source
+    private static final int SOURCE_SLOTS = PickSource.values().length + 1;
+
+    private static final int TOTAL_COUNT = 0;
+    private static final int TOTAL_NANOS = 1;
+    private static final int TOTAL_BYTES = 2;
+
+    private static final int TOTALS_PER_HISTOGRAM = 3;
+
+    private static final String[] STAGE_NAMES = {"prepare", "launch", "external", "result", "copy", "metadata"};
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(STAGE_COUNT * SOURCE_SLOTS * BUCKET_COUNT);
+
+    private final AtomicLongArray mTotals = new AtomicLongArray(STAGE_COUNT * SOURCE_SLOTS * TOTALS_PER_HISTOGRAM);
+
+    // ==== RECORDING ==== //
+
+    @Override
+    public void record(@Stage final int pStage, @Nullable final PickSource pSource, final long pDurationNanos, final long pBytes) {
+
+        if (pStage < 0 || pStage >= STAGE_COUNT) {
+            return;
+        }
+
+        final int histogram = histogramOf(pStage, pSource);
+
+        this.mBuckets.incrementAndGet(histogram * BUCKET_COUNT + bucketOf(pDurationNanos));
+
+        final int totals = histogram * TOTALS_PER_HISTOGRAM;
+
+        this.mTotals.incrementAndGet(totals + TOTAL_COUNT);
+        this.mTotals.addAndGet(totals + TOTAL_NANOS, Math.max(0, pDurationNanos));
+        this.mTotals.addAndGet(totals + TOTAL_BYTES, Math.max(0, pBytes));
+
+    }
+
+    /**
+     * Clears all recorded values. Events recorded concurrently with reset may be partially kept
+     */
+    public void reset() {
+
+        for (int i = 0; i < this.mBuckets.length(); i++) {
+            this.mBuckets.set(i, 0);
+        }
+
+        for (int i = 0; i < this.mTotals.length(); i++) {
+            this.mTotals.set(i, 0);
+        }
+
+    }
+
+    // ==== EXPORT ==== //
+
+    /**
+     * @param pStage one of {@code STAGE_} constants of {@link PickMetrics}
+     * @return snapshot of given stage for all pick sources
+     */
+    @NonNull
+    public Snapshot snapshot(@Stage final int pStage) {
+
+        final Snapshot snapshot = new Snapshot();
+
+        for (int slot = 0; slot < SOURCE_SLOTS; slot++) {
+            this.addTo(snapshot, pStage * SOURCE_SLOTS + slot);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @param pStage  one of {@code STAGE_} constants of {@link PickMetrics}
+     * @param pSource pick source or null for events without a source
+     * @return snapshot of given stage for given pick source
+     */
+    @NonNull
+    public Snapshot snapshot(@Stage final int pStage, @Nullable final PickSource pSource) {
+
+        final Snapshot snapshot = new Snapshot();
+
+        this.addTo(snapshot, histogramOf(pStage, pSource));
+
+        return snapshot;
+    }
+
+    /**
+     * @return readable summary of all stages that have events, one stage per line
+     */
+    @NonNull
+    public String dump() {
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (int stage = 0; stage < STAGE_COUNT; stage++) {
+
+            final Snapshot snapshot = this.snapshot(stage);
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+
+            sb.append(String.format(Locale.US, "%s: n=%d p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms", STAGE_NAMES[stage], snapshot.getCount(),
+                    snapshot.getPercentileNanos(50) / 1e6, snapshot.getPercentileNanos(90) / 1e6, snapshot.getPercentileNanos(99) / 1e6,
+                    snapshot.getMaxNanos() / 1e6));
+
+            if (snapshot.getTotalBytes() > 0) {
+                sb.append(String.format(Locale.US, " bytes=%d throughput=%.1fMB/s", snapshot.getTotalBytes(), snapshot.getBytesPerSecond() / 1e6));
+            }
+
+            sb.append('\n');
+
+        }
+
+        return sb.toString();
+    }
+
+    private void addTo(@NonNull final Snapshot pSnapshot, final int pHistogram) {
+
+        final int bucketOffset = pHistogram * BUCKET_COUNT;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            pSnapshot.mBuckets[i] += this.mBuckets.get(bucketOffset + i);
+        }
+
+        final int totals = pHistogram * TOTALS_PER_HISTOGRAM;
+
+        pSnapshot.mCount += this.mTotals.get(totals + TOTAL_COUNT);
+        pSnapshot.mTotalNanos += this.mTotals.get(totals + TOTAL_NANOS);
+        pSnapshot.mTotalBytes += this.mTotals.get(totals + TOTAL_BYTES);
+
+    }
+
+    // ==== BUCKETS ==== //
+
+    private static int histogramOf(final int pStage, @Nullable final PickSource pSource) {
+        return pStage * SOURCE_SLOTS + (pSource == null ? SOURCE_SLOTS - 1 : pSource.ordinal());
+    }
+
+    /**
+     * Values below 4 have own buckets, larger values are bucketed by power of two and 2 next most significant bits
+     */
+    static int bucketOf(final long pValue) {
+
+        if (pValue < 4) {
+            return pValue < 0 ? 0 : (int) pValue;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(pValue);
+        final int subBucket = (int) (pValue >>> (exponent - 2)) & 0x3;
+
+        return ((exponent - 1) << 2) | subBucket;
+    }
+
+    /**
+     * @return largest value that falls into given bucket
+     */
+    static long bucketUpperBound(final int pBucket) {
+
+        if (pBucket < 4) {
+            return pBucket;
+        }
+
+        final int exponent = (pBucket >> 2) + 1;
+        final long lowerBound = (long) (4 | (pBucket & 0x3)) << (exponent - 2);
+
+        return lowerBound + (1L << (exponent - 2)) - 1;
+    }
+
+    // ==== //
+
+    /**
+     * Point-in-time copy of a histogram
+     */
+    public static final class Snapshot {
+
+        private final long[] mBuckets = new long[BUCKET_COUNT];
+
+        private long mCount      = 0;
+        private long mTotalNanos = 0;
+        private long mTotalBytes = 0;
+
+        Snapshot() {}
+
+        public long getCount() {
+            return this.mCount;
+        }
+
+        public long getTotalNanos() {
+            return this.mTotalNanos;
+        }
+
+        public long getTotalBytes() {
+            return this.mTotalBytes;
+        }
+
+        public long getMeanNanos() {
+            return this.mCount == 0 ? 0 : this.mTotalNanos / this.mCount;
+        }
+
+        /**
+         * @return bytes moved per second of recorded time or 0 if nothing was recorded
+         */
+        public double getBytesPerSecond() {
+            return this.mTotalNanos == 0 ? 0 : this.mTotalBytes * 1e9 / this.mTotalNanos;
+        }
+
+        /**
+         * @param pPercentile percentile from 0 to 100
+         * @return upper bound of bucket that contains given percentile or 0 if there are no events
+         */
+        public long getPercentileNanos(final double pPercentile) {
+
+            long bucketsTotal = 0;
+            for (final long count : this.mBuckets) {
+                bucketsTotal += count;
+            }
+
+            if (bucketsTotal == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(bucketsTotal * Math.min(100, Math.max(0, pPercentile)) / 100));
+
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+
+                seen += this.mBuckets[i];
+
+                if (seen >= rank) {
+                    return bucketUpperBound(i);
+                }
+
+            }
+
+            return bucketUpperBound(BUCKET_COUNT - 1);
+        }
+
+        /**
+         * @return upper bound of the highest non-empty bucket or 0 if there are no events
+         */
+        public long getMaxNanos() {
+
+            for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+
+                if (this.mBuckets[i] > 0) {
+                    return bucketUpperBound(i);
+                }
+
+            }
+
+            return 0;
+        }
+
+        /**
+         * @return number of buckets
+         */
+        public int getBucketCount() {
+            return BUCKET_COUNT;
+        }
+
+        /**
+         * @param pBucket bucket index
+         * @return number of events in given bucket
+         */
+        public long getEventCount(final int pBucket) {
+            return this.mBuckets[pBucket];
+        }
+
+        /**
+         * @param pBucket bucket index
+         * @return largest duration in nanoseconds that falls into given bucket
+         */
+        public long getBucketUpperBoundNanos(final int pBucket) {
+            return bucketUpperBound(pBucket);
+        }
+
+    }
+
+}
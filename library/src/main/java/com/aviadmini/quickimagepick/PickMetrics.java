@@ -0,0 +1,65 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.Nullable;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Listener of timings of pick flow stages and I/O done by the library. Install with {@link QiPick#setPickMetrics(PickMetrics)}
+ * <br><br>
+ * Called on the thread that performs the stage, often main thread, so implementations must be thread-safe and fast.
+ * {@link PickHistogramMetrics} is a lock-free implementation that doesn't allocate per event
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public interface PickMetrics {
+
+    /**
+     * Building and resolving pick intents, camera output allocation. Reported for every {@code PickRequest.from*()}
+     * and {@code PickRequest.prepareFrom*()} call that succeeds
+     */
+    int STAGE_PREPARE = 0;
+
+    /**
+     * Persisting pick state and starting pick Activity
+     */
+    int STAGE_LAUNCH = 1;
+
+    /**
+     * Time between launch and result, spent in chooser and pick Activity. Millisecond precision
+     */
+    int STAGE_EXTERNAL = 2;
+
+    /**
+     * Handling of activity result up to the end of {@link PickCallback} calls
+     */
+    int STAGE_RESULT = 3;
+
+    /**
+     * Copying content with {@code UriUtils.saveContentToFile(...)} or {@code UriUtils.copyContent(...)}, reported with number of bytes copied
+     */
+    int STAGE_COPY = 4;
+
+    /**
+     * Uncached metadata lookups of {@link UriUtils}
+     */
+    int STAGE_METADATA = 5;
+
+    int STAGE_COUNT = 6;
+
+    @IntDef({STAGE_PREPARE, STAGE_LAUNCH, STAGE_EXTERNAL, STAGE_RESULT, STAGE_COPY, STAGE_METADATA})
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Stage {}
+
+    /**
+     * @param pStage         one of {@code STAGE_} constants
+     * @param pSource        pick source or null if stage is not related to a single pick source (multi-source picks, I/O)
+     * @param pDurationNanos duration of the stage in nanoseconds
+     * @param pBytes         number of bytes moved or 0
+     */
+    void record(@Stage final int pStage, @Nullable final PickSource pSource, final long pDurationNanos, final long pBytes);
+
+}
@@ -0,0 +1,32 @@
+package com.aviadmini.quickimagepick;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+/**
+ * {@link PickCallback} that also receives a small preview of picked image.
+ * Preview is taken from EXIF embedded thumbnail, MediaStore thumbnail or heavily subsampled decode, whichever is available first.
+ * It's loaded on a background thread after image {@link Uri} is delivered, so it never delays {@link #onImagePicked(PickSource, int, Uri)}.
+ * Loading time depends on the provider: local images usually take a few milliseconds, cloud-backed ones may take much longer
+ *
+ * @author aviadmini
+ * @see QiPick#setPreviewMaxSize(int)
+ * @since v2.2.0
+ */
+public interface PickPreviewCallback
+        extends PickCallback {
+
+    /**
+     * Triggered on main thread after {@link #onImagePicked(PickSource, int, Uri)} when a preview could be loaded.
+     * With {@code QiPick.handleActivityResultAsync(...)} it's dropped if host Activity or Fragment is gone by then,
+     * with {@code QiPick.handleActivityResult(...)} it's delivered regardless
+     *
+     * @param pPickSource  source from which image {@link Uri} was retrieved
+     * @param pRequestType request type that was (optionally) set when starting pick flow
+     * @param pImageUri    {@link Uri} of the image
+     * @param pPreview     upright preview bitmap, its larger side is not much bigger than preview max size
+     */
+    void onPreviewReady(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri, @NonNull final Bitmap pPreview);
+
+}
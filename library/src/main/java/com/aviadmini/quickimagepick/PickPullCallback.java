@@ -0,0 +1,25 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link PickCallback} that pulls items of a multiple images pick at its own pace instead of receiving
+ * {@link #onMultipleImagesPicked(int, java.util.List)}. Items are read from pick result (and validated with
+ * {@code QiPick.handleActivityResultAsync(...)}) only when requested, so memory footprint doesn't depend on number of picked images
+ *
+ * @author aviadmini
+ * @see PickStreamCallback
+ * @since v2.2.0
+ */
+public interface PickPullCallback
+        extends PickCallback {
+
+    /**
+     * Triggered when multiple images were picked. PickSource is always {@link PickSource#DOCUMENTS}
+     *
+     * @param pRequestType request type that was (optionally) set when starting pick flow
+     * @param pItems       picked items. Can be consumed on any thread, one thread at a time
+     */
+    void onItemsReady(final int pRequestType, @NonNull final PickedItems pItems);
+
+}
@@ -6,21 +6,18 @@ import android.content.ActivityNotFoundException;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
-import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
 import android.os.Parcelable;
-import android.preference.PreferenceManager;
+import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.annotation.StringRes;
 import android.support.v4.app.Fragment;
-import android.support.v4.content.FileProvider;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -28,6 +25,10 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * A reusable object used to trigger pick flow.
@@ -63,9 +64,6 @@ public class PickRequest {
     @Nullable
     private Set<String> mMimeTypesKitKat = null;
 
-    @Nullable
-    private String mLastCameraUriString = null;
-
     PickRequest(@NonNull final Activity pActivity) {
 
         this.mContext = pActivity;
@@ -75,6 +73,8 @@ public class PickRequest {
         this.mAppFragment = null;
         this.mSupportFragment = null;
 
+        this.warmUp();
+
     }
 
     PickRequest(@NonNull final Fragment pFragment) {
@@ -86,6 +86,8 @@ public class PickRequest {
         this.mActivity = null;
         this.mAppFragment = null;
 
+        this.warmUp();
+
     }
 
 
@@ -99,6 +101,18 @@ public class PickRequest {
         this.mActivity = null;
         this.mSupportFragment = null;
 
+        this.warmUp();
+
+    }
+
+    private void warmUp() {
+
+        PickStateStore.get(this.mContext)
+                      .warmUp();
+
+        CameraOutputAllocator.get(this.mContext)
+                             .warmUp(this.mCustomCameraPicsDirPath);
+
     }
 
     // ==== REQUEST CUSTOMIZATION ==== //
@@ -134,6 +148,9 @@ public class PickRequest {
 
         this.mCustomCameraPicsDirPath = pDirPath;
 
+        CameraOutputAllocator.get(this.mContext)
+                             .warmUp(this.mCustomCameraPicsDirPath);
+
         return this;
     }
 
@@ -144,10 +161,7 @@ public class PickRequest {
      * @return same PickRequest object for chained calls
      */
     public PickRequest withCameraPicsDirectory(@Nullable final File pDirFile) {
-
-        this.mCustomCameraPicsDirPath = pDirFile == null ? null : pDirFile.getAbsolutePath();
-
-        return this;
+        return this.withCameraPicsDirectory(pDirFile == null ? null : pDirFile.getAbsolutePath());
     }
 
     /**
@@ -287,25 +301,61 @@ public class PickRequest {
      */
     @PickTriggerResult
     public int fromCamera() {
+        return this.prepareCamera()
+                   .launch();
+    }
 
-        final File outputFile = this.createCameraImageFile();
-        if (outputFile == null) {
-            return PickTriggerResult.TRIGGER_PICK_ERR_CAM_FILE;
+    /**
+     * Prepare take picture from camera pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor executor to prepare pick flow on
+     * @return future of prepared pick flow
+     * @see #fromCamera()
+     */
+    @NonNull
+    public Future<PreparedPick> prepareFromCamera(@NonNull final Executor pExecutor) {
+
+        return this.prepareAsync(pExecutor, new Callable<PreparedPick>() {
+
+            @Override
+            public PreparedPick call() {
+                return PickRequest.this.prepareCamera();
+            }
+
+        });
+
+    }
+
+    @NonNull
+    private PreparedPick prepareCamera() {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_INTENT_BUILD);
+
+        try {
+
+            final long startNanos = System.nanoTime();
+
+            final CameraOutputAllocator.Output output = CameraOutputAllocator.get(this.mContext)
+                                                                             .allocate(this.mCustomCameraPicsDirPath);
+            if (output == null) {
+                return new PreparedPick(PickTriggerResult.TRIGGER_PICK_ERR_CAM_FILE);
+            }
+
+            return this.preparedPick(this.prepareCameraIntent(output.mUri), QiPick.REQ_CAMERA, output.mUri, startNanos);
+        } finally {
+            tracer.endSection();
         }
 
-        return this.triggerPick(this.prepareCameraIntent(this.createCameraImageUri(outputFile)), QiPick.REQ_CAMERA);
     }
 
     @NonNull
     private Intent prepareCameraIntent(@NonNull final Uri pOutputFileUri) {
 
-        this.mLastCameraUriString = pOutputFileUri.toString();
-
         final Intent intent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE).putExtra(MediaStore.EXTRA_OUTPUT, pOutputFileUri);
 
-        final PackageManager packageManager = this.mContext.getPackageManager();
-
-        final List<ResolveInfo> camList = packageManager.queryIntentActivities(intent, 0);
+        final List<ResolveInfo> camList = IntentResolutionCache.get(this.mContext)
+                                                               .query(intent);
         for (final ResolveInfo resolveInfo : camList) {
             // grant r/w permissions
             this.mContext.getApplicationContext()
@@ -323,7 +373,46 @@ public class PickRequest {
      */
     @PickTriggerResult
     public int fromGallery() {
-        return this.triggerPick(this.prepareGalleryIntent(), QiPick.REQ_GALLERY);
+        return this.prepareGallery()
+                   .launch();
+    }
+
+    /**
+     * Prepare gallery pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor executor to prepare pick flow on
+     * @return future of prepared pick flow
+     * @see #fromGallery()
+     */
+    @NonNull
+    public Future<PreparedPick> prepareFromGallery(@NonNull final Executor pExecutor) {
+
+        return this.prepareAsync(pExecutor, new Callable<PreparedPick>() {
+
+            @Override
+            public PreparedPick call() {
+                return PickRequest.this.prepareGallery();
+            }
+
+        });
+
+    }
+
+    @NonNull
+    private PreparedPick prepareGallery() {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_INTENT_BUILD);
+
+        try {
+
+            final long startNanos = System.nanoTime();
+
+            return this.preparedPick(this.prepareGalleryIntent(), QiPick.REQ_GALLERY, null, startNanos);
+        } finally {
+            tracer.endSection();
+        }
+
     }
 
     @SuppressLint("InlinedApi")
@@ -358,7 +447,61 @@ public class PickRequest {
     @PickTriggerResult
     @RequiresApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
     public int fromDocuments(final boolean pAllowMultiple) {
-        return this.triggerPick(this.prepareDocumentsIntent(pAllowMultiple), QiPick.REQ_DOCUMENTS);
+        return this.prepareDocuments(pAllowMultiple)
+                   .launch();
+    }
+
+    /**
+     * Prepare documents pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor executor to prepare pick flow on
+     * @return future of prepared pick flow
+     * @see #fromDocuments()
+     */
+    @SuppressWarnings("NewApi")
+    @NonNull
+    public Future<PreparedPick> prepareFromDocuments(@NonNull final Executor pExecutor) {
+        return this.prepareFromDocuments(pExecutor, false);
+    }
+
+    /**
+     * Prepare documents pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor      executor to prepare pick flow on
+     * @param pAllowMultiple pass true to allow multiple images to be picked
+     * @return future of prepared pick flow
+     * @see #fromDocuments(boolean)
+     */
+    @NonNull
+    @RequiresApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public Future<PreparedPick> prepareFromDocuments(@NonNull final Executor pExecutor, final boolean pAllowMultiple) {
+
+        return this.prepareAsync(pExecutor, new Callable<PreparedPick>() {
+
+            @Override
+            public PreparedPick call() {
+                return PickRequest.this.prepareDocuments(pAllowMultiple);
+            }
+
+        });
+
+    }
+
+    @NonNull
+    private PreparedPick prepareDocuments(final boolean pAllowMultiple) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_INTENT_BUILD);
+
+        try {
+
+            final long startNanos = System.nanoTime();
+
+            return this.preparedPick(this.prepareDocumentsIntent(pAllowMultiple), QiPick.REQ_DOCUMENTS, null, startNanos);
+        } finally {
+            tracer.endSection();
+        }
+
     }
 
     @SuppressLint("InlinedApi")
@@ -396,160 +539,251 @@ public class PickRequest {
      */
     @PickTriggerResult
     public int fromMultipleSources(@NonNull final CharSequence pTitle, @NonNull final PickSource... pPickSources) {
+        return this.prepareMultipleSources(pTitle, pPickSources)
+                   .launch();
+    }
 
-        if (pPickSources.length == 0) {
-            return PickTriggerResult.TRIGGER_PICK_ERR_NO_PICK_SOURCES;
-        }
+    /**
+     * Prepare multi-source pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor    executor to prepare pick flow on
+     * @param pTitleRes    resource id of a intent chooser title
+     * @param pPickSources the pick sources
+     * @return future of prepared pick flow
+     * @see #fromMultipleSources(int, PickSource...)
+     */
+    @NonNull
+    public Future<PreparedPick> prepareFromMultipleSources(@NonNull final Executor pExecutor, @StringRes final int pTitleRes,
+                                                           @NonNull final PickSource... pPickSources) {
+        return this.prepareFromMultipleSources(pExecutor, this.mContext.getString(pTitleRes), pPickSources);
+    }
+
+    /**
+     * Prepare multi-source pick flow on given executor. Use {@link PreparedPick#launch()} to launch it
+     *
+     * @param pExecutor    executor to prepare pick flow on
+     * @param pTitle       intent chooser title
+     * @param pPickSources the pick sources
+     * @return future of prepared pick flow
+     * @see #fromMultipleSources(CharSequence, PickSource...)
+     */
+    @NonNull
+    public Future<PreparedPick> prepareFromMultipleSources(@NonNull final Executor pExecutor, @NonNull final CharSequence pTitle,
+                                                           @NonNull final PickSource... pPickSources) {
 
-        final PackageManager packageManager = this.mContext.getPackageManager();
+        final PickSource[] pickSources = pPickSources.clone();
 
-        final ArrayList<Intent> resultIntents = new ArrayList<>();
+        return this.prepareAsync(pExecutor, new Callable<PreparedPick>() {
 
-        for (final PickSource source : pPickSources) {
+            @Override
+            public PreparedPick call() {
+                return PickRequest.this.prepareMultipleSources(pTitle, pickSources);
+            }
 
-            switch (source) {
+        });
 
-                case CAMERA: {
+    }
 
-                    final List<Intent> cameraIntents = new ArrayList<>();
+    @NonNull
+    private PreparedPick prepareMultipleSources(@NonNull final CharSequence pTitle, @NonNull final PickSource... pPickSources) {
 
-                    final File file = this.createCameraImageFile();
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_INTENT_BUILD);
 
-                    if (file != null) {
+        try {
 
-                        final Uri outputFileUri = this.createCameraImageUri(file);
+            final long startNanos = System.nanoTime();
 
-                        final Intent cameraIntent = this.prepareCameraIntent(outputFileUri);
+            if (pPickSources.length == 0) {
+                return new PreparedPick(PickTriggerResult.TRIGGER_PICK_ERR_NO_PICK_SOURCES);
+            }
 
-                        final List<ResolveInfo> camList = packageManager.queryIntentActivities(cameraIntent, 0);
+            final IntentResolutionCache resolutionCache = IntentResolutionCache.get(this.mContext);
+
+            final ArrayList<Intent> resultIntents = new ArrayList<>();
+
+            Uri cameraUri = null;
+
+            for (final PickSource source : pPickSources) {
+
+                switch (source) {
+
+                    case CAMERA: {
+
+                        final List<Intent> cameraIntents = new ArrayList<>();
+
+                        final CameraOutputAllocator.Output output = CameraOutputAllocator.get(this.mContext)
+                                                                                         .allocate(this.mCustomCameraPicsDirPath);
+
+                        if (output != null) {
+
+                            final Uri outputFileUri = output.mUri;
+
+                            cameraUri = outputFileUri;
+
+                            final Intent cameraIntent = this.prepareCameraIntent(outputFileUri);
+
+                            final List<ResolveInfo> camList = resolutionCache.query(cameraIntent);
+                            for (final ResolveInfo resolveInfo : camList) {
+
+                                final String packageName = resolveInfo.activityInfo.packageName;
+
+                                final Intent intent = new Intent(cameraIntent);
+                                intent.setComponent(new ComponentName(resolveInfo.activityInfo.packageName, resolveInfo.activityInfo.name));
+                                intent.setPackage(packageName);
+                                intent.putExtra(MediaStore.EXTRA_OUTPUT, outputFileUri);
+
+                                cameraIntents.add(intent);
+
+                            }
+
+                        }
+
+                        resultIntents.addAll(cameraIntents);
+
+                        break;
+                    }
+
+                    case GALLERY: {
+
+                        final List<Intent> galleryIntents = new ArrayList<>();
+
+                        final Intent galleryIntent = this.prepareGalleryIntent();
+
+                        final List<ResolveInfo> camList = resolutionCache.query(galleryIntent);
                         for (final ResolveInfo resolveInfo : camList) {
 
                             final String packageName = resolveInfo.activityInfo.packageName;
 
-                            final Intent intent = new Intent(cameraIntent);
+                            final Intent intent = new Intent(galleryIntent);
                             intent.setComponent(new ComponentName(resolveInfo.activityInfo.packageName, resolveInfo.activityInfo.name));
                             intent.setPackage(packageName);
-                            intent.putExtra(MediaStore.EXTRA_OUTPUT, outputFileUri);
 
-                            cameraIntents.add(intent);
+                            galleryIntents.add(intent);
 
                         }
 
+                        resultIntents.addAll(galleryIntents);
+
+                        break;
                     }
 
-                    resultIntents.addAll(cameraIntents);
+                    case DOCUMENTS: {
 
-                    break;
-                }
+                        final Intent docsIntent = this.prepareDocumentsIntent(false);
 
-                case GALLERY: {
+                        if (!resolutionCache.query(docsIntent)
+                                            .isEmpty()) {
+                            resultIntents.add(docsIntent);
+                        }
 
-                    final List<Intent> galleryIntents = new ArrayList<>();
+                        break;
+                    }
 
-                    final Intent galleryIntent = this.prepareGalleryIntent();
+                }
 
-                    final List<ResolveInfo> camList = packageManager.queryIntentActivities(galleryIntent, 0);
-                    for (final ResolveInfo resolveInfo : camList) {
+            }
 
-                        final String packageName = resolveInfo.activityInfo.packageName;
+            // no components are able to perform pick
+            if (resultIntents.size() == 0) {
+                return new PreparedPick(PickTriggerResult.TRIGGER_PICK_ERR_NO_ACTIVITY);
+            }
 
-                        final Intent intent = new Intent(galleryIntent);
-                        intent.setComponent(new ComponentName(resolveInfo.activityInfo.packageName, resolveInfo.activityInfo.name));
-                        intent.setPackage(packageName);
+            // create chooser intent
+            final Intent result = Intent.createChooser(resultIntents.remove(resultIntents.size() - 1), pTitle);
+            result.putExtra(Intent.EXTRA_INITIAL_INTENTS, resultIntents.toArray(new Parcelable[resultIntents.size()]));
 
-                        galleryIntents.add(intent);
+            return this.preparedPick(result, QiPick.REQ_MULTIPLE, cameraUri, startNanos);
+        } finally {
+            tracer.endSection();
+        }
 
-                    }
+    }
 
-                    resultIntents.addAll(galleryIntents);
+    // ==== TRIGGER ==== //
 
-                    break;
-                }
+    @NonNull
+    private Future<PreparedPick> prepareAsync(@NonNull final Executor pExecutor, @NonNull final Callable<PreparedPick> pPreparation) {
 
-                case DOCUMENTS: {
+        final FutureTask<PreparedPick> task = new FutureTask<>(new Callable<PreparedPick>() {
 
-                    resultIntents.add(this.prepareDocumentsIntent(false));
+            @Override
+            public PreparedPick call()
+                    throws Exception {
 
-                    break;
-                }
+                // state store reads its file on first access, do it here rather than on launch
+                PickStateStore.get(PickRequest.this.mContext)
+                              .getLast();
 
+                return pPreparation.call();
             }
 
-        }
+        });
 
-        // no components are able to perform pick
-        if (resultIntents.size() == 0) {
-            return PickTriggerResult.TRIGGER_PICK_ERR_NO_ACTIVITY;
-        }
+        pExecutor.execute(task);
+
+        return task;
+    }
 
-        // create chooser intent
-        final Intent result = Intent.createChooser(resultIntents.remove(resultIntents.size() - 1), pTitle);
-        result.putExtra(Intent.EXTRA_INITIAL_INTENTS, resultIntents.toArray(new Parcelable[resultIntents.size()]));
+    /**
+     * @param pCameraUri camera output Uri allocated for this pick or null if it doesn't include camera source
+     */
+    @NonNull
+    private PreparedPick preparedPick(@NonNull final Intent pIntent, final int pRequestKind, @Nullable final Uri pCameraUri, final long pStartNanos) {
 
-        return this.triggerPick(result, QiPick.REQ_MULTIPLE);
+        final PreparedPick preparedPick = new PreparedPick(this, pIntent, pRequestKind,
+                new PickState(this.mRequestType, this.mAllowOnlyLocalContent, this.mMimeType, this.mMimeTypesKitKat, this.mCustomCameraPicsDirPath,
+                        pCameraUri == null ? null : pCameraUri.toString()));
+
+        QiPick.recordMetric(PickMetrics.STAGE_PREPARE, QiPick.sourceOf(pRequestKind), System.nanoTime() - pStartNanos, 0);
+
+        return preparedPick;
     }
 
     @SuppressLint("NewApi")
     @PickTriggerResult
-    private int triggerPick(@NonNull final Intent pIntent, final int pRequestCode) {
+    int triggerPick(@NonNull final Intent pIntent, final int pRequestKind, @NonNull final PickState pState) {
 
-        final SharedPreferences.Editor editor = PreferenceManager.getDefaultSharedPreferences(this.mContext)
-                                                                 .edit();
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_LAUNCH);
 
-        editor.putInt(QiPick.PREFS_REQUEST_TYPE, this.mRequestType)
-              .putBoolean(QiPick.PREFS_ALLOW_LOCAL_CONTENT_ONLY, this.mAllowOnlyLocalContent)
-              .putString(QiPick.PREFS_ALLOWED_MIME_TYPE, this.mMimeType)
-              .putString(QiPick.PREFS_CAMERA_DIR, this.mCustomCameraPicsDirPath)
-              .putString(QiPick.PREFS_LAST_CAMERA_URI, this.mLastCameraUriString);
+        try {
 
-        if (QiPick.API_19) {
-            editor.putStringSet(QiPick.PREFS_ALLOWED_MIME_TYPES_KITKAT, this.mMimeTypesKitKat);
-        }
+            final long startNanos = System.nanoTime();
 
-        editor.apply();
+            final PickStateStore stateStore = PickStateStore.get(this.mContext);
 
-        try {
+            final int sessionId = stateStore.add(pState.launchedAt(SystemClock.elapsedRealtime(), System.currentTimeMillis()));
 
-            if (this.mActivity != null) {
-                this.mActivity.startActivityForResult(pIntent, pRequestCode);
-            } else if (this.mAppFragment != null) {
-                this.mAppFragment.startActivityForResult(pIntent, pRequestCode);
-            } else if (this.mSupportFragment != null) {
-                this.mSupportFragment.startActivityForResult(pIntent, pRequestCode);
-            }
+            final int requestCode = QiPick.requestCode(pRequestKind, sessionId);
 
-        } catch (final ActivityNotFoundException e) {
-            return PickTriggerResult.TRIGGER_PICK_ERR_NO_ACTIVITY;
-        }
+            try {
 
-        return PickTriggerResult.TRIGGER_PICK_OK;
-    }
+                if (this.mActivity != null) {
+                    this.mActivity.startActivityForResult(pIntent, requestCode);
+                } else if (this.mAppFragment != null) {
+                    this.mAppFragment.startActivityForResult(pIntent, requestCode);
+                } else if (this.mSupportFragment != null) {
+                    this.mSupportFragment.startActivityForResult(pIntent, requestCode);
+                }
 
-    // ==== //
+            } catch (final ActivityNotFoundException e) {
 
-    @Nullable
-    private File createCameraImageFile() {
+                stateStore.remove(sessionId);
 
-        final File dir = this.getCameraPicsDirectory();
-        if (dir == null) {
-            return null;
-        }
+                return PickTriggerResult.TRIGGER_PICK_ERR_NO_ACTIVITY;
+            }
 
-        // Workaround for #7 https://github.com/aviadmini/quickimagepick/issues/7
-        if (!dir.exists() && !dir.mkdirs()) {
-            return null;
-        }
+            QiPick.recordMetric(PickMetrics.STAGE_LAUNCH, QiPick.sourceOf(pRequestKind), System.nanoTime() - startNanos, 0);
 
-        // Assuming JPG output seems to be a correct way
-        final String fileName = System.nanoTime() + ".jpg";
+            return PickTriggerResult.TRIGGER_PICK_OK;
+        } finally {
+            tracer.endSection();
+        }
 
-        return new File(dir, fileName);
     }
 
-    @NonNull
-    private Uri createCameraImageUri(@NonNull final File pFile) {
-        return FileProvider.getUriForFile(this.mContext, this.mContext.getPackageName() + ".qip_file_provider", pFile);
-    }
+    // ==== //
 
     @SuppressLint("InlinedApi")
     private void setIntentAllowedMimeTypes(@NonNull final Intent pIntent) {
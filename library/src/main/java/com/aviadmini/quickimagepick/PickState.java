@@ -0,0 +1,198 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable state of a triggered pick request that is needed to handle its result, possibly in a new process
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class PickState {
+
+    // clock adjustments shift boot moment in wall time by much less than a reboot does
+    private static final long REBOOT_MIN_SHIFT_MILLIS = 60 * 1000L;
+
+    final int mRequestType;
+
+    final boolean mAllowOnlyLocalContent;
+
+    @NonNull
+    final String mAllowedMimeType;
+
+    @Nullable
+    final Set<String> mAllowedMimeTypesKitKat;
+
+    @Nullable
+    final String mCameraDirPath;
+
+    @Nullable
+    final String mLastCameraUri;
+
+    // SystemClock.elapsedRealtime() of pick launch or 0 if not launched yet
+    final long mLaunchTimeMillis;
+
+    // System.currentTimeMillis() of pick launch or 0 if not launched yet. Unlike elapsed realtime it survives reboots, used for session expiry
+    final long mLaunchWallTimeMillis;
+
+    PickState(final int pRequestType, final boolean pAllowOnlyLocalContent, @NonNull final String pAllowedMimeType,
+              @Nullable final Set<String> pAllowedMimeTypesKitKat, @Nullable final String pCameraDirPath, @Nullable final String pLastCameraUri) {
+        this(pRequestType, pAllowOnlyLocalContent, pAllowedMimeType, pAllowedMimeTypesKitKat, pCameraDirPath, pLastCameraUri, 0, 0);
+    }
+
+    private PickState(final int pRequestType, final boolean pAllowOnlyLocalContent, @NonNull final String pAllowedMimeType,
+                      @Nullable final Set<String> pAllowedMimeTypesKitKat, @Nullable final String pCameraDirPath, @Nullable final String pLastCameraUri,
+                      final long pLaunchTimeMillis, final long pLaunchWallTimeMillis) {
+
+        this.mRequestType = pRequestType;
+
+        this.mAllowOnlyLocalContent = pAllowOnlyLocalContent;
+
+        this.mAllowedMimeType = pAllowedMimeType;
+        this.mAllowedMimeTypesKitKat = pAllowedMimeTypesKitKat == null ? null : Collections.unmodifiableSet(new HashSet<>(pAllowedMimeTypesKitKat));
+
+        this.mCameraDirPath = pCameraDirPath;
+
+        this.mLastCameraUri = pLastCameraUri;
+
+        this.mLaunchTimeMillis = pLaunchTimeMillis;
+        this.mLaunchWallTimeMillis = pLaunchWallTimeMillis;
+
+    }
+
+    /**
+     * @param pLaunchTimeMillis     {@link android.os.SystemClock#elapsedRealtime()} of pick launch
+     * @param pLaunchWallTimeMillis {@link System#currentTimeMillis()} of pick launch
+     * @return copy of this state with given launch time
+     */
+    @NonNull
+    PickState launchedAt(final long pLaunchTimeMillis, final long pLaunchWallTimeMillis) {
+        return new PickState(this.mRequestType, this.mAllowOnlyLocalContent, this.mAllowedMimeType, this.mAllowedMimeTypesKitKat, this.mCameraDirPath,
+                this.mLastCameraUri, pLaunchTimeMillis, pLaunchWallTimeMillis);
+    }
+
+    /**
+     * @param pNowWallTimeMillis {@link System#currentTimeMillis()}
+     * @param pMaxAgeMillis      max session age
+     * @return true if this pick was launched more than given time ago. States that were not launched never expire
+     */
+    boolean isExpired(final long pNowWallTimeMillis, final long pMaxAgeMillis) {
+        return this.mLaunchWallTimeMillis > 0 && pNowWallTimeMillis - this.mLaunchWallTimeMillis > pMaxAgeMillis;
+    }
+
+    /**
+     * @param pNowMillis         {@link android.os.SystemClock#elapsedRealtime()}
+     * @param pNowWallTimeMillis {@link System#currentTimeMillis()}
+     * @return time since pick launch or -1 if it is unknown. Elapsed realtime starts over on reboot,
+     * so wall clock time is used if device was rebooted since launch, as long as it's within session max age
+     */
+    long getLaunchAgeMillis(final long pNowMillis, final long pNowWallTimeMillis) {
+
+        if (this.mLaunchTimeMillis <= 0) {
+            return -1;
+        }
+
+        final long elapsed = pNowMillis - this.mLaunchTimeMillis;
+
+        if (this.mLaunchWallTimeMillis <= 0) {
+            return elapsed > 0 ? elapsed : -1;
+        }
+
+        // reboot moves boot moment forward in wall time
+        final long bootShift = pNowWallTimeMillis - pNowMillis - (this.mLaunchWallTimeMillis - this.mLaunchTimeMillis);
+
+        if (elapsed > 0 && bootShift < REBOOT_MIN_SHIFT_MILLIS) {
+            return elapsed;
+        }
+
+        final long wall = pNowWallTimeMillis - this.mLaunchWallTimeMillis;
+
+        return wall > 0 && wall <= PickStateStore.SESSION_MAX_AGE_MILLIS ? wall : -1;
+    }
+
+    // ==== SERIALIZATION ==== //
+
+    void writeTo(@NonNull final DataOutputStream pOut)
+            throws IOException {
+
+        pOut.writeInt(this.mRequestType);
+        pOut.writeBoolean(this.mAllowOnlyLocalContent);
+        pOut.writeUTF(this.mAllowedMimeType);
+
+        if (this.mAllowedMimeTypesKitKat == null) {
+            pOut.writeInt(-1);
+        } else {
+
+            pOut.writeInt(this.mAllowedMimeTypesKitKat.size());
+
+            for (final String mimeType : this.mAllowedMimeTypesKitKat) {
+                pOut.writeUTF(mimeType);
+            }
+
+        }
+
+        writeNullableString(pOut, this.mCameraDirPath);
+        writeNullableString(pOut, this.mLastCameraUri);
+
+        pOut.writeLong(this.mLaunchTimeMillis);
+        pOut.writeLong(this.mLaunchWallTimeMillis);
+
+    }
+
+    @NonNull
+    static PickState readFrom(@NonNull final DataInputStream pIn)
+            throws IOException {
+
+        final int requestType = pIn.readInt();
+        final boolean allowOnlyLocalContent = pIn.readBoolean();
+        final String allowedMimeType = pIn.readUTF();
+
+        Set<String> allowedMimeTypesKitKat = null;
+
+        final int mimeTypeCount = pIn.readInt();
+        if (mimeTypeCount >= 0) {
+
+            allowedMimeTypesKitKat = new HashSet<>();
+
+            for (int i = 0; i < mimeTypeCount; i++) {
+                allowedMimeTypesKitKat.add(pIn.readUTF());
+            }
+
+        }
+
+        final String cameraDirPath = readNullableString(pIn);
+        final String lastCameraUri = readNullableString(pIn);
+
+        final long launchTimeMillis = pIn.readLong();
+        final long launchWallTimeMillis = pIn.readLong();
+
+        return new PickState(requestType, allowOnlyLocalContent, allowedMimeType, allowedMimeTypesKitKat, cameraDirPath, lastCameraUri,
+                launchTimeMillis, launchWallTimeMillis);
+    }
+
+    private static void writeNullableString(@NonNull final DataOutputStream pOut, @Nullable final String pValue)
+            throws IOException {
+
+        pOut.writeBoolean(pValue != null);
+
+        if (pValue != null) {
+            pOut.writeUTF(pValue);
+        }
+
+    }
+
+    @Nullable
+    private static String readNullableString(@NonNull final DataInputStream pIn)
+            throws IOException {
+        return pIn.readBoolean() ? pIn.readUTF() : null;
+    }
+
+}
@@ -0,0 +1,510 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps {@link PickState} of in-flight pick sessions in memory and persists it to a small private file, so that pick results can be handled
+ * after process death. Every triggered pick gets its own session id that is encoded into request code, so concurrent picks do not overwrite
+ * each other's state. File is read once per process and written atomically (temp file + rename) on a background thread.
+ * Sessions which result never arrived (e.g. picker app crashed or user left it open) expire after {@link #SESSION_MAX_AGE_MILLIS}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class PickStateStore {
+
+    private static final String TAG = "QiPick";
+
+    private static final String FILE_NAME = "qip_pick_state";
+
+    // v4 added wall clock launch time
+    private static final int FORMAT_VERSION = 4;
+
+    /**
+     * Age after which in-flight session is considered abandoned and dropped
+     */
+    static final long SESSION_MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Id of session migrated from default shared preferences of versions before v2.2.0, which had a single session without id
+     */
+    static final int LEGACY_SESSION_ID = -1;
+
+    // default shared preferences keys of versions before v2.2.0
+    private static final String LEGACY_PREFS_REQUEST_TYPE              = "qip_req_type";
+    private static final String LEGACY_PREFS_LAST_CAMERA_URI           = "qip_last_cam_uri";
+    private static final String LEGACY_PREFS_CAMERA_DIR                = "qip_cam_dir";
+    private static final String LEGACY_PREFS_ALLOWED_MIME_TYPE         = "qip_allowed_mime_type";
+    private static final String LEGACY_PREFS_ALLOWED_MIME_TYPES_KITKAT = "qip_allowed_mime_types_kitkat";
+    private static final String LEGACY_PREFS_ALLOW_LOCAL_CONTENT_ONLY  = "qip_local_content_only";
+
+    private static final Object LOCK = new Object();
+
+    @Nullable
+    private static PickStateStore sInstance = null;
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final Executor mWriteExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(@NonNull final Runnable pRunnable) {
+
+            final Thread thread = new Thread(pRunnable, "qip-state-writer");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+
+    });
+
+    private boolean mLoaded = false;
+
+    // in-flight sessions by session id
+    @NonNull
+    private final SparseArray<PickState> mSessions = new SparseArray<>();
+
+    // state of last triggered session, kept after the session is consumed
+    @Nullable
+    private PickState mLastState = null;
+
+    private int mNextSessionId = 0;
+
+    // incremented on every change, writer skips snapshots that are already outdated
+    private long mVersion = 0;
+
+    private PickStateStore(@NonNull final Context pContext) {
+        this.mContext = pContext;
+    }
+
+    @NonNull
+    static PickStateStore get(@NonNull final Context pContext) {
+
+        synchronized (LOCK) {
+
+            if (sInstance == null) {
+                sInstance = new PickStateStore(pContext.getApplicationContext());
+            }
+
+            return sInstance;
+        }
+
+    }
+
+    /**
+     * Drops the instance so that next {@link #get(Context)} reads state file again, as in a new process
+     */
+    @VisibleForTesting
+    static void resetInstance() {
+
+        synchronized (LOCK) {
+            sInstance = null;
+        }
+
+    }
+
+    // ==== ACCESS ==== //
+
+    /**
+     * Stores state of a new pick session. If all {@link QiPick#MAX_SESSIONS} session ids are in flight the oldest one is replaced
+     *
+     * @param pState state of triggered pick request
+     * @return id of the new session
+     */
+    synchronized int add(@NonNull final PickState pState) {
+
+        this.ensureLoaded();
+
+        this.expireSessions();
+
+        int sessionId = this.mNextSessionId;
+        for (int i = 0; i < QiPick.MAX_SESSIONS; i++) {
+
+            final int candidate = (this.mNextSessionId + i) % QiPick.MAX_SESSIONS;
+            if (this.mSessions.get(candidate) == null) {
+
+                sessionId = candidate;
+
+                break;
+            }
+
+        }
+
+        this.mNextSessionId = (sessionId + 1) % QiPick.MAX_SESSIONS;
+
+        this.mSessions.put(sessionId, pState);
+        this.mLastState = pState;
+
+        this.schedulePersist();
+
+        return sessionId;
+    }
+
+    /**
+     * @param pSessionId session id
+     * @return state of given in-flight session or null if there's none
+     */
+    @Nullable
+    synchronized PickState get(final int pSessionId) {
+
+        this.ensureLoaded();
+
+        return this.mSessions.get(pSessionId);
+    }
+
+    /**
+     * Removes state of a consumed or failed session
+     *
+     * @param pSessionId session id
+     */
+    synchronized void remove(final int pSessionId) {
+
+        this.ensureLoaded();
+
+        if (this.mSessions.get(pSessionId) != null) {
+
+            this.mSessions.remove(pSessionId);
+
+            this.schedulePersist();
+
+        }
+
+    }
+
+    /**
+     * @return state of last triggered pick request or null if there's none
+     */
+    @Nullable
+    synchronized PickState getLast() {
+
+        this.ensureLoaded();
+
+        return this.mLastState;
+    }
+
+    /**
+     * @return camera output Uris of in-flight sessions
+     */
+    @NonNull
+    synchronized Set<String> getInFlightCameraUris() {
+
+        this.ensureLoaded();
+
+        final Set<String> uris = new HashSet<>();
+
+        for (int i = 0; i < this.mSessions.size(); i++) {
+
+            final String uri = this.mSessions.valueAt(i).mLastCameraUri;
+            if (uri != null) {
+                uris.add(uri);
+            }
+
+        }
+
+        return uris;
+    }
+
+    /**
+     * @return true if state file was read, so access doesn't touch disk
+     */
+    synchronized boolean isLoaded() {
+        return this.mLoaded;
+    }
+
+    /**
+     * Schedules state file to be read on background thread, so that first access doesn't read it on calling thread
+     */
+    void warmUp() {
+
+        this.mWriteExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                synchronized (PickStateStore.this) {
+                    PickStateStore.this.ensureLoaded();
+                }
+
+            }
+
+        });
+
+    }
+
+    private void ensureLoaded() {
+
+        if (!this.mLoaded) {
+
+            this.load();
+
+            this.mLoaded = true;
+
+            final boolean migrated = this.migrateLegacyPrefs();
+
+            if (this.expireSessions() || migrated) {
+                this.schedulePersist();
+            }
+
+        }
+
+    }
+
+    /**
+     * Drops sessions that were launched more than {@link #SESSION_MAX_AGE_MILLIS} ago
+     *
+     * @return true if any session was dropped
+     */
+    private boolean expireSessions() {
+
+        final long now = System.currentTimeMillis();
+
+        boolean expired = false;
+
+        for (int i = this.mSessions.size() - 1; i >= 0; i--) {
+
+            if (this.mSessions.valueAt(i)
+                              .isExpired(now, SESSION_MAX_AGE_MILLIS)) {
+
+                this.mSessions.removeAt(i);
+
+                expired = true;
+
+            }
+
+        }
+
+        return expired;
+    }
+
+    private void schedulePersist() {
+
+        final long version = ++this.mVersion;
+
+        this.mWriteExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                PickStateStore.this.persist(version);
+            }
+
+        });
+
+    }
+
+    // ==== FILE ==== //
+
+    /**
+     * Resolved on every read or write rather than in constructor: {@link Context#getFilesDir()} checks that directory exists,
+     * and store can be created on main thread
+     */
+    @NonNull
+    private File getFile() {
+        return new File(this.mContext.getFilesDir(), FILE_NAME);
+    }
+
+    private void load() {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_STATE_PERSISTENCE);
+
+        try {
+
+            DataInputStream in = null;
+            try {
+
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.getFile())));
+
+                if (in.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+
+                this.mNextSessionId = in.readInt();
+
+                if (in.readBoolean()) {
+                    this.mLastState = PickState.readFrom(in);
+                }
+
+                final int sessionCount = in.readInt();
+                for (int i = 0; i < sessionCount; i++) {
+
+                    final int sessionId = in.readInt();
+
+                    this.mSessions.put(sessionId, PickState.readFrom(in));
+
+                }
+
+            } catch (final FileNotFoundException ignored) {
+            } catch (final IOException e) {
+
+                Log.w(TAG, "Could not read pick state", e);
+
+                this.mSessions.clear();
+
+            } finally {
+
+                if (in != null) {
+
+                    try {
+                        in.close();
+                    } catch (final IOException ignored) {}
+
+                }
+
+            }
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    /**
+     * Moves pick state left in default shared preferences by versions before v2.2.0 to {@link #LEGACY_SESSION_ID} session,
+     * so that result of a pick launched before app update is still handled. Legacy keys are removed, so it's done once.
+     * Launch time of legacy pick is unknown, migration time is used for expiry
+     *
+     * @return true if state was migrated
+     */
+    private boolean migrateLegacyPrefs() {
+
+        final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this.mContext);
+        if (!prefs.contains(LEGACY_PREFS_REQUEST_TYPE)) {
+            return false;
+        }
+
+        try {
+
+            final String allowedMimeType = prefs.getString(LEGACY_PREFS_ALLOWED_MIME_TYPE, null);
+
+            final PickState state = new PickState(prefs.getInt(LEGACY_PREFS_REQUEST_TYPE, 0), prefs.getBoolean(LEGACY_PREFS_ALLOW_LOCAL_CONTENT_ONLY, false),
+                    allowedMimeType == null ? QiPick.MIME_TYPE_IMAGES_ALL : allowedMimeType,
+                    QiPick.API_19 ? prefs.getStringSet(LEGACY_PREFS_ALLOWED_MIME_TYPES_KITKAT, null) : null,
+                    prefs.getString(LEGACY_PREFS_CAMERA_DIR, null), prefs.getString(LEGACY_PREFS_LAST_CAMERA_URI, null)).launchedAt(0,
+                    System.currentTimeMillis());
+
+            this.mSessions.put(LEGACY_SESSION_ID, state);
+
+            if (this.mLastState == null) {
+                this.mLastState = state;
+            }
+
+        } catch (final ClassCastException e) {
+            Log.w(TAG, "Could not migrate legacy pick state", e);
+        }
+
+        prefs.edit()
+             .remove(LEGACY_PREFS_REQUEST_TYPE)
+             .remove(LEGACY_PREFS_LAST_CAMERA_URI)
+             .remove(LEGACY_PREFS_CAMERA_DIR)
+             .remove(LEGACY_PREFS_ALLOWED_MIME_TYPE)
+             .remove(LEGACY_PREFS_ALLOWED_MIME_TYPES_KITKAT)
+             .remove(LEGACY_PREFS_ALLOW_LOCAL_CONTENT_ONLY)
+             .apply();
+
+        return true;
+    }
+
+    private void persist(final long pVersion) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_STATE_PERSISTENCE);
+
+        try {
+
+            final int nextSessionId;
+            final PickState lastState;
+            final SparseArray<PickState> sessions;
+            synchronized (this) {
+
+                // a newer write is queued and will persist newer state
+                if (pVersion != this.mVersion) {
+                    return;
+                }
+
+                nextSessionId = this.mNextSessionId;
+                lastState = this.mLastState;
+                sessions = this.mSessions.clone();
+
+            }
+
+            final File file = this.getFile();
+            final File tempFile = new File(file.getPath() + ".tmp");
+
+            DataOutputStream out = null;
+            try {
+
+                final FileOutputStream fos = new FileOutputStream(tempFile);
+                out = new DataOutputStream(new BufferedOutputStream(fos));
+
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(nextSessionId);
+
+                out.writeBoolean(lastState != null);
+                if (lastState != null) {
+                    lastState.writeTo(out);
+                }
+
+                out.writeInt(sessions.size());
+                for (int i = 0; i < sessions.size(); i++) {
+
+                    out.writeInt(sessions.keyAt(i));
+
+                    sessions.valueAt(i)
+                            .writeTo(out);
+
+                }
+
+                out.flush();
+                fos.getFD()
+                   .sync();
+
+                out.close();
+                out = null;
+
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("Could not rename " + tempFile + " to " + file);
+                }
+
+            } catch (final IOException e) {
+                Log.w(TAG, "Could not persist pick state", e);
+            } finally {
+
+                if (out != null) {
+
+                    try {
+                        out.close();
+                    } catch (final IOException ignored) {}
+
+                }
+
+            }
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.aviadmini.quickimagepick;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+/**
+ * {@link PickCallback} that receives items of a multiple images pick one by one instead of {@link #onMultipleImagesPicked(int, java.util.List)},
+ * so that per-item work can start before the whole result is processed. With {@code QiPick.handleActivityResultAsync(...)} every item is
+ * delivered as soon as it's validated
+ *
+ * @author aviadmini
+ * @see PickPullCallback
+ * @since v2.2.0
+ */
+public interface PickStreamCallback
+        extends PickCallback {
+
+    /**
+     * Triggered for every picked image in order of the result. PickSource is always {@link PickSource#DOCUMENTS}
+     *
+     * @param pRequestType request type that was (optionally) set when starting pick flow
+     * @param pIndex       index of the item in pick result. Items that are skipped leave gaps
+     * @param pImageUri    {@link Uri} of the image
+     */
+    void onItemPicked(final int pRequestType, final int pIndex, @NonNull final Uri pImageUri);
+
+    /**
+     * Triggered after the last {@link #onItemPicked(int, int, Uri)} when at least one item was delivered.
+     * If no items could be delivered, {@link #onError(PickSource, int, String)} is triggered instead
+     *
+     * @param pRequestType   request type that was (optionally) set when starting pick flow
+     * @param pDeliveredCount number of delivered items
+     */
+    void onItemsComplete(final int pRequestType, final int pDeliveredCount);
+
+}
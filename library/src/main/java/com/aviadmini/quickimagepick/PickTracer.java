@@ -0,0 +1,47 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Tracing hooks called at begin and end of pick flow and I/O stages. Install with {@link QiPick#setPickTracer(PickTracer)}
+ * <br><br>
+ * Sections are nested and always ended on the thread that began them, same as {@link android.os.Trace} sections.
+ * {@link SystemPickTracer} shows them in systrace and Perfetto captures
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public interface PickTracer {
+
+    String SECTION_INTENT_BUILD      = "QiPick:intentBuild";
+    String SECTION_INTENT_RESOLUTION = "QiPick:intentResolution";
+    String SECTION_STATE_PERSISTENCE = "QiPick:statePersistence";
+    String SECTION_LAUNCH            = "QiPick:launch";
+    String SECTION_RESULT_DISPATCH   = "QiPick:resultDispatch";
+    String SECTION_COPY              = "QiPick:copy";
+    String SECTION_METADATA_QUERY    = "QiPick:metadataQuery";
+
+    /**
+     * Tracer that does nothing. Used by default
+     */
+    PickTracer NO_OP = new PickTracer() {
+
+        @Override
+        public void beginSection(@NonNull final String pSectionName) {}
+
+        @Override
+        public void endSection() {}
+
+    };
+
+    /**
+     * @param pSectionName one of {@code SECTION_} constants
+     */
+    void beginSection(@NonNull final String pSectionName);
+
+    /**
+     * Ends the most recently begun section on current thread
+     */
+    void endSection();
+
+}
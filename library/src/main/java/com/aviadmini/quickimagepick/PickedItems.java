@@ -0,0 +1,119 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.TargetApi;
+import android.content.ClipData;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over images of a multiple images pick result. Items without Uri are skipped, and with
+ * {@code QiPick.handleActivityResultAsync(...)} so are items whose content doesn't exist. Validation happens in {@link #hasNext()},
+ * so in that case consume items off main thread
+ *
+ * @author aviadmini
+ * @see PickPullCallback
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+public final class PickedItems
+        implements Iterator<Uri> {
+
+    @NonNull
+    private final Context mContext;
+
+    @NonNull
+    private final ClipData mClipData;
+
+    private final boolean mValidate;
+
+    // index of next item to check
+    private int mNextIndex = 0;
+
+    // index of the item returned by last next() call
+    private int mIndex = -1;
+
+    @Nullable
+    private Uri mNext = null;
+
+    PickedItems(@NonNull final Context pContext, @NonNull final ClipData pClipData, final boolean pValidate) {
+
+        this.mContext = pContext.getApplicationContext();
+
+        this.mClipData = pClipData;
+
+        this.mValidate = pValidate;
+
+    }
+
+    /**
+     * @return new iterator over the same result from the start that skips items whose content doesn't exist
+     */
+    @NonNull
+    PickedItems validated() {
+        return new PickedItems(this.mContext, this.mClipData, true);
+    }
+
+    /**
+     * @return number of items in pick result, including items that will be skipped
+     */
+    public int getItemCount() {
+        return this.mClipData.getItemCount();
+    }
+
+    /**
+     * @return index in pick result of the item returned by last {@link #next()} call or -1 if it was not called yet
+     */
+    public int getIndex() {
+        return this.mIndex;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        while (this.mNext == null && this.mNextIndex < this.mClipData.getItemCount()) {
+
+            final Uri uri = this.mClipData.getItemAt(this.mNextIndex)
+                                          .getUri();
+
+            this.mNextIndex++;
+
+            if (uri != null && (!this.mValidate || UriInfo.resolve(this.mContext, uri)
+                                                          .exists())) {
+                this.mNext = uri;
+            }
+
+        }
+
+        return this.mNext != null;
+    }
+
+    @NonNull
+    @Override
+    public Uri next() {
+
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Uri uri = this.mNext;
+
+        this.mNext = null;
+        this.mIndex = this.mNextIndex - 1;
+
+        //noinspection ConstantConditions
+        return uri;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Picked items cannot be removed");
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Intent;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Pick flow prepared ahead of time with one of {@code PickRequest.prepareFrom*(...)} methods.
+ * Intents are built, resolved and camera output is allocated, so {@link #launch()} only starts the pick Activity
+ * <br><br>
+ * Note: every launch of the same prepared pick uses the same camera output file
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PreparedPick {
+
+    @Nullable
+    private final PickRequest mRequest;
+
+    @Nullable
+    private final Intent mIntent;
+
+    private final int mRequestKind;
+
+    @Nullable
+    private final PickState mState;
+
+    @PickTriggerResult
+    private final int mPrepareResult;
+
+    PreparedPick(@NonNull final PickRequest pRequest, @NonNull final Intent pIntent, final int pRequestKind, @NonNull final PickState pState) {
+
+        this.mRequest = pRequest;
+
+        this.mIntent = pIntent;
+        this.mRequestKind = pRequestKind;
+
+        this.mState = pState;
+
+        this.mPrepareResult = PickTriggerResult.TRIGGER_PICK_OK;
+
+    }
+
+    PreparedPick(@PickTriggerResult final int pPrepareResult) {
+
+        this.mRequest = null;
+
+        this.mIntent = null;
+        this.mRequestKind = 0;
+
+        this.mState = null;
+
+        this.mPrepareResult = pPrepareResult;
+
+    }
+
+    /**
+     * @return {@link PickTriggerResult#TRIGGER_PICK_OK} if pick flow was prepared successfully, otherwise error that {@link #launch()} will return
+     */
+    @PickTriggerResult
+    public int getPrepareResult() {
+        return this.mPrepareResult;
+    }
+
+    /**
+     * Launch prepared pick flow. Must be called on main thread
+     *
+     * @return launch status code. One of {@link PickTriggerResult} constants
+     */
+    @PickTriggerResult
+    public int launch() {
+
+        if (this.mRequest == null || this.mIntent == null || this.mState == null) {
+            return this.mPrepareResult;
+        }
+
+        return this.mRequest.triggerPick(this.mIntent, this.mRequestKind, this.mState);
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.ContentUris;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.provider.MediaStore;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Loads small previews of picked images as cheaply as possible
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class PreviewLoader {
+
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    private PreviewLoader() {}
+
+    /**
+     * @param pContext app {@link Context}
+     * @param pUri     image uri
+     * @param pMaxSize desired max size of preview larger side
+     * @return upright preview or null if image could not be loaded
+     */
+    @Nullable
+    static Bitmap load(@NonNull final Context pContext, @NonNull final Uri pUri, final int pMaxSize) {
+
+        // EXIF thumbnail costs a few KB of I/O
+        final ExifData exif = UriUtils.readExif(pContext, pUri, true);
+        final byte[] thumbnailData = exif == null ? null : exif.getThumbnail();
+        if (thumbnailData != null) {
+
+            final Bitmap thumbnail = BitmapFactory.decodeByteArray(thumbnailData, 0, thumbnailData.length, null);
+            if (thumbnail != null) {
+                return orient(thumbnail, exif);
+            }
+
+        }
+
+        // MediaStore keeps its own thumbnails for gallery images
+        final Bitmap mediaStoreThumbnail = loadMediaStoreThumbnail(pContext, pUri);
+        if (mediaStoreThumbnail != null) {
+            return orient(mediaStoreThumbnail, exif);
+        }
+
+        final Bitmap decoded = decodeSubsampled(pContext, pUri, pMaxSize);
+
+        return decoded == null ? null : orient(decoded, exif);
+    }
+
+    @SuppressWarnings("deprecation")
+    @Nullable
+    private static Bitmap loadMediaStoreThumbnail(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        if (UriInfo.mediaStoreTableOf(pUri) == null || !pUri.getPathSegments()
+                                                            .contains("images")) {
+            return null;
+        }
+
+        try {
+            return MediaStore.Images.Thumbnails.getThumbnail(pContext.getContentResolver(), ContentUris.parseId(pUri),
+                    MediaStore.Images.Thumbnails.MINI_KIND, null);
+        } catch (final RuntimeException e) {
+            return null;
+        }
+
+    }
+
+    @Nullable
+    private static Bitmap decodeSubsampled(@NonNull final Context pContext, @NonNull final Uri pUri, final int pMaxSize) {
+
+        final ImageHeader header = BitmapDecoder.probe(pContext, pUri);
+        if (header == null) {
+            return null;
+        }
+
+        // larger side ends up between max size and twice that
+        int sampleSize = 1;
+        while (Math.max(header.getWidth(), header.getHeight()) / (sampleSize * 2) >= pMaxSize) {
+            sampleSize *= 2;
+        }
+
+        return BitmapDecoder.decode(pContext, pUri, header, BitmapDecoder.configFor(header), sampleSize);
+    }
+
+    /**
+     * @return bitmap rotated and mirrored according to EXIF orientation. Source bitmap is recycled if a new one was created
+     */
+    @NonNull
+    static Bitmap orient(@NonNull final Bitmap pBitmap, @Nullable final ExifData pExif) {
+
+        if (pExif == null || pExif.getOrientation() == ExifData.ORIENTATION_NORMAL) {
+            return pBitmap;
+        }
+
+        final Matrix matrix = new Matrix();
+        matrix.postRotate(pExif.getRotationDegrees());
+        if (pExif.isFlipped()) {
+            matrix.postScale(-1, 1);
+        }
+
+        try {
+
+            final Bitmap oriented = Bitmap.createBitmap(pBitmap, 0, 0, pBitmap.getWidth(), pBitmap.getHeight(), matrix, true);
+            if (oriented != pBitmap) {
+                pBitmap.recycle();
+            }
+
+            return oriented;
+        } catch (final OutOfMemoryError e) {
+            return pBitmap;
+        }
+
+    }
+
+}
@@ -5,10 +5,12 @@ import android.app.Activity;
 import android.content.ClipData;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Environment;
-import android.preference.PreferenceManager;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
@@ -16,7 +18,11 @@ import android.support.v4.app.Fragment;
 import android.text.TextUtils;
 
 import java.io.File;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * QuickImagePick entry point in v2.x
@@ -30,22 +36,26 @@ import java.util.ArrayList;
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class QiPick {
 
-    static final String PREFS_REQUEST_TYPE              = "qip_req_type";
-    static final String PREFS_LAST_CAMERA_URI           = "qip_last_cam_uri";
-    static final String PREFS_CAMERA_DIR                = "qip_cam_dir";
-    static final String PREFS_ALLOWED_MIME_TYPE         = "qip_allowed_mime_type";
-    static final String PREFS_ALLOWED_MIME_TYPES_KITKAT = "qip_allowed_mime_types_kitkat";
-    static final String PREFS_ALLOW_LOCAL_CONTENT_ONLY  = "qip_local_content_only";
+    // request kinds, stored in 2 lowest bits of request code
+    static final int REQ_CAMERA    = 0;
+    static final int REQ_GALLERY   = 1;
+    static final int REQ_DOCUMENTS = 2;
+    static final int REQ_MULTIPLE  = 3;
 
-    static final int REQ_CAMERA    = 46211;
-    static final int REQ_GALLERY   = 46212;
-    static final int REQ_DOCUMENTS = 46213;
-    static final int REQ_MULTIPLE  = 46214;
+    // session id is stored in next 6 bits, fits 16 bit request codes required by support fragments
+    static final int MAX_SESSIONS = 64;
+
+    private static final int REQ_CODE_BASE = 0xB500;
+    private static final int REQ_CODE_MASK = 0xFF00;
+
+    // request codes of versions before v2.2.0, one per kind in the same order as REQ_* kinds
+    private static final int LEGACY_REQ_CODE_BASE = 46211;
 
     public static final String ERR_CAMERA_NULL_RESULT         = "Camera returned bad/null data";
     public static final String ERR_CAMERA_CANNOT_WRITE_OUTPUT = "App cannot write to specified camera output directory";
     public static final String ERR_GALLERY_NULL_RESULT        = "Gallery returned bad/null data";
     public static final String ERR_DOCS_NULL_RESULT           = "Documents returned bad/null data";
+    public static final String ERR_CONTENT_NOT_FOUND          = "Picked content does not exist";
 
     public static final String MIME_TYPE_IMAGES_ALL = "image/*";
     public static final String MIME_TYPE_IMAGE_BMP  = "image/bmp";
@@ -54,10 +64,27 @@ public class QiPick {
     public static final String MIME_TYPE_IMAGE_PNG  = "image/png";
     public static final String MIME_TYPE_IMAGE_WEBP = "image/webp";
 
+    static final boolean API_11 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB;
+    static final boolean API_14 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+    static final boolean API_17 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1;
     static final boolean API_18 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
     static final boolean API_19 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
     static final boolean API_23 = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
 
+    private static volatile int sPreviewMaxSize = PreviewLoader.DEFAULT_MAX_SIZE;
+
+    @Nullable
+    private static volatile CameraPicsSweeper sCameraPicsSweeper = null;
+
+    @Nullable
+    private static volatile Executor sResultExecutor = null;
+
+    @Nullable
+    private static volatile PickMetrics sPickMetrics = null;
+
+    @NonNull
+    private static volatile PickTracer sPickTracer = PickTracer.NO_OP;
+
     private QiPick() {}
 
     /**
@@ -95,11 +122,12 @@ public class QiPick {
      * @param pResultCode  result code from {@code onActivityResult(...)} parameter
      * @param pData        Intent from {@code onActivityResult(...)} parameter
      * @param pCallback    result callback
-     * @return true if result was accepted by QuickImagePick
+     * @return true if result was accepted by QuickImagePick. Callback may be called after this method returns, see
+     * {@link #handleActivityResult(Context, int, int, Intent, PickCallback)}
      */
     public static boolean handleActivityResult(@NonNull final Fragment pFragment, final int pRequestCode, final int pResultCode,
                                                @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
-        return handleActivityResult(pFragment.getContext(), pRequestCode, pResultCode, pData, pCallback);
+        return handleActivityResult(pFragment.getContext(), pFragment, pRequestCode, pResultCode, pData, pCallback);
     }
 
     /**
@@ -110,129 +138,428 @@ public class QiPick {
      * @param pResultCode  result code from {@code onActivityResult(...)} parameter
      * @param pData        Intent from {@code onActivityResult(...)} parameter
      * @param pCallback    result callback
-     * @return true if result was accepted by QuickImagePick
+     * @return true if result was accepted by QuickImagePick. Callback may be called after this method returns, see
+     * {@link #handleActivityResult(Context, int, int, Intent, PickCallback)}
      */
     @SuppressLint("NewApi")
     public static boolean handleActivityResult(@NonNull final android.app.Fragment pFragment, final int pRequestCode, final int pResultCode,
                                                @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
-        return handleActivityResult(API_23 ? pFragment.getContext() : pFragment.getActivity(), pRequestCode, pResultCode, pData, pCallback);
+        return handleActivityResult(API_23 ? pFragment.getContext() : pFragment.getActivity(), pFragment, pRequestCode, pResultCode, pData,
+                pCallback);
     }
 
     /**
      * Use this in {@code onActivityResult(...)} of Activity or Fragment to retrieve image {@link Uri}
      * <br>
      * Note: for Fragments it's advised to use Fragment-specific overloads of this method
+     * <br>
+     * Note: if pick state has to be read from disk first (e.g. process was killed while picker app was open), it's read on result executor
+     * and callback is called on main thread after this method returns. Only a weak reference to host Activity or Fragment is kept meanwhile,
+     * and result is dropped if host is finishing or gone by then
      *
      * @param pContext     app {@link Context}
      * @param pRequestCode request code from {@code onActivityResult(...)} parameter
      * @param pResultCode  result code from {@code onActivityResult(...)} parameter
      * @param pData        Intent from {@code onActivityResult(...)} parameter
      * @param pCallback    result callback
-     * @return true if result was accepted by QuickImagePick
+     * @return true if result was accepted by QuickImagePick. Callback is called before this method returns, unless pick state is not loaded yet
+     * when called on main thread: then it's called later on main thread, or not at all if host is gone by then
      * @see #handleActivityResult(Fragment, int, int, Intent, PickCallback)
      * @see #handleActivityResult(android.app.Fragment, int, int, Intent, PickCallback)
      */
-    @SuppressLint("NewApi")
     public static boolean handleActivityResult(@NonNull final Context pContext, final int pRequestCode, final int pResultCode,
                                                @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+        return handleActivityResult(pContext, pContext instanceof Activity ? pContext : null, pRequestCode, pResultCode, pData, pCallback);
+    }
 
-        if (pRequestCode != REQ_CAMERA && pRequestCode != REQ_GALLERY && pRequestCode != REQ_DOCUMENTS && pRequestCode != REQ_MULTIPLE) {
-            return false;
-        }
+    /**
+     * @param pHost Activity, support Fragment or Fragment that result is delivered to, or null if it's unknown
+     */
+    @SuppressLint("NewApi")
+    private static boolean handleActivityResult(@NonNull final Context pContext, @Nullable final Object pHost, final int pRequestCode,
+                                                final int pResultCode, @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
 
-        final int requestType = PreferenceManager.getDefaultSharedPreferences(pContext)
-                                                 .getInt(PREFS_REQUEST_TYPE, 0);
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_RESULT_DISPATCH);
 
-        if (pResultCode == Activity.RESULT_OK) {
+        try {
 
-            if (pRequestCode == REQ_DOCUMENTS) {
-                handleResultFromDocuments(requestType, pCallback, pData);
-            } else if (pRequestCode == REQ_GALLERY) {
-                handleResultFromGallery(requestType, pCallback, pData);
-            } else if (pRequestCode == REQ_CAMERA) {
-                handleResultFromCamera(pContext, requestType, pCallback, pData);
-            } else if (pData == null || pData.getData() == null && API_18 && pData.getClipData() == null) {
-                handleResultFromCamera(pContext, requestType, pCallback, pData);
-            } else {
-                handleResultFromDocuments(requestType, pCallback, pData);
+            if (!isPickRequestCode(pRequestCode)) {
+                return false;
             }
 
-            final String lastCameraUriString = PreferenceManager.getDefaultSharedPreferences(pContext)
-                                                                .getString(PREFS_LAST_CAMERA_URI, null);
+            if (Looper.myLooper() == Looper.getMainLooper() && !isResultReady(pContext, pRequestCode, pResultCode)) {
 
-            final Uri lastCameraUri = TextUtils.isEmpty(lastCameraUriString) ? null : Uri.parse(lastCameraUriString);
+                handleColdResult(pContext.getApplicationContext(), pHost, pRequestCode, pResultCode, pData, pCallback);
 
-            if (lastCameraUri != null) {
-                pContext.getApplicationContext()
-                        .revokeUriPermission(lastCameraUri, Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+                return true;
             }
 
-        } else {
+            final long startNanos = System.nanoTime();
+
+            final int requestKind = requestKindOf(pRequestCode);
+            final int sessionId = sessionIdOf(pRequestCode);
+
+            final PickStateStore stateStore = PickStateStore.get(pContext);
+
+            final PickState state = stateStore.get(sessionId);
+
+            final int requestType = state == null ? 0 : state.mRequestType;
 
-            if (pRequestCode == REQ_DOCUMENTS) {
-                pCallback.onCancel(PickSource.DOCUMENTS, requestType);
-            } else if (pRequestCode == REQ_GALLERY) {
-                pCallback.onCancel(PickSource.GALLERY, requestType);
-            } else if (pRequestCode == REQ_CAMERA) {
+            final long externalMillis = state == null ? -1 : state.getLaunchAgeMillis(SystemClock.elapsedRealtime(), System.currentTimeMillis());
+            if (externalMillis > 0) {
+                recordMetric(PickMetrics.STAGE_EXTERNAL, sourceOf(requestKind), externalMillis * 1000000L, 0);
+            }
+
+            if (pResultCode == Activity.RESULT_OK) {
+
+                if (requestKind == REQ_DOCUMENTS) {
+                    handleResultFromDocuments(pContext, requestType, pCallback, pData);
+                } else if (requestKind == REQ_GALLERY) {
+                    handleResultFromGallery(pContext, requestType, pCallback, pData);
+                } else if (requestKind == REQ_CAMERA) {
+                    handleResultFromCamera(pContext, state, requestType, pCallback, pData);
+                } else if (pData == null || pData.getData() == null && API_18 && pData.getClipData() == null) {
+                    handleResultFromCamera(pContext, state, requestType, pCallback, pData);
+                } else {
+                    handleResultFromDocuments(pContext, requestType, pCallback, pData);
+                }
 
-                pCallback.onCancel(PickSource.CAMERA, requestType);
+                final Uri lastCameraUri = getLastCameraUri(state);
 
-                deleteLastCameraPic(pContext);
+                if (lastCameraUri != null) {
+                    pContext.getApplicationContext()
+                            .revokeUriPermission(lastCameraUri, Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+                }
 
             } else {
 
-                if (pData == null || pData.getData() == null && API_18 && pData.getClipData() == null) {
+                if (requestKind == REQ_DOCUMENTS) {
+                    pCallback.onCancel(PickSource.DOCUMENTS, requestType);
+                } else if (requestKind == REQ_GALLERY) {
+                    pCallback.onCancel(PickSource.GALLERY, requestType);
+                } else if (requestKind == REQ_CAMERA) {
 
                     pCallback.onCancel(PickSource.CAMERA, requestType);
 
-                    deleteLastCameraPic(pContext);
+                    deleteCameraPicAsync(pContext, state);
 
                 } else {
-                    pCallback.onCancel(PickSource.DOCUMENTS, requestType);
+
+                    if (pData == null || pData.getData() == null && API_18 && pData.getClipData() == null) {
+
+                        pCallback.onCancel(PickSource.CAMERA, requestType);
+
+                        deleteCameraPicAsync(pContext, state);
+
+                    } else {
+                        pCallback.onCancel(PickSource.DOCUMENTS, requestType);
+                    }
+
                 }
 
             }
 
+            stateStore.remove(sessionId);
+
+            recordMetric(PickMetrics.STAGE_RESULT, sourceOf(requestKind), System.nanoTime() - startNanos, 0);
+
+            // only default directory is owned by library, custom ones are swept on demand
+            final CameraPicsSweeper sweeper = sCameraPicsSweeper;
+            if (sweeper != null && (requestKind == REQ_CAMERA || requestKind == REQ_MULTIPLE) && (state == null || state.mCameraDirPath == null)) {
+                sweeper.sweep(pContext);
+            }
+
+            return true;
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    /**
+     * @return true if result can be handled without disk I/O: pick state is loaded and camera directory (if needed) is resolved
+     */
+    private static boolean isResultReady(@NonNull final Context pContext, final int pRequestCode, final int pResultCode) {
+
+        final PickStateStore stateStore = PickStateStore.get(pContext);
+        if (!stateStore.isLoaded()) {
+            return false;
+        }
+
+        final int requestKind = requestKindOf(pRequestCode);
+        if (pResultCode != Activity.RESULT_OK || requestKind == REQ_GALLERY || requestKind == REQ_DOCUMENTS) {
+            return true;
+        }
+
+        final PickState state = stateStore.get(sessionIdOf(pRequestCode));
+
+        return CameraOutputAllocator.get(pContext)
+                                    .isResolved(state == null ? null : state.mCameraDirPath);
+    }
+
+    /**
+     * Reads pick state and resolves camera directory on result executor, then handles the result on main thread if host is still alive
+     */
+    private static void handleColdResult(@NonNull final Context pContext, @Nullable final Object pHost, final int pRequestCode, final int pResultCode,
+                                         @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+
+        // host must not be leaked by a slow read
+        final WeakReference<Object> host = pHost == null ? null : new WeakReference<>(pHost);
+
+        getResultExecutor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                final PickState state = PickStateStore.get(pContext)
+                                                      .get(sessionIdOf(pRequestCode));
+
+                CameraOutputAllocator.get(pContext)
+                                     .isWritable(state == null ? null : state.mCameraDirPath);
+
+                AsyncResultCallback.MAIN_HANDLER.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                        if (host != null && !AsyncResultCallback.isHostAlive(host.get())) {
+
+                            PickStateStore.get(pContext)
+                                          .remove(sessionIdOf(pRequestCode));
+
+                            return;
+                        }
+
+                        handleActivityResult(pContext, null, pRequestCode, pResultCode, pData, pCallback);
+
+                    }
+
+                });
+
+            }
+
+        });
+
+    }
+
+    // ==== REQUEST CODES ==== //
+
+    /**
+     * @param pRequestKind one of {@code REQ_*} kinds
+     * @param pSessionId   session id from {@link PickStateStore#add(PickState)}
+     * @return request code that identifies both request kind and pick session
+     */
+    static int requestCode(final int pRequestKind, final int pSessionId) {
+        return REQ_CODE_BASE | (pSessionId % MAX_SESSIONS) << 2 | pRequestKind;
+    }
+
+    /**
+     * @return true if given request code is made by {@link #requestCode(int, int)} or by versions before v2.2.0
+     */
+    static boolean isPickRequestCode(final int pRequestCode) {
+        return (pRequestCode & REQ_CODE_MASK) == REQ_CODE_BASE || isLegacyRequestCode(pRequestCode);
+    }
+
+    private static boolean isLegacyRequestCode(final int pRequestCode) {
+        return pRequestCode >= LEGACY_REQ_CODE_BASE && pRequestCode <= LEGACY_REQ_CODE_BASE + REQ_MULTIPLE;
+    }
+
+    static int requestKindOf(final int pRequestCode) {
+        return isLegacyRequestCode(pRequestCode) ? pRequestCode - LEGACY_REQ_CODE_BASE : pRequestCode & 0x3;
+    }
+
+    /**
+     * @return session id or {@link PickStateStore#LEGACY_SESSION_ID} for request codes of versions before v2.2.0
+     */
+    static int sessionIdOf(final int pRequestCode) {
+        return isLegacyRequestCode(pRequestCode) ? PickStateStore.LEGACY_SESSION_ID : (pRequestCode >> 2) % MAX_SESSIONS;
+    }
+
+    /**
+     * @return pick source of given request kind or null for multi-source requests
+     */
+    @Nullable
+    static PickSource sourceOf(final int pRequestKind) {
+
+        switch (pRequestKind) {
+
+            case REQ_CAMERA:
+                return PickSource.CAMERA;
+
+            case REQ_GALLERY:
+                return PickSource.GALLERY;
+
+            case REQ_DOCUMENTS:
+                return PickSource.DOCUMENTS;
+
+            default:
+                return null;
+
         }
 
+    }
+
+    // ==== ASYNC RESULT HANDLING ==== //
+
+    /**
+     * Use this in {@code onActivityResult(...)} of Activity to handle result on result executor.
+     * Picked Uris are checked for existence and their metadata is resolved (and cached if {@link UriUtils#setMetadataCache(UriMetadataCache)}
+     * is used) before callback is called. Callback methods are called on main thread, or not called at all if Activity is finishing by then
+     *
+     * @param pActivity    the Activity
+     * @param pRequestCode request code from {@code onActivityResult(...)} parameter
+     * @param pResultCode  result code from {@code onActivityResult(...)} parameter
+     * @param pData        Intent from {@code onActivityResult(...)} parameter
+     * @param pCallback    result callback
+     * @return true if result was accepted by QuickImagePick
+     * @see #setResultExecutor(Executor)
+     */
+    public static boolean handleActivityResultAsync(@NonNull final Activity pActivity, final int pRequestCode, final int pResultCode,
+                                                    @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+        return handleActivityResultAsync(pActivity, pActivity, pRequestCode, pResultCode, pData, pCallback);
+    }
+
+    /**
+     * Use this in {@code onActivityResult(...)} of Fragment to handle result on result executor.
+     * Picked Uris are checked for existence and their metadata is resolved (and cached if {@link UriUtils#setMetadataCache(UriMetadataCache)}
+     * is used) before callback is called. Callback methods are called on main thread, or not called at all if Fragment is not added by then
+     *
+     * @param pFragment    support fragment
+     * @param pRequestCode request code from {@code onActivityResult(...)} parameter
+     * @param pResultCode  result code from {@code onActivityResult(...)} parameter
+     * @param pData        Intent from {@code onActivityResult(...)} parameter
+     * @param pCallback    result callback
+     * @return true if result was accepted by QuickImagePick
+     * @see #setResultExecutor(Executor)
+     */
+    public static boolean handleActivityResultAsync(@NonNull final Fragment pFragment, final int pRequestCode, final int pResultCode,
+                                                    @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+        return handleActivityResultAsync(pFragment.getContext(), pFragment, pRequestCode, pResultCode, pData, pCallback);
+    }
+
+    /**
+     * Use this in {@code onActivityResult(...)} of Fragment to handle result on result executor.
+     * Picked Uris are checked for existence and their metadata is resolved (and cached if {@link UriUtils#setMetadataCache(UriMetadataCache)}
+     * is used) before callback is called. Callback methods are called on main thread, or not called at all if Fragment is not added by then
+     *
+     * @param pFragment    fragment
+     * @param pRequestCode request code from {@code onActivityResult(...)} parameter
+     * @param pResultCode  result code from {@code onActivityResult(...)} parameter
+     * @param pData        Intent from {@code onActivityResult(...)} parameter
+     * @param pCallback    result callback
+     * @return true if result was accepted by QuickImagePick
+     * @see #setResultExecutor(Executor)
+     */
+    @SuppressLint("NewApi")
+    public static boolean handleActivityResultAsync(@NonNull final android.app.Fragment pFragment, final int pRequestCode, final int pResultCode,
+                                                    @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+        return handleActivityResultAsync(API_23 ? pFragment.getContext() : pFragment.getActivity(), pFragment, pRequestCode, pResultCode, pData,
+                pCallback);
+    }
+
+    private static boolean handleActivityResultAsync(@NonNull final Context pContext, @NonNull final Object pHost, final int pRequestCode,
+                                                     final int pResultCode, @Nullable final Intent pData, @NonNull final PickCallback pCallback) {
+
+        if (!isPickRequestCode(pRequestCode)) {
+            return false;
+        }
+
+        final AsyncResultCallback callback = AsyncResultCallback.wrap(pContext, pHost, pCallback);
+
+        getResultExecutor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                handleActivityResult(callback.mContext, null, pRequestCode, pResultCode, pData, callback);
+            }
+
+        });
+
         return true;
     }
 
-    private static void handleResultFromCamera(@NonNull final Context pContext, final int pRequestType, @NonNull final PickCallback pCallback,
-                                               @Nullable final Intent pData) {
+    /**
+     * Set executor on which {@code handleActivityResultAsync(...)} methods handle results. By default a single background thread is used
+     *
+     * @param pExecutor the executor or null to use default one
+     */
+    public static void setResultExecutor(@Nullable final Executor pExecutor) {
+        sResultExecutor = pExecutor;
+    }
+
+    /**
+     * @return executor on which {@code handleActivityResultAsync(...)} methods handle results
+     */
+    @NonNull
+    public static Executor getResultExecutor() {
 
-        final File cameraPicsDir = getCameraPicsDirectory(pContext);
-        if (cameraPicsDir == null || !cameraPicsDir.canWrite()) {
+        final Executor executor = sResultExecutor;
+        if (executor != null) {
+            return executor;
+        }
+
+        return DefaultResultExecutor.INSTANCE;
+    }
+
+    // lazy holder, thread is only created if async result handling is used
+    private static final class DefaultResultExecutor {
+
+        static final Executor INSTANCE = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(@NonNull final Runnable pRunnable) {
+
+                final Thread thread = new Thread(pRunnable, "qip-result");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+
+        });
+
+    }
+
+    // ==== //
+
+    private static void handleResultFromCamera(@NonNull final Context pContext, @Nullable final PickState pState, final int pRequestType,
+                                               @NonNull final PickCallback pCallback, @Nullable final Intent pData) {
+
+        final boolean writable = CameraOutputAllocator.get(pContext)
+                                                      .isWritable(pState == null ? null : pState.mCameraDirPath);
+        if (!writable) {
 
             pCallback.onError(PickSource.CAMERA, pRequestType, ERR_CAMERA_CANNOT_WRITE_OUTPUT);
 
             return;
         }
 
-        final Uri pictureUri = getLastCameraUri(pContext);
+        final Uri pictureUri = getLastCameraUri(pState);
 
         if (pictureUri == null) {
             pCallback.onError(PickSource.CAMERA, pRequestType, ERR_CAMERA_NULL_RESULT);
         } else {
-            pCallback.onImagePicked(PickSource.CAMERA, pRequestType, pictureUri);
+            deliverImage(pContext, PickSource.CAMERA, pRequestType, pCallback, pictureUri);
         }
 
     }
 
-    private static void handleResultFromGallery(final int pRequestType, @NonNull final PickCallback pCallback, @Nullable final Intent pData) {
+    private static void handleResultFromGallery(@NonNull final Context pContext, final int pRequestType, @NonNull final PickCallback pCallback,
+                                                @Nullable final Intent pData) {
 
         final Uri pictureUri = pData == null ? null : pData.getData();
 
         if (pictureUri == null) {
             pCallback.onError(PickSource.GALLERY, pRequestType, ERR_GALLERY_NULL_RESULT);
         } else {
-            pCallback.onImagePicked(PickSource.GALLERY, pRequestType, pictureUri);
+            deliverImage(pContext, PickSource.GALLERY, pRequestType, pCallback, pictureUri);
         }
 
     }
 
     @SuppressLint("NewApi")
-    private static void handleResultFromDocuments(final int pRequestType, @NonNull final PickCallback pCallback, @Nullable final Intent pData) {
+    private static void handleResultFromDocuments(@NonNull final Context pContext, final int pRequestType, @NonNull final PickCallback pCallback,
+                                                  @Nullable final Intent pData) {
 
         final Uri pictureUri = pData == null ? null : pData.getData();
 
@@ -240,36 +567,203 @@ public class QiPick {
 
             final ClipData clipData = API_18 ? pData != null ? pData.getClipData() : null : null;
             if (clipData != null) {
+                deliverItems(pRequestType, pCallback, new PickedItems(pContext, clipData, false));
+            } else {
+                pCallback.onError(PickSource.DOCUMENTS, pRequestType, ERR_DOCS_NULL_RESULT);
+            }
 
-                final ArrayList<Uri> uris = new ArrayList<>();
-                for (int i = 0; i < clipData.getItemCount(); i++) {
+        } else {
+            deliverImage(pContext, PickSource.DOCUMENTS, pRequestType, pCallback, pictureUri);
+        }
 
-                    final ClipData.Item item = clipData.getItemAt(i);
+    }
 
-                    final Uri uri = item.getUri();
+    private static void deliverItems(final int pRequestType, @NonNull final PickCallback pCallback, @NonNull final PickedItems pItems) {
 
-                    if (uri != null) {
-                        uris.add(uri);
-                    }
+        if (pItems.getItemCount() == 0) {
 
-                }
+            pCallback.onError(PickSource.DOCUMENTS, pRequestType, ERR_DOCS_NULL_RESULT);
 
-                if (uris.isEmpty()) {
-                    pCallback.onError(PickSource.DOCUMENTS, pRequestType, ERR_DOCS_NULL_RESULT);
-                } else {
-                    pCallback.onMultipleImagesPicked(pRequestType, uris);
-                }
+            return;
+        }
 
-            } else {
+        if (pCallback instanceof PickPullCallback) {
+
+            ((PickPullCallback) pCallback).onItemsReady(pRequestType, pItems);
+
+            return;
+        }
+
+        if (pCallback instanceof PickStreamCallback) {
+
+            final PickStreamCallback callback = (PickStreamCallback) pCallback;
+
+            int count = 0;
+            while (pItems.hasNext()) {
+
+                final Uri uri = pItems.next();
+
+                callback.onItemPicked(pRequestType, pItems.getIndex(), uri);
+
+                count++;
+
+            }
+
+            if (count == 0) {
                 pCallback.onError(PickSource.DOCUMENTS, pRequestType, ERR_DOCS_NULL_RESULT);
+            } else {
+                callback.onItemsComplete(pRequestType, count);
             }
 
+            return;
+        }
+
+        final ArrayList<Uri> uris = new ArrayList<>(pItems.getItemCount());
+        while (pItems.hasNext()) {
+            uris.add(pItems.next());
+        }
+
+        if (uris.isEmpty()) {
+            pCallback.onError(PickSource.DOCUMENTS, pRequestType, ERR_DOCS_NULL_RESULT);
         } else {
-            pCallback.onImagePicked(PickSource.DOCUMENTS, pRequestType, pictureUri);
+            pCallback.onMultipleImagesPicked(pRequestType, uris);
+        }
+
+    }
+
+    private static void deliverImage(@NonNull final Context pContext, @NonNull final PickSource pPickSource, final int pRequestType,
+                                     @NonNull final PickCallback pCallback, @NonNull final Uri pImageUri) {
+
+        pCallback.onImagePicked(pPickSource, pRequestType, pImageUri);
+
+        if (pCallback instanceof PickPreviewCallback) {
+            loadPreview(pContext.getApplicationContext(), pPickSource, pRequestType, (PickPreviewCallback) pCallback, pImageUri);
+        }
+
+    }
+
+    private static void loadPreview(@NonNull final Context pContext, @NonNull final PickSource pPickSource, final int pRequestType,
+                                    @NonNull final PickPreviewCallback pCallback, @NonNull final Uri pImageUri) {
+
+        final int maxSize = sPreviewMaxSize;
+
+        PreviewExecutor.INSTANCE.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                final Bitmap preview = PreviewLoader.load(pContext, pImageUri, maxSize);
+                if (preview == null) {
+                    return;
+                }
+
+                // async callback posts to main thread itself and drops preview if host is gone
+                if (pCallback instanceof AsyncResultCallback) {
+
+                    pCallback.onPreviewReady(pPickSource, pRequestType, pImageUri, preview);
+
+                    return;
+                }
+
+                AsyncResultCallback.MAIN_HANDLER.post(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        pCallback.onPreviewReady(pPickSource, pRequestType, pImageUri, preview);
+                    }
+
+                });
+
+            }
+
+        });
+
+    }
+
+    // lazy holder, thread is only created if previews are used
+    private static final class PreviewExecutor {
+
+        static final Executor INSTANCE = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(@NonNull final Runnable pRunnable) {
+
+                final Thread thread = new Thread(pRunnable, "qip-preview");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+
+        });
+
+    }
+
+    // ==== PREVIEW ==== //
+
+    /**
+     * Set desired size of previews delivered to {@link PickPreviewCallback}. Embedded and MediaStore thumbnails are delivered as is,
+     * decoded previews are subsampled so that their larger side is between given size and twice that size
+     *
+     * @param pMaxSize size in pixels
+     */
+    public static void setPreviewMaxSize(final int pMaxSize) {
+        sPreviewMaxSize = Math.max(1, pMaxSize);
+    }
+
+    /**
+     * @return desired size of previews delivered to {@link PickPreviewCallback}
+     */
+    public static int getPreviewMaxSize() {
+        return sPreviewMaxSize;
+    }
+
+    // ==== METRICS ==== //
+
+    /**
+     * Install a listener of pick flow stage timings and I/O. There's no listener by default
+     *
+     * @param pMetrics the listener, e.g. {@link PickHistogramMetrics}, or null to disable metrics
+     */
+    public static void setPickMetrics(@Nullable final PickMetrics pMetrics) {
+        sPickMetrics = pMetrics;
+    }
+
+    /**
+     * @return installed metrics listener or null if there's none
+     */
+    @Nullable
+    public static PickMetrics getPickMetrics() {
+        return sPickMetrics;
+    }
+
+    static void recordMetric(@PickMetrics.Stage final int pStage, @Nullable final PickSource pSource, final long pDurationNanos, final long pBytes) {
+
+        final PickMetrics metrics = sPickMetrics;
+        if (metrics != null) {
+            metrics.record(pStage, pSource, pDurationNanos, pBytes);
         }
 
     }
 
+    // ==== TRACING ==== //
+
+    /**
+     * Install tracing hooks that are called at begin and end of pick flow and I/O stages
+     *
+     * @param pTracer the tracer, e.g. {@link SystemPickTracer}, or null to disable tracing
+     */
+    public static void setPickTracer(@Nullable final PickTracer pTracer) {
+        sPickTracer = pTracer == null ? PickTracer.NO_OP : pTracer;
+    }
+
+    /**
+     * @return installed tracer, {@link PickTracer#NO_OP} by default
+     */
+    @NonNull
+    public static PickTracer getPickTracer() {
+        return sPickTracer;
+    }
+
     // ==== CAMERA DIR ==== //
 
     /**
@@ -278,9 +772,13 @@ public class QiPick {
      * By default it's a pictures directory on external storage.
      */
     public static File getCameraPicsDirectory(@NonNull final Context pContext) {
+        return getCameraPicsDirectory(pContext, PickStateStore.get(pContext)
+                                                              .getLast());
+    }
 
-        final String camDirPath = PreferenceManager.getDefaultSharedPreferences(pContext)
-                                                   .getString(QiPick.PREFS_CAMERA_DIR, null);
+    private static File getCameraPicsDirectory(@NonNull final Context pContext, @Nullable final PickState pState) {
+
+        final String camDirPath = pState == null ? null : pState.mCameraDirPath;
 
         final File dir = camDirPath == null ? pContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES) : new File(camDirPath);
 
@@ -292,6 +790,23 @@ public class QiPick {
         return dir;
     }
 
+    /**
+     * Install a sweeper that cleans up default camera pics directory after every camera or multi-source pick result
+     *
+     * @param pSweeper the sweeper or null to disable automatic sweeping
+     */
+    public static void setCameraPicsSweeper(@Nullable final CameraPicsSweeper pSweeper) {
+        sCameraPicsSweeper = pSweeper;
+    }
+
+    /**
+     * @return installed camera pics sweeper or null if there's none
+     */
+    @Nullable
+    public static CameraPicsSweeper getCameraPicsSweeper() {
+        return sCameraPicsSweeper;
+    }
+
     // ==== LAST CAM PIC ==== //
 
     /**
@@ -299,11 +814,13 @@ public class QiPick {
      * @return Uri of last camera pic. Not necessarily valid content
      */
     public static Uri getLastCameraUri(@NonNull final Context pContext) {
+        return getLastCameraUri(PickStateStore.get(pContext)
+                                              .getLast());
+    }
 
-        final String uriString = PreferenceManager.getDefaultSharedPreferences(pContext)
-                                                  .getString(QiPick.PREFS_LAST_CAMERA_URI, null);
-
-        return uriString == null ? null : Uri.parse(uriString);
+    @Nullable
+    private static Uri getLastCameraUri(@Nullable final PickState pState) {
+        return pState == null || TextUtils.isEmpty(pState.mLastCameraUri) ? null : Uri.parse(pState.mLastCameraUri);
     }
 
     /**
@@ -320,6 +837,16 @@ public class QiPick {
         return 0;
     }
 
+    private static void deleteCameraPicAsync(@NonNull final Context pContext, @Nullable final PickState pState) {
+
+        final Uri uri = getLastCameraUri(pState);
+        if (uri != null) {
+            CameraOutputAllocator.get(pContext)
+                                 .deleteAsync(uri);
+        }
+
+    }
+
     // ==== //
 
 }
@@ -0,0 +1,38 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.SuppressLint;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+
+/**
+ * {@link PickTracer} that writes sections with {@link Trace}, so they show up inline with app's own sections in systrace and Perfetto captures.
+ * Does nothing below API 18
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SystemPickTracer
+        implements PickTracer {
+
+    @SuppressLint("NewApi")
+    @Override
+    public void beginSection(@NonNull final String pSectionName) {
+
+        if (QiPick.API_18) {
+            Trace.beginSection(pSectionName);
+        }
+
+    }
+
+    @SuppressLint("NewApi")
+    @Override
+    public void endSection() {
+
+        if (QiPick.API_18) {
+            Trace.endSection();
+        }
+
+    }
+
+}
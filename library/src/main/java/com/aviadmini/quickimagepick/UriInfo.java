@@ -0,0 +1,458 @@
+package com.aviadmini.quickimagepick;
+
+import android.annotation.SuppressLint;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.BaseColumns;
+import android.provider.DocumentsContract;
+import android.provider.MediaStore;
+import android.provider.OpenableColumns;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.text.TextUtils;
+import android.webkit.MimeTypeMap;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metadata of {@link Uri} content resolved at once: a single {@link ContentResolver#query(Uri, String[], String, String[], String)}
+ * and at most one {@link ContentResolver#getType(Uri)} instead of separate calls for every property
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class UriInfo {
+
+    /**
+     * Max number of ids in a single batch MediaStore query, SQLite allows up to 999 arguments
+     */
+    static final int BATCH_QUERY_MAX_ARGS = 500;
+
+    private static final String[] PROJECTION_OPENABLE = {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE};
+
+    private static final String[] PROJECTION_MEDIA_STORE = {BaseColumns._ID, OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE,
+                                                            MediaStore.MediaColumns.MIME_TYPE, MediaStore.MediaColumns.DATE_MODIFIED};
+
+    @SuppressLint("InlinedApi")
+    private static final String[] PROJECTION_DOCUMENT = {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE,
+                                                         DocumentsContract.Document.COLUMN_MIME_TYPE,
+                                                         DocumentsContract.Document.COLUMN_LAST_MODIFIED};
+
+    @NonNull
+    private final Uri mUri;
+
+    private final boolean mExists;
+
+    @Nullable
+    private final String mMimeType;
+
+    @Nullable
+    private final String mExtension;
+
+    @Nullable
+    private final String mDisplayName;
+
+    private final long mSize;
+
+    private final long mLastModified;
+
+    UriInfo(@NonNull final Uri pUri, final boolean pExists, @Nullable final String pMimeType, @Nullable final String pDisplayName,
+            final long pSize, final long pLastModified) {
+
+        this.mUri = pUri;
+
+        this.mExists = pExists;
+
+        this.mDisplayName = pDisplayName;
+
+        final String nameExtension = extensionOf(pDisplayName);
+
+        this.mMimeType = pMimeType != null ? pMimeType : nameExtension == null ? null : MimeTypeMap.getSingleton()
+                                                                                                   .getMimeTypeFromExtension(nameExtension);
+
+        final String mimeExtension = this.mMimeType == null ? null : MimeTypeMap.getSingleton()
+                                                                                .getExtensionFromMimeType(this.mMimeType);
+
+        final String urlExtension = MimeTypeMap.getFileExtensionFromUrl(pUri.toString());
+
+        this.mExtension = mimeExtension != null ? mimeExtension : nameExtension != null ? nameExtension :
+                                                                  TextUtils.isEmpty(urlExtension) ? null : urlExtension;
+
+        this.mSize = pSize;
+
+        this.mLastModified = pLastModified;
+
+    }
+
+    // ==== RESOLVING ==== //
+
+    /**
+     * @param pContext app {@link Context}
+     * @param pUri     uri to resolve metadata for
+     * @return metadata of {@link Uri} content
+     */
+    @WorkerThread
+    @NonNull
+    public static UriInfo resolve(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final UriInfo info = resolveUncached(pContext, pUri);
+
+        UriUtils.putCached(info);
+
+        return info;
+    }
+
+    @NonNull
+    private static UriInfo resolveUncached(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final ContentResolver resolver = pContext.getContentResolver();
+
+        if (ContentResolver.SCHEME_FILE.equals(pUri.getScheme())) {
+            return resolveFile(pUri);
+        }
+
+        final String[] projection = projectionFor(pContext, pUri);
+
+        Cursor cursor = null;
+        try {
+
+            cursor = queryWithFallback(resolver, pUri, projection, null, null);
+
+            if (cursor == null) {
+                // provider does not support queries, existence can only be checked by opening content
+                return new UriInfo(pUri, UriUtils.contentExists(pContext, pUri), resolver.getType(pUri), null, -1, -1);
+            }
+
+            if (!cursor.moveToFirst()) {
+                return new UriInfo(pUri, false, null, null, -1, -1);
+            }
+
+            return fromCursor(resolver, pUri, cursor);
+        } catch (final SecurityException | IllegalArgumentException | IllegalStateException e) {
+            return new UriInfo(pUri, false, null, null, -1, -1);
+        } finally {
+
+            if (cursor != null) {
+                cursor.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * Resolves metadata for multiple Uris. MediaStore Uris from the same table are resolved with a single query,
+     * other Uris and MediaStore Uris that the query didn't return are resolved one by one
+     *
+     * @param pContext app {@link Context}
+     * @param pUris    uris to resolve metadata for
+     * @return list of metadata in the same order as given uris
+     */
+    @WorkerThread
+    @NonNull
+    public static List<UriInfo> resolve(@NonNull final Context pContext, @NonNull final List<Uri> pUris) {
+
+        final Map<Uri, UriInfo> resolved = new HashMap<>();
+
+        // group MediaStore item uris by their table uri
+        final Map<Uri, List<Uri>> mediaStoreGroups = new LinkedHashMap<>();
+        for (final Uri uri : pUris) {
+
+            final Uri tableUri = mediaStoreTableOf(uri);
+            if (tableUri != null) {
+
+                List<Uri> group = mediaStoreGroups.get(tableUri);
+                if (group == null) {
+
+                    group = new ArrayList<>();
+
+                    mediaStoreGroups.put(tableUri, group);
+
+                }
+
+                group.add(uri);
+
+            }
+
+        }
+
+        for (final Map.Entry<Uri, List<Uri>> group : mediaStoreGroups.entrySet()) {
+
+            final List<Uri> uris = group.getValue();
+
+            for (int from = 0; from < uris.size(); from += BATCH_QUERY_MAX_ARGS) {
+                resolveMediaStoreBatch(pContext.getContentResolver(), group.getKey(), uris.subList(from, Math.min(uris.size(), from + BATCH_QUERY_MAX_ARGS)),
+                        resolved);
+            }
+
+        }
+
+        for (final UriInfo info : resolved.values()) {
+            UriUtils.putCached(info);
+        }
+
+        final List<UriInfo> result = new ArrayList<>(pUris.size());
+        for (final Uri uri : pUris) {
+
+            UriInfo info = resolved.get(uri);
+            if (info == null) {
+
+                info = resolve(pContext, uri);
+
+                resolved.put(uri, info);
+
+            }
+
+            result.add(info);
+
+        }
+
+        return result;
+    }
+
+    private static void resolveMediaStoreBatch(@NonNull final ContentResolver pResolver, @NonNull final Uri pTableUri, @NonNull final List<Uri> pUris,
+                                               @NonNull final Map<Uri, UriInfo> pResolved) {
+
+        final Map<String, Uri> uriById = new HashMap<>();
+
+        final String[] args = new String[pUris.size()];
+        final StringBuilder selection = new StringBuilder(BaseColumns._ID).append(" IN (");
+        for (int i = 0; i < args.length; i++) {
+
+            final Uri uri = pUris.get(i);
+
+            args[i] = uri.getLastPathSegment();
+
+            uriById.put(args[i], uri);
+
+            selection.append(i == 0 ? "?" : ",?");
+
+        }
+        selection.append(')');
+
+        Cursor cursor = null;
+        try {
+
+            cursor = pResolver.query(pTableUri, PROJECTION_MEDIA_STORE, selection.toString(), args, null);
+
+            if (cursor == null) {
+                return;
+            }
+
+            final int idIndex = cursor.getColumnIndex(BaseColumns._ID);
+
+            while (cursor.moveToNext()) {
+
+                final Uri uri = uriById.remove(cursor.getString(idIndex));
+                if (uri != null) {
+                    pResolved.put(uri, fromCursor(pResolver, uri, cursor));
+                }
+
+            }
+
+            // remaining ids are left unresolved, they are resolved one by one: table query doesn't return rows app can't see
+            // without storage permission (API 29+), even though app may still read them with Uri permission granted by picker
+        } catch (final RuntimeException e) {
+            // batch is not supported, uris will be resolved one by one
+        } finally {
+
+            if (cursor != null) {
+                cursor.close();
+            }
+
+        }
+
+    }
+
+    @NonNull
+    private static UriInfo fromCursor(@NonNull final ContentResolver pResolver, @NonNull final Uri pUri, @NonNull final Cursor pCursor) {
+
+        final String displayName = getString(pCursor, OpenableColumns.DISPLAY_NAME);
+
+        final long size = getLong(pCursor, OpenableColumns.SIZE);
+
+        // MediaStore reports seconds, documents report milliseconds
+        final long dateModified = getLong(pCursor, MediaStore.MediaColumns.DATE_MODIFIED);
+        @SuppressLint("InlinedApi")
+        final long lastModified = dateModified >= 0 ? dateModified * 1000 : getLong(pCursor, DocumentsContract.Document.COLUMN_LAST_MODIFIED);
+
+        String mimeType = getString(pCursor, MediaStore.MediaColumns.MIME_TYPE);
+        if (mimeType == null) {
+            mimeType = pResolver.getType(pUri);
+        }
+
+        return new UriInfo(pUri, true, mimeType, displayName, size, lastModified);
+    }
+
+    @NonNull
+    private static UriInfo resolveFile(@NonNull final Uri pUri) {
+
+        final String path = pUri.getPath();
+        if (TextUtils.isEmpty(path)) {
+            return new UriInfo(pUri, false, null, null, -1, -1);
+        }
+
+        final File file = new File(path);
+
+        final boolean exists = file.isFile();
+
+        return new UriInfo(pUri, exists, null, file.getName(), exists ? file.length() : -1, exists ? file.lastModified() : -1);
+    }
+
+    @Nullable
+    private static Cursor queryWithFallback(@NonNull final ContentResolver pResolver, @NonNull final Uri pUri, @NonNull final String[] pProjection,
+                                            @Nullable final String pSelection, @Nullable final String[] pSelectionArgs) {
+
+        if (pProjection == PROJECTION_OPENABLE) {
+            return pResolver.query(pUri, pProjection, pSelection, pSelectionArgs, null);
+        }
+
+        try {
+            return pResolver.query(pUri, pProjection, pSelection, pSelectionArgs, null);
+        } catch (final IllegalArgumentException | IllegalStateException e) {
+            // provider is picky about unknown columns
+            return pResolver.query(pUri, PROJECTION_OPENABLE, pSelection, pSelectionArgs, null);
+        }
+
+    }
+
+    @SuppressLint("NewApi")
+    @NonNull
+    private static String[] projectionFor(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        if (MediaStore.AUTHORITY.equals(pUri.getAuthority())) {
+            return PROJECTION_MEDIA_STORE;
+        }
+
+        if (QiPick.API_19 && DocumentsContract.isDocumentUri(pContext, pUri)) {
+            return PROJECTION_DOCUMENT;
+        }
+
+        return PROJECTION_OPENABLE;
+    }
+
+    /**
+     * @param pUri uri to check
+     * @return table uri for MediaStore item uri (the one ending with numeric id) or null if it's not a MediaStore item uri
+     */
+    @Nullable
+    static Uri mediaStoreTableOf(@NonNull final Uri pUri) {
+
+        if (!ContentResolver.SCHEME_CONTENT.equals(pUri.getScheme()) || !MediaStore.AUTHORITY.equals(pUri.getAuthority())) {
+            return null;
+        }
+
+        final List<String> segments = pUri.getPathSegments();
+        if (segments.size() < 2 || !TextUtils.isDigitsOnly(segments.get(segments.size() - 1))) {
+            return null;
+        }
+
+        final Uri.Builder builder = pUri.buildUpon()
+                                        .path(null);
+        for (int i = 0; i < segments.size() - 1; i++) {
+            builder.appendPath(segments.get(i));
+        }
+
+        return builder.build();
+    }
+
+    @Nullable
+    private static String getString(@NonNull final Cursor pCursor, @NonNull final String pColumn) {
+
+        final int index = pCursor.getColumnIndex(pColumn);
+
+        return index < 0 || pCursor.isNull(index) ? null : pCursor.getString(index);
+    }
+
+    private static long getLong(@NonNull final Cursor pCursor, @NonNull final String pColumn) {
+
+        final int index = pCursor.getColumnIndex(pColumn);
+
+        return index < 0 || pCursor.isNull(index) ? -1 : pCursor.getLong(index);
+    }
+
+    @Nullable
+    private static String extensionOf(@Nullable final String pFileName) {
+
+        if (pFileName == null) {
+            return null;
+        }
+
+        final int dot = pFileName.lastIndexOf('.');
+
+        return dot < 0 || dot == pFileName.length() - 1 ? null : pFileName.substring(dot + 1)
+                                                                          .toLowerCase(Locale.US);
+    }
+
+    // ==== PROPERTIES ==== //
+
+    /**
+     * @return the {@link Uri}
+     */
+    @NonNull
+    public Uri getUri() {
+        return this.mUri;
+    }
+
+    /**
+     * @return true if content exists
+     */
+    public boolean exists() {
+        return this.mExists;
+    }
+
+    /**
+     * @return MIME type of content or null if cannot determine
+     */
+    @Nullable
+    public String getMimeType() {
+        return this.mMimeType;
+    }
+
+    /**
+     * @return most common file extension for content or null if cannot determine
+     */
+    @Nullable
+    public String getFileExtension() {
+        return this.mExtension;
+    }
+
+    /**
+     * @return display name of content or null if provider does not report it
+     */
+    @Nullable
+    public String getDisplayName() {
+        return this.mDisplayName;
+    }
+
+    /**
+     * @return content size in bytes or -1 if provider does not report it
+     */
+    public long getSize() {
+        return this.mSize;
+    }
+
+    /**
+     * @return last modification time in milliseconds since epoch or -1 if provider does not report it
+     */
+    public long getLastModified() {
+        return this.mLastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "UriInfo{" + this.mUri + ", exists=" + this.mExists + ", mime=" + this.mMimeType + ", ext=" + this.mExtension + ", name=" +
+               this.mDisplayName + ", size=" + this.mSize + ", modified=" + this.mLastModified + "}";
+    }
+
+}
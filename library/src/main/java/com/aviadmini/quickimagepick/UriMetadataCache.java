@@ -0,0 +1,213 @@
+package com.aviadmini.quickimagepick;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe size-bounded LRU cache of {@link Uri} metadata used by {@link UriUtils} lookups when installed with
+ * {@link UriUtils#setMetadataCache(UriMetadataCache)}. Saves binder calls to content providers for Uris that are looked up repeatedly
+ * <br><br>
+ * Entries expire after given time to live and are invalidated when content is deleted via {@link UriUtils#deleteContent(android.content.Context, Uri)}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class UriMetadataCache {
+
+    static final int FIELD_MIME_TYPE = 0;
+    static final int FIELD_EXTENSION = 1;
+    static final int FIELD_EXISTS    = 2;
+
+    private static final int FIELD_COUNT = 3;
+
+    /**
+     * Returned by {@link #get(Uri, int)} when value is not cached. Differs from null which is a valid cached value
+     */
+    static final Object MISS = new Object();
+
+    private final int mMaxEntries;
+
+    private final long mTtlMillis;
+
+    private final LinkedHashMap<Uri, CacheEntry> mEntries;
+
+    private long mHitCount      = 0;
+    private long mMissCount     = 0;
+    private long mEvictionCount = 0;
+
+    /**
+     * @param pMaxEntries max number of Uris to keep metadata for
+     * @param pTtlMillis  time in milliseconds after which cached metadata of a Uri is considered stale
+     */
+    public UriMetadataCache(final int pMaxEntries, final long pTtlMillis) {
+
+        this.mMaxEntries = Math.max(1, pMaxEntries);
+
+        this.mTtlMillis = pTtlMillis;
+
+        this.mEntries = new LinkedHashMap<Uri, CacheEntry>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Uri, CacheEntry> pEldest) {
+
+                if (this.size() > UriMetadataCache.this.mMaxEntries) {
+
+                    UriMetadataCache.this.mEvictionCount++;
+
+                    return true;
+                }
+
+                return false;
+            }
+
+        };
+
+    }
+
+    // ==== ACCESS ==== //
+
+    /**
+     * @param pUri   the uri
+     * @param pField one of {@code FIELD_} constants
+     * @return cached value (possibly null) or {@link #MISS} if value is not cached or is stale
+     */
+    @Nullable
+    synchronized Object get(@NonNull final Uri pUri, final int pField) {
+
+        final CacheEntry entry = this.mEntries.get(pUri);
+
+        if (entry == null) {
+
+            this.mMissCount++;
+
+            return MISS;
+        }
+
+        if (SystemClock.elapsedRealtime() - entry.mCreatedAt > this.mTtlMillis) {
+
+            this.mEntries.remove(pUri);
+
+            this.mMissCount++;
+
+            return MISS;
+        }
+
+        final Object value = entry.mValues[pField];
+
+        if (value == MISS) {
+            this.mMissCount++;
+        } else {
+            this.mHitCount++;
+        }
+
+        return value;
+    }
+
+    /**
+     * @param pUri   the uri
+     * @param pField one of {@code FIELD_} constants
+     * @param pValue value to cache
+     */
+    synchronized void put(@NonNull final Uri pUri, final int pField, @Nullable final Object pValue) {
+
+        final long now = SystemClock.elapsedRealtime();
+
+        CacheEntry entry = this.mEntries.get(pUri);
+        if (entry == null || now - entry.mCreatedAt > this.mTtlMillis) {
+
+            entry = new CacheEntry(now);
+
+            this.mEntries.put(pUri, entry);
+
+        }
+
+        entry.mValues[pField] = pValue;
+
+    }
+
+    /**
+     * Removes cached metadata of given {@link Uri}
+     *
+     * @param pUri the uri
+     */
+    public synchronized void invalidate(@NonNull final Uri pUri) {
+        this.mEntries.remove(pUri);
+    }
+
+    /**
+     * Removes all cached metadata
+     */
+    public synchronized void invalidateAll() {
+        this.mEntries.clear();
+    }
+
+    // ==== STATS ==== //
+
+    /**
+     * @return number of Uris metadata is cached for
+     */
+    public synchronized int size() {
+        return this.mEntries.size();
+    }
+
+    /**
+     * @return max number of Uris metadata is cached for
+     */
+    public int getMaxEntries() {
+        return this.mMaxEntries;
+    }
+
+    /**
+     * @return number of lookups served from cache
+     */
+    public synchronized long getHitCount() {
+        return this.mHitCount;
+    }
+
+    /**
+     * @return number of lookups that had to query content provider
+     */
+    public synchronized long getMissCount() {
+        return this.mMissCount;
+    }
+
+    /**
+     * @return number of entries dropped because cache was full
+     */
+    public synchronized long getEvictionCount() {
+        return this.mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "UriMetadataCache{" + this.mEntries.size() + "/" + this.mMaxEntries + ", hits=" + this.mHitCount + ", misses=" + this.mMissCount +
+               ", evictions=" + this.mEvictionCount + "}";
+    }
+
+    // ==== //
+
+    private static class CacheEntry {
+
+        final long mCreatedAt;
+
+        final Object[] mValues = new Object[FIELD_COUNT];
+
+        CacheEntry(final long pCreatedAt) {
+
+            this.mCreatedAt = pCreatedAt;
+
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                this.mValues[i] = MISS;
+            }
+
+        }
+
+    }
+
+}
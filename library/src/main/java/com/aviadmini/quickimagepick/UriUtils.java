@@ -2,8 +2,11 @@ package com.aviadmini.quickimagepick;
 
 import android.content.ContentResolver;
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
 import android.net.Uri;
 import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.annotation.WorkerThread;
@@ -11,10 +14,15 @@ import android.text.TextUtils;
 import android.webkit.MimeTypeMap;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Class contains some useful methods to work with {@link Uri}. Mainly designed for image Uris returned by this library
@@ -25,27 +33,254 @@ import java.io.InputStream;
 @SuppressWarnings("WeakerAccess")
 public class UriUtils {
 
+    static final String MIME_TYPE_OCTET_STREAM = "application/octet-stream";
+
+    @Nullable
+    private static volatile UriMetadataCache sMetadataCache = null;
+
+    // ==== METADATA CACHE ==== //
+
+    /**
+     * Install a cache for {@link #getMimeType(Context, Uri)}, {@link #getFileExtension(Context, Uri)} and
+     * {@link #contentExists(Context, Uri)} lookups. There's no cache by default
+     *
+     * @param pCache the cache or null to disable caching
+     */
+    public static void setMetadataCache(@Nullable final UriMetadataCache pCache) {
+        sMetadataCache = pCache;
+    }
+
+    /**
+     * @return installed metadata cache or null if caching is disabled
+     */
+    @Nullable
+    public static UriMetadataCache getMetadataCache() {
+        return sMetadataCache;
+    }
+
+    @Nullable
+    private static Object getCached(@NonNull final Uri pUri, final int pField) {
+
+        final UriMetadataCache cache = sMetadataCache;
+
+        return cache == null ? UriMetadataCache.MISS : cache.get(pUri, pField);
+    }
+
+    private static void putCached(@NonNull final Uri pUri, final int pField, @Nullable final Object pValue) {
+
+        final UriMetadataCache cache = sMetadataCache;
+        if (cache != null) {
+            cache.put(pUri, pField, pValue);
+        }
+
+    }
+
+    static void putCached(@NonNull final UriInfo pInfo) {
+
+        final UriMetadataCache cache = sMetadataCache;
+        if (cache != null) {
+
+            // unknown or generic type is resolved by sniffing content in getMimeType() and getFileExtension(), which cache the result
+            final String mimeType = pInfo.getMimeType();
+            if (mimeType != null && !MIME_TYPE_OCTET_STREAM.equals(mimeType)) {
+
+                cache.put(pInfo.getUri(), UriMetadataCache.FIELD_MIME_TYPE, mimeType);
+                cache.put(pInfo.getUri(), UriMetadataCache.FIELD_EXTENSION, pInfo.getFileExtension());
+
+            }
+
+            cache.put(pInfo.getUri(), UriMetadataCache.FIELD_EXISTS, pInfo.exists());
+
+        }
+
+    }
+
+    // ==== METADATA ==== //
+
     /**
      * @param pContext app {@link Context}
      * @param pUri     uri to get MIME type for
-     * @return MIME type for {@link Uri} content or null if cannot determine
+     * @return MIME type for {@link Uri} content or null if cannot determine.
+     * If content provider does not know the type or reports {@code application/octet-stream}, image format is recognized by content signature
+     * @see UriInfo#resolve(Context, Uri)
+     * @see #sniffImageFormat(Context, Uri)
      */
     @Nullable
     public static String getMimeType(@NonNull final Context pContext, @NonNull final Uri pUri) {
 
-        // first try to get it from content resolver
-        final String contentResolverChoice = pContext.getContentResolver()
-                                                     .getType(pUri);
+        final Object cached = getCached(pUri, UriMetadataCache.FIELD_MIME_TYPE);
+        if (cached != UriMetadataCache.MISS) {
+            return (String) cached;
+        }
+
+        final long startNanos = System.nanoTime();
+
+        final String mimeType = queryMimeType(pContext, pUri);
+
+        QiPick.recordMetric(PickMetrics.STAGE_METADATA, null, System.nanoTime() - startNanos, 0);
+
+        putCached(pUri, UriMetadataCache.FIELD_MIME_TYPE, mimeType);
+
+        return mimeType;
+    }
+
+    @Nullable
+    private static String queryMimeType(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_METADATA_QUERY);
+
+        try {
+
+            // first try to get it from content resolver
+            String mimeType = pContext.getContentResolver()
+                                      .getType(pUri);
+
+            // if content resolver fails and it's a file Uri then try guessing by extension
+            if (mimeType == null && ContentResolver.SCHEME_FILE.equals(pUri.getScheme())) {
+
+                final String extension = MimeTypeMap.getFileExtensionFromUrl(pUri.toString());
+
+                mimeType = extension == null ? null : MimeTypeMap.getSingleton()
+                                                                 .getMimeTypeFromExtension(extension);
+            }
+
+            // if it's still unknown or generic then look at content itself
+            if (mimeType == null || MIME_TYPE_OCTET_STREAM.equals(mimeType)) {
+
+                final ImageFormat format = sniffImageFormat(pContext, pUri);
+                if (format != null) {
+                    return format.getMimeType();
+                }
+
+            }
+
+            return mimeType;
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    /**
+     * Recognizes image format by signature in the first few dozen bytes of content, regardless of MIME type reported by content provider
+     *
+     * @param pContext app {@link Context}
+     * @param pUri     uri of content
+     * @return image format or null if content cannot be read or is not an image of one of known formats
+     */
+    @Nullable
+    public static ImageFormat sniffImageFormat(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        InputStream is = null;
+        try {
 
-        // if content resolver fails and it's a file Uri then try guessing by extension
-        if (contentResolverChoice == null && ContentResolver.SCHEME_FILE.equals(pUri.getScheme())) {
+            is = pContext.getContentResolver()
+                         .openInputStream(pUri);
+
+            return is == null ? null : ImageSniffer.sniff(is);
+        } catch (final IOException | SecurityException | IllegalArgumentException | IllegalStateException e) {
+            return null;
+        } finally {
+
+            if (is != null) {
+
+                try {
+                    is.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Reads image format and dimensions from image header without decoding it. Reads at most 256 KiB of content
+     *
+     * @param pContext app {@link Context}
+     * @param pUri     uri of image
+     * @return image header or null if content cannot be read or is not an image of one of known formats
+     * @see #probeImageHeader(Context, Uri, int)
+     */
+    @WorkerThread
+    @Nullable
+    public static ImageHeader probeImageHeader(@NonNull final Context pContext, @NonNull final Uri pUri) {
+        return probeImageHeader(pContext, pUri, ImageHeaderParser.DEFAULT_BYTE_BUDGET);
+    }
+
+    /**
+     * Reads image format and dimensions from image header without decoding it
+     *
+     * @param pContext    app {@link Context}
+     * @param pUri        uri of image
+     * @param pByteBudget max number of bytes to read. JPEG dimensions follow EXIF data, which is usually within 64 KiB
+     * @return image header or null if content cannot be read or is not an image of one of known formats
+     */
+    @WorkerThread
+    @Nullable
+    public static ImageHeader probeImageHeader(@NonNull final Context pContext, @NonNull final Uri pUri, final int pByteBudget) {
+
+        InputStream is = null;
+        try {
+
+            is = pContext.getContentResolver()
+                         .openInputStream(pUri);
+
+            return is == null ? null : ImageHeaderParser.parse(is, pByteBudget);
+        } catch (final IOException | SecurityException | IllegalArgumentException | IllegalStateException e) {
+            return null;
+        } finally {
+
+            if (is != null) {
+
+                try {
+                    is.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Reads EXIF of JPEG image: orientation, capture time, GPS presence and embedded thumbnail location.
+     * Content is read only up to the end of EXIF segment, so it costs a few KB of I/O regardless of image size
+     *
+     * @param pContext app {@link Context}
+     * @param pUri     uri of JPEG image
+     * @return EXIF data or null if content cannot be read, is not a JPEG image or has no EXIF
+     */
+    @WorkerThread
+    @Nullable
+    public static ExifData readExif(@NonNull final Context pContext, @NonNull final Uri pUri) {
+        return readExif(pContext, pUri, false);
+    }
+
+    @WorkerThread
+    @Nullable
+    static ExifData readExif(@NonNull final Context pContext, @NonNull final Uri pUri, final boolean pKeepThumbnail) {
+
+        InputStream is = null;
+        try {
+
+            is = pContext.getContentResolver()
+                         .openInputStream(pUri);
+
+            return is == null ? null : ExifReader.read(is, ExifReader.DEFAULT_BYTE_BUDGET, pKeepThumbnail);
+        } catch (final IOException | SecurityException | IllegalArgumentException | IllegalStateException e) {
+            return null;
+        } finally {
+
+            if (is != null) {
+
+                try {
+                    is.close();
+                } catch (final IOException ignored) {}
 
-            final String extension = MimeTypeMap.getFileExtensionFromUrl(pUri.toString());
+            }
 
-            return extension == null ? null : MimeTypeMap.getSingleton()
-                                                         .getMimeTypeFromExtension(extension);
-        } else {
-            return contentResolverChoice;
         }
 
     }
@@ -54,19 +289,55 @@ public class UriUtils {
      * @param pContext app {@link Context}
      * @param pUri     uri to get MIME type for
      * @return most common file extension for {@link Uri} content or null if cannot determine
+     * @see UriInfo#resolve(Context, Uri)
      */
     public static String getFileExtension(@NonNull final Context pContext, @NonNull final Uri pUri) {
 
-        // first try to get extension from mime type
-        final String mimeType = pContext.getContentResolver()
-                                        .getType(pUri);
+        final Object cached = getCached(pUri, UriMetadataCache.FIELD_EXTENSION);
+        if (cached != UriMetadataCache.MISS) {
+            return (String) cached;
+        }
+
+        final long startNanos = System.nanoTime();
+
+        final String extension = queryFileExtension(pContext, pUri);
+
+        QiPick.recordMetric(PickMetrics.STAGE_METADATA, null, System.nanoTime() - startNanos, 0);
+
+        putCached(pUri, UriMetadataCache.FIELD_EXTENSION, extension);
+
+        return extension;
+    }
+
+    @Nullable
+    private static String queryFileExtension(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_METADATA_QUERY);
+
+        try {
+
+            // first try to get extension from mime type
+            final String mimeType = pContext.getContentResolver()
+                                            .getType(pUri);
+
+            if (mimeType != null && !MIME_TYPE_OCTET_STREAM.equals(mimeType)) {
+                return MimeTypeMap.getSingleton()
+                                  .getExtensionFromMimeType(mimeType);
+            }
 
-        if (mimeType != null) {
-            return MimeTypeMap.getSingleton()
-                              .getExtensionFromMimeType(mimeType);
-        } else {
             // if content resolver fails then try to get it from url
-            return MimeTypeMap.getFileExtensionFromUrl(pUri.toString());
+            final String urlExtension = MimeTypeMap.getFileExtensionFromUrl(pUri.toString());
+            if (!TextUtils.isEmpty(urlExtension)) {
+                return urlExtension;
+            }
+
+            // and finally look at content itself
+            final ImageFormat format = sniffImageFormat(pContext, pUri);
+
+            return format == null ? null : format.getExtension();
+        } finally {
+            tracer.endSection();
         }
 
     }
@@ -79,90 +350,319 @@ public class UriUtils {
      * @param pFile    File to which content will be saved. Caller should have permission to write to it
      * @throws IOException if the provided Uri could not be opened or
      *                     if the provided File could not be opened for writing or if writing operation failed
+     * @see #copyContent(Context, Uri, File)
      */
     @WorkerThread
     public static void saveContentToFile(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final File pFile)
             throws IOException {
+        copyContent(pContext, pUri, pFile, null);
+    }
 
-        FileOutputStream fos = null;
-        InputStream is = null;
+    /**
+     * Same as {@link #saveContentToFile(Context, Uri, File)}, but also returns details of the copy. Strongly recommended to execute in background thread
+     * <br><br>
+     * Content of seekable files is transferred with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * pipes are copied through a buffer sized after content size reported by provider.
+     * Size of seekable files is taken from their descriptor, provider is queried for size of pipes only
+     *
+     * @param pContext app {@link Context}
+     * @param pUri     Uri to get content from
+     * @param pFile    File to which content will be saved. Caller should have permission to write to it
+     * @return {@link CopyResult} describing which copy strategy was used and how many bytes were copied
+     * @throws IOException if the provided Uri could not be opened or
+     *                     if the provided File could not be opened for writing or if writing operation failed
+     */
+    @WorkerThread
+    @NonNull
+    public static CopyResult copyContent(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final File pFile)
+            throws IOException {
+        return copyContent(pContext, pUri, pFile, null);
+    }
+
+    /**
+     * Saves Uri content to app's {@link ImportStore}, unless same content was imported before.
+     * Use instead of {@link #saveContentToFile(Context, Uri, File)} when same images are likely to be picked again.
+     * Strongly recommended to execute in background thread
+     *
+     * @param pContext app {@link Context}
+     * @param pUri     Uri to get content from
+     * @return {@link ImportResult} with the file that holds the content
+     * @throws IOException if the provided Uri could not be opened or if import store could not be written
+     * @see ImportStore#importContent(Uri)
+     */
+    @WorkerThread
+    @NonNull
+    public static ImportResult importContent(@NonNull final Context pContext, @NonNull final Uri pUri)
+            throws IOException {
+        return ImportStore.get(pContext)
+                          .importContent(pUri);
+    }
+
+    @WorkerThread
+    @NonNull
+    static CopyResult copyContent(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final File pFile,
+                                  @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        final long startNanos = System.nanoTime();
+
+        final CopyResult result = copyContentToFile(pContext, pUri, pFile, pCancel);
+
+        QiPick.recordMetric(PickMetrics.STAGE_COPY, null, System.nanoTime() - startNanos, result.getBytesCopied());
+
+        return result;
+    }
+
+    @NonNull
+    private static CopyResult copyContentToFile(@NonNull final Context pContext, @NonNull final Uri pUri, @NonNull final File pFile,
+                                                @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_COPY);
 
         try {
 
-            is = pContext.getContentResolver()
-                         .openInputStream(pUri);
+            final ContentResolver resolver = pContext.getContentResolver();
 
-            if (is != null) {
+            AssetFileDescriptor afd = null;
+            FileInputStream fis = null;
+            FileOutputStream fos = null;
+
+            try {
+
+                afd = resolver.openAssetFileDescriptor(pUri, "r");
+
+                if (afd == null) {
+                    throw new IOException("ContentResolver returned null AssetFileDescriptor for the Uri");
+                }
+
+                AuthorityScheduler.markContentOpened();
 
                 fos = new FileOutputStream(pFile);
 
-                final byte[] buffer = new byte[1024];
-                int len;
-                while ((len = is.read(buffer)) != -1) {
-                    fos.write(buffer, 0, len);
+                // stat size is -1 when descriptor is not a regular file (pipe or socket), those can't be transferred from
+                final long statSize = afd.getParcelFileDescriptor()
+                                         .getStatSize();
+
+                final long start = afd.getStartOffset();
+
+                // descriptor knows the length of regular files, provider is asked only about pipes
+                final long size;
+                if (afd.getLength() != AssetFileDescriptor.UNKNOWN_LENGTH) {
+                    size = afd.getLength();
+                } else if (statSize >= 0) {
+                    size = statSize - start;
+                } else {
+                    size = getReportedSize(resolver, pUri);
                 }
 
-            } else {
-                throw new IOException("ContentResolver returned null InputStream for the File");
-            }
+                if (statSize >= 0 && ContentCopier.useChannelFor(size)) {
 
-        } finally {
+                    fis = new FileInputStream(afd.getFileDescriptor());
 
-            if (is != null) {
+                    final long copied = ContentCopier.copyChannel(fis.getChannel(), start, size, fos.getChannel(), pCancel);
 
-                try {
-                    is.close();
-                } catch (final IOException e) {
-                    // silently ignore
+                    return new CopyResult(CopyStrategy.CHANNEL, copied, size);
+                } else {
+
+                    fis = afd.createInputStream();
+
+                    final long copied = ContentCopier.copyStream(fis, fos, ContentCopier.bufferSizeFor(size), pCancel);
+
+                    return new CopyResult(CopyStrategy.STREAM, copied, size);
                 }
 
-            }
+            } finally {
 
-            if (fos != null) {
+                if (fis != null) {
+
+                    try {
+                        fis.close();
+                    } catch (final IOException e) {
+                        // silently ignore
+                    }
+
+                }
+
+                if (afd != null) {
+
+                    try {
+                        afd.close();
+                    } catch (final IOException e) {
+                        // silently ignore
+                    }
+
+                }
+
+                if (fos != null) {
+
+                    try {
+                        fos.close();
+                    } catch (final IOException e) {
+                        // silently ignore
+                    }
 
-                try {
-                    fos.close();
-                } catch (final IOException e) {
-                    // silently ignore
                 }
 
             }
+        } finally {
+            tracer.endSection();
+        }
+
+    }
+
+    /**
+     * @param pResolver content resolver
+     * @param pUri      uri of content
+     * @return size of content as reported by {@link OpenableColumns#SIZE} or -1 if it's unknown
+     */
+    static long getReportedSize(@NonNull final ContentResolver pResolver, @NonNull final Uri pUri) {
 
+        if (ContentResolver.SCHEME_FILE.equals(pUri.getScheme())) {
+
+            final String path = pUri.getPath();
+
+            return TextUtils.isEmpty(path) ? -1 : new File(path).length();
         }
 
+        if (!ContentResolver.SCHEME_CONTENT.equals(pUri.getScheme())) {
+            return -1;
+        }
+
+        Cursor cursor = null;
+        try {
+
+            cursor = pResolver.query(pUri, new String[]{OpenableColumns.SIZE}, null, null, null);
+
+            if (cursor != null && cursor.moveToFirst()) {
+
+                final int index = cursor.getColumnIndex(OpenableColumns.SIZE);
+
+                return index < 0 || cursor.isNull(index) ? -1 : cursor.getLong(index);
+            }
+
+        } catch (final SecurityException | IllegalArgumentException | IllegalStateException ignored) {
+        } finally {
+
+            if (cursor != null) {
+                cursor.close();
+            }
+
+        }
+
+        return -1;
+    }
+
+    /**
+     * Saves content of multiple Uris to files in given directory, copying up to {@code pParallelism} items at a time on given executor.
+     * Handy for results of {@link PickCallback#onMultipleImagesPicked(int, List)}
+     * <br><br>
+     * Files are named {@code qip_<batch timestamp>_<item index>.<extension>}.
+     * Callback methods are called on executor threads
+     *
+     * @param pContext     app {@link Context}
+     * @param pUris        Uris to get content from
+     * @param pDir         directory to which files will be saved. Caller should have permission to write to it
+     * @param pExecutor    executor to run copy workers on. Should be able to run {@code pParallelism} tasks concurrently
+     * @param pParallelism max number of items copied at the same time
+     * @param pCallback    progress callback
+     * @return {@link BatchCopy} handle that can be used to cancel the batch
+     */
+    @NonNull
+    public static BatchCopy saveContentToFiles(@NonNull final Context pContext, @NonNull final List<Uri> pUris, @NonNull final File pDir,
+                                               @NonNull final Executor pExecutor, final int pParallelism,
+                                               @NonNull final BatchCopyCallback pCallback) {
+
+        final BatchCopy batchCopy = new BatchCopy(pContext, pUris, pDir, pCallback);
+        batchCopy.start(pExecutor, pParallelism);
+
+        return batchCopy;
+    }
+
+    /**
+     * Saves content of multiple Uris to files in given directory. Items are queued per Uri authority on given {@link AuthorityScheduler},
+     * so slow remote providers don't hold back local content in the same batch.
+     * <br><br>
+     * Files are named {@code qip_<batch timestamp>_<item index>.<extension>}.
+     * Callback methods are called on scheduler executor threads
+     *
+     * @param pContext   app {@link Context}
+     * @param pUris      Uris to get content from
+     * @param pDir       directory to which files will be saved. Caller should have permission to write to it
+     * @param pScheduler scheduler to run copies on
+     * @param pCallback  progress callback
+     * @return {@link BatchCopy} handle that can be used to cancel the batch
+     */
+    @NonNull
+    public static BatchCopy saveContentToFiles(@NonNull final Context pContext, @NonNull final List<Uri> pUris, @NonNull final File pDir,
+                                               @NonNull final AuthorityScheduler pScheduler, @NonNull final BatchCopyCallback pCallback) {
+
+        final BatchCopy batchCopy = new BatchCopy(pContext, pUris, pDir, pCallback);
+        batchCopy.start(pScheduler);
+
+        return batchCopy;
     }
 
     /**
      * @param pContext app {@link Context}
      * @param pUri     uri of content that is checked for existence
      * @return true if content specified by given Uri exists
+     * @see UriInfo#resolve(Context, Uri)
      */
     public static boolean contentExists(@NonNull final Context pContext, @NonNull final Uri pUri) {
 
-        final ContentResolver resolver = pContext.getContentResolver();
+        final Object cached = getCached(pUri, UriMetadataCache.FIELD_EXISTS);
+        if (cached != UriMetadataCache.MISS) {
+            return Boolean.TRUE.equals(cached);
+        }
+
+        final long startNanos = System.nanoTime();
+
+        final boolean exists = queryContentExists(pContext, pUri);
+
+        QiPick.recordMetric(PickMetrics.STAGE_METADATA, null, System.nanoTime() - startNanos, 0);
+
+        putCached(pUri, UriMetadataCache.FIELD_EXISTS, exists);
+
+        return exists;
+    }
+
+    private static boolean queryContentExists(@NonNull final Context pContext, @NonNull final Uri pUri) {
+
+        final PickTracer tracer = QiPick.getPickTracer();
+        tracer.beginSection(PickTracer.SECTION_METADATA_QUERY);
 
-        ParcelFileDescriptor pfd = null;
-        boolean exists = false;
         try {
 
-            pfd = resolver.openFileDescriptor(pUri, "r");
+            final ContentResolver resolver = pContext.getContentResolver();
 
-            exists = true;
+            ParcelFileDescriptor pfd = null;
+            boolean exists = false;
+            try {
 
-        } catch (final FileNotFoundException | SecurityException | IllegalArgumentException | IllegalStateException ignored) {
-        } finally {
+                pfd = resolver.openFileDescriptor(pUri, "r");
 
-            if (pfd != null) {
+                exists = true;
 
-                try {
-                    pfd.close();
-                } catch (IOException ignored) {}
+            } catch (final FileNotFoundException | SecurityException | IllegalArgumentException | IllegalStateException ignored) {
+            } finally {
+
+                if (pfd != null) {
+
+                    try {
+                        pfd.close();
+                    } catch (IOException ignored) {}
+
+                }
 
             }
 
+            return exists;
+        } finally {
+            tracer.endSection();
         }
 
-        return exists;
     }
 
     /**
@@ -174,6 +674,11 @@ public class UriUtils {
     public static int deleteContent(@NonNull final Context pContext, @NonNull final Uri pUri)
             throws IllegalArgumentException {
 
+        final UriMetadataCache cache = sMetadataCache;
+        if (cache != null) {
+            cache.invalidate(pUri);
+        }
+
         if (ContentResolver.SCHEME_FILE.equals(pUri.getScheme())) {
 
             final String path = pUri.getPath();
@@ -0,0 +1,140 @@
+package com.aviadmini.quickimagepick;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class LegacyPickStateTest {
+
+    // request code base of versions before v2.2.0
+    private static final int LEGACY_REQ_CODE_BASE = 46211;
+
+    private static final int REQUEST_TYPE = 7;
+
+    private Context mContext;
+    private SharedPreferences mPrefs;
+
+    @Before
+    public void setUp() {
+
+        this.mContext = RuntimeEnvironment.application;
+
+        // state as left by versions before v2.2.0 when process was killed while picker app was open
+        this.mPrefs = PreferenceManager.getDefaultSharedPreferences(this.mContext);
+        this.mPrefs.edit()
+                   .putInt("qip_req_type", REQUEST_TYPE)
+                   .putBoolean("qip_local_content_only", true)
+                   .putString("qip_allowed_mime_type", "image/png")
+                   .commit();
+
+        PickStateStore.resetInstance();
+
+    }
+
+    @After
+    public void tearDown() {
+        PickStateStore.resetInstance();
+    }
+
+    @Test
+    public void legacyStateIsMigratedOnce() {
+
+        final PickState state = PickStateStore.get(this.mContext)
+                                              .get(PickStateStore.LEGACY_SESSION_ID);
+
+        assertNotNull(state);
+        assertEquals(REQUEST_TYPE, state.mRequestType);
+        assertTrue(state.mAllowOnlyLocalContent);
+        assertEquals("image/png", state.mAllowedMimeType);
+
+        assertFalse(this.mPrefs.contains("qip_req_type"));
+        assertFalse(this.mPrefs.contains("qip_local_content_only"));
+        assertFalse(this.mPrefs.contains("qip_allowed_mime_type"));
+
+    }
+
+    @Test
+    public void legacyGalleryResultIsDelivered() {
+
+        PickStateStore.get(this.mContext)
+                      .get(0);
+
+        final Uri uri = Uri.parse("content://com.aviadmini.quickimagepick.test/1/0");
+
+        final RecordingCallback callback = new RecordingCallback();
+
+        assertTrue(QiPick.handleActivityResult(this.mContext, LEGACY_REQ_CODE_BASE + QiPick.REQ_GALLERY, Activity.RESULT_OK,
+                new Intent().setData(uri), callback));
+
+        assertEquals(PickSource.GALLERY, callback.mPickSource);
+        assertEquals(REQUEST_TYPE, callback.mRequestType);
+        assertEquals(uri, callback.mUri);
+
+        // session is consumed
+        assertNull(PickStateStore.get(this.mContext)
+                                 .get(PickStateStore.LEGACY_SESSION_ID));
+
+    }
+
+    // ==== //
+
+    private static final class RecordingCallback
+            implements PickCallback {
+
+        PickSource mPickSource;
+        int mRequestType = -1;
+        Uri mUri;
+
+        @Override
+        public void onImagePicked(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri) {
+
+            this.mPickSource = pPickSource;
+            this.mRequestType = pRequestType;
+            this.mUri = pImageUri;
+
+        }
+
+        @Override
+        public void onMultipleImagesPicked(final int pRequestType, @NonNull final List<Uri> pImageUris) {
+            throw new AssertionError("Unexpected multiple images");
+        }
+
+        @Override
+        public void onError(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final String pErrorString) {
+            throw new AssertionError(pErrorString);
+        }
+
+        @Override
+        public void onCancel(@NonNull final PickSource pPickSource, final int pRequestType) {
+            throw new AssertionError("Unexpected cancel");
+        }
+
+    }
+
+}
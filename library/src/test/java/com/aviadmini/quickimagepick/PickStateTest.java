@@ -0,0 +1,56 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class PickStateTest {
+
+    private static final long LAUNCH_MILLIS = 10 * 60 * 1000L;
+    private static final long LAUNCH_WALL_TIME_MILLIS = 1500000000000L;
+
+    private static final PickState STATE = new PickState(0, false, "image/*", null, null, null).launchedAt(LAUNCH_MILLIS,
+            LAUNCH_WALL_TIME_MILLIS);
+
+    @Test
+    public void launchAgeIsElapsedRealtimeDelta() {
+        assertEquals(5000, STATE.getLaunchAgeMillis(LAUNCH_MILLIS + 5000, LAUNCH_WALL_TIME_MILLIS + 5000));
+    }
+
+    @Test
+    public void launchAgeIgnoresSmallClockAdjustment() {
+        assertEquals(5000, STATE.getLaunchAgeMillis(LAUNCH_MILLIS + 5000, LAUNCH_WALL_TIME_MILLIS + 5000 + 2000));
+    }
+
+    @Test
+    public void launchAgeAfterRebootIsWallClockDelta() {
+
+        // rebooted, elapsed realtime is now below launch time
+        assertEquals(20 * 60 * 1000L, STATE.getLaunchAgeMillis(60 * 1000L, LAUNCH_WALL_TIME_MILLIS + 20 * 60 * 1000L));
+
+        // rebooted, elapsed realtime went past launch time again
+        assertEquals(60 * 60 * 1000L, STATE.getLaunchAgeMillis(LAUNCH_MILLIS + 1000, LAUNCH_WALL_TIME_MILLIS + 60 * 60 * 1000L));
+
+    }
+
+    @Test
+    public void implausibleLaunchAgeIsUnknown() {
+
+        // rebooted and wall clock went back
+        assertEquals(-1, STATE.getLaunchAgeMillis(1000, LAUNCH_WALL_TIME_MILLIS - 1000));
+
+        // rebooted after session max age
+        assertEquals(-1, STATE.getLaunchAgeMillis(1000, LAUNCH_WALL_TIME_MILLIS + PickStateStore.SESSION_MAX_AGE_MILLIS + 1));
+
+    }
+
+    @Test
+    public void notLaunchedStateHasUnknownLaunchAge() {
+        assertEquals(-1, new PickState(0, false, "image/*", null, null, null).getLaunchAgeMillis(LAUNCH_MILLIS, LAUNCH_WALL_TIME_MILLIS));
+    }
+
+}
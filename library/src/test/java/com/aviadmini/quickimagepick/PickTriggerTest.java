@@ -0,0 +1,217 @@
+package com.aviadmini.quickimagepick;
+
+import android.app.Activity;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowActivity;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class PickTriggerTest {
+
+    private static final ComponentName PICKER = new ComponentName("com.aviadmini.quickimagepick.picker", "com.aviadmini.quickimagepick.picker.Picker");
+
+    // intents, state and chooser of a warm pick, heap use must not grow with number of picks made before
+    private static final long MAX_PICK_ALLOCATED_BYTES = 64 * 1024;
+
+    private Activity mActivity;
+    private CountingTracer mTracer;
+
+    @Before
+    public void setUp()
+            throws PackageManager.NameNotFoundException, IntentFilter.MalformedMimeTypeException {
+
+        PickStateStore.resetInstance();
+        CameraOutputAllocator.resetInstance();
+        IntentResolutionCache.resetInstance();
+
+        this.mActivity = Robolectric.buildActivity(Activity.class)
+                                    .setup()
+                                    .get();
+
+        // picker app that handles gallery and documents intents
+        final ShadowPackageManager packageManager = Shadow.extract(this.mActivity.getPackageManager());
+        packageManager.addActivityIfNotPresent(PICKER);
+
+        final IntentFilter galleryFilter = new IntentFilter(Intent.ACTION_PICK);
+        galleryFilter.addDataType(QiPick.MIME_TYPE_IMAGES_ALL);
+        packageManager.addIntentFilterForActivity(PICKER, galleryFilter);
+
+        final IntentFilter documentsFilter = new IntentFilter(Intent.ACTION_GET_CONTENT);
+        documentsFilter.addCategory(Intent.CATEGORY_OPENABLE);
+        documentsFilter.addDataType(QiPick.MIME_TYPE_IMAGES_ALL);
+        packageManager.addIntentFilterForActivity(PICKER, documentsFilter);
+
+        // state file is read once per process, it's not what is counted
+        PickStateStore.get(this.mActivity)
+                      .get(0);
+
+        this.mTracer = new CountingTracer();
+        QiPick.setPickTracer(this.mTracer);
+
+    }
+
+    @After
+    public void tearDown() {
+
+        QiPick.setPickTracer(null);
+
+        PickStateStore.resetInstance();
+        CameraOutputAllocator.resetInstance();
+        IntentResolutionCache.resetInstance();
+
+    }
+
+    @Test
+    public void multipleSourcesPickResolvesIntentsOnceAndWritesStateOncePerPick()
+            throws InterruptedException {
+
+        final int pickCount = 5;
+
+        final ShadowActivity activity = Shadow.extract(this.mActivity);
+
+        for (int i = 0; i < pickCount; i++) {
+
+            final long allocatedBefore = allocatedBytes();
+
+            assertEquals(PickTriggerResult.TRIGGER_PICK_OK, QiPick.in(this.mActivity)
+                                                                  .fromMultipleSources("", PickSource.GALLERY, PickSource.DOCUMENTS));
+
+            final long allocated = allocatedBytes() - allocatedBefore;
+
+            // a query per source on first pick, cached afterwards
+            assertEquals(2, this.mTracer.getCount(PickTracer.SECTION_INTENT_RESOLUTION));
+
+            final Intent chooser = activity.getNextStartedActivityForResult().intent;
+            assertNotNull(chooser);
+            assertEquals(Intent.ACTION_CHOOSER, chooser.getAction());
+
+            // first pick loads classes, it's not what is measured
+            if (i > 0) {
+                assertTrue("pick " + i + " allocated " + allocated + " bytes", allocated < MAX_PICK_ALLOCATED_BYTES);
+            }
+
+        }
+
+        // every pick schedules a single write of its session
+        assertTrue(this.mTracer.awaitCount(PickTracer.SECTION_STATE_PERSISTENCE, pickCount, 5000));
+        assertEquals(pickCount, this.mTracer.getCount(PickTracer.SECTION_STATE_PERSISTENCE));
+
+    }
+
+    @Test
+    public void packageChangeResolvesIntentsAgain() {
+
+        assertEquals(PickTriggerResult.TRIGGER_PICK_OK, QiPick.in(this.mActivity)
+                                                              .fromMultipleSources("", PickSource.GALLERY, PickSource.DOCUMENTS));
+
+        assertEquals(2, this.mTracer.getCount(PickTracer.SECTION_INTENT_RESOLUTION));
+
+        this.mActivity.sendBroadcast(new Intent(Intent.ACTION_PACKAGE_ADDED).setData(Uri.parse("package:" + PICKER.getPackageName())));
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(PickTriggerResult.TRIGGER_PICK_OK, QiPick.in(this.mActivity)
+                                                              .fromMultipleSources("", PickSource.GALLERY, PickSource.DOCUMENTS));
+
+        assertEquals(4, this.mTracer.getCount(PickTracer.SECTION_INTENT_RESOLUTION));
+
+    }
+
+    // ==== //
+
+    /**
+     * @return bytes allocated on heap by current thread so far
+     */
+    private static long allocatedBytes() {
+
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread()
+                                                          .getId());
+    }
+
+    private static final class CountingTracer
+            implements PickTracer {
+
+        private final ConcurrentMap<String, AtomicInteger> mCounts = new ConcurrentHashMap<>();
+
+        @Override
+        public void beginSection(@NonNull final String pSectionName) {
+
+            AtomicInteger count = this.mCounts.get(pSectionName);
+            if (count == null) {
+
+                this.mCounts.putIfAbsent(pSectionName, new AtomicInteger());
+
+                count = this.mCounts.get(pSectionName);
+
+            }
+
+            count.incrementAndGet();
+
+        }
+
+        @Override
+        public void endSection() {}
+
+        int getCount(@NonNull final String pSectionName) {
+
+            final AtomicInteger count = this.mCounts.get(pSectionName);
+
+            return count == null ? 0 : count.get();
+        }
+
+        /**
+         * @return true if given section was begun at least given number of times before timeout
+         */
+        boolean awaitCount(@NonNull final String pSectionName, final int pCount, final long pTimeoutMillis)
+                throws InterruptedException {
+
+            final long deadline = System.currentTimeMillis() + pTimeoutMillis;
+
+            while (this.getCount(pSectionName) < pCount) {
+
+                if (System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+
+                Thread.sleep(10);
+
+            }
+
+            return true;
+        }
+
+    }
+
+}
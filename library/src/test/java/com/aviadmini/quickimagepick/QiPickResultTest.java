@@ -0,0 +1,149 @@
+package com.aviadmini.quickimagepick;
+
+import android.app.Activity;
+import android.content.ClipData;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class QiPickResultTest {
+
+    private static final int CONTENT_SIZE = 4 * 1024 * 1024;
+
+    private Context mContext;
+    private SyntheticContentProvider mProvider;
+    private RecordingCallback mCallback;
+
+    @Before
+    public void setUp() {
+
+        this.mContext = RuntimeEnvironment.application;
+
+        this.mProvider = Robolectric.buildContentProvider(SyntheticContentProvider.class)
+                                    .create(SyntheticContentProvider.AUTHORITY)
+                                    .get();
+
+        this.mCallback = new RecordingCallback();
+
+        PickStateStore.resetInstance();
+        CameraOutputAllocator.resetInstance();
+
+        // warm state, so results are handled on calling thread instead of result executor
+        PickStateStore.get(this.mContext)
+                      .get(0);
+
+    }
+
+    @After
+    public void tearDown() {
+
+        PickStateStore.resetInstance();
+        CameraOutputAllocator.resetInstance();
+
+    }
+
+    @Test
+    public void galleryPickMakesNoProviderCalls() {
+
+        final Uri uri = SyntheticContentProvider.uri(CONTENT_SIZE, 0);
+
+        final boolean handled = QiPick.handleActivityResult(this.mContext, QiPick.requestCode(QiPick.REQ_GALLERY, 0), Activity.RESULT_OK,
+                new Intent().setData(uri), this.mCallback);
+
+        assertTrue(handled);
+        assertEquals(1, this.mCallback.mUris.size());
+        assertEquals(uri, this.mCallback.mUris.get(0));
+
+        // Uri is handed over as is, provider is not touched on main thread
+        assertEquals(0, this.mProvider.getCallCount());
+
+    }
+
+    @Test
+    public void multipleDocumentsPickMakesNoProviderCalls() {
+
+        final int itemCount = 20;
+
+        final ClipData clipData = ClipData.newRawUri(null, SyntheticContentProvider.uri(CONTENT_SIZE, 0));
+        for (int i = 1; i < itemCount; i++) {
+            clipData.addItem(new ClipData.Item(SyntheticContentProvider.uri(CONTENT_SIZE, i)));
+        }
+
+        final Intent data = new Intent();
+        data.setClipData(clipData);
+
+        assertTrue(QiPick.handleActivityResult(this.mContext, QiPick.requestCode(QiPick.REQ_DOCUMENTS, 0), Activity.RESULT_OK, data,
+                this.mCallback));
+
+        assertEquals(itemCount, this.mCallback.mUris.size());
+
+        // no call per item regardless of batch size
+        assertEquals(0, this.mProvider.getCallCount());
+
+    }
+
+    @Test
+    public void cancelledPickMakesNoProviderCalls() {
+
+        assertTrue(QiPick.handleActivityResult(this.mContext, QiPick.requestCode(QiPick.REQ_GALLERY, 0), Activity.RESULT_CANCELED, null,
+                this.mCallback));
+
+        assertEquals(1, this.mCallback.mCancelCount);
+        assertEquals(0, this.mProvider.getCallCount());
+
+    }
+
+    // ==== //
+
+    private static final class RecordingCallback
+            implements PickCallback {
+
+        final List<Uri> mUris = new ArrayList<>();
+
+        int mCancelCount = 0;
+
+        @Override
+        public void onImagePicked(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final Uri pImageUri) {
+            this.mUris.add(pImageUri);
+        }
+
+        @Override
+        public void onMultipleImagesPicked(final int pRequestType, @NonNull final List<Uri> pImageUris) {
+            this.mUris.addAll(pImageUris);
+        }
+
+        @Override
+        public void onError(@NonNull final PickSource pPickSource, final int pRequestType, @NonNull final String pErrorString) {
+            throw new AssertionError(pErrorString);
+        }
+
+        @Override
+        public void onCancel(@NonNull final PickSource pPickSource, final int pRequestType) {
+            this.mCancelCount++;
+        }
+
+    }
+
+}
@@ -0,0 +1,295 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content provider that serves generated JPEG-like content of any size and counts calls made to it.
+ * <br><br>
+ * Uris look like {@code content://<authority>/<size>/<index>}. Content is a file in cache directory, bytes read from its descriptor are counted
+ * when descriptor is closed
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class SyntheticContentProvider
+        extends ContentProvider {
+
+    static final String AUTHORITY = "com.aviadmini.quickimagepick.test";
+
+    // SOI, APP0 JFIF, SOF0 4000x3000
+    private static final byte[] JPEG_HEADER = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0,
+            1, 0, 0, (byte) 0xFF, (byte) 0xC0, 0, 17, 8, 0x0B, (byte) 0xB8, 0x0F, (byte) 0xA0, 3, 1, 0x22, 0, 2, 0x11, 1, 3, 0x11, 1};
+
+    private final AtomicInteger mQueryCount = new AtomicInteger();
+    private final AtomicInteger mGetTypeCount = new AtomicInteger();
+    private final AtomicInteger mOpenFileCount = new AtomicInteger();
+    private final AtomicLong mBytesRead = new AtomicLong();
+
+    private volatile String mMimeType = "image/jpeg";
+    private volatile long mLatencyMillis = 0;
+
+    // ==== URIS ==== //
+
+    static Uri uri(final int pSize, final int pIndex) {
+        return new Uri.Builder().scheme("content")
+                                .authority(AUTHORITY)
+                                .appendPath(String.valueOf(pSize))
+                                .appendPath(String.valueOf(pIndex))
+                                .build();
+    }
+
+    /**
+     * @param pSize content size
+     * @return content served for Uris of given size
+     */
+    static byte[] content(final int pSize) {
+
+        final byte[] content = new byte[pSize];
+
+        for (int i = 0; i < pSize; i++) {
+            content[i] = i < JPEG_HEADER.length ? JPEG_HEADER[i] : (byte) (i * 31 + (i >>> 8));
+        }
+
+        return content;
+    }
+
+    // ==== CONFIG ==== //
+
+    void setMimeType(@Nullable final String pMimeType) {
+        this.mMimeType = pMimeType;
+    }
+
+    /**
+     * @param pLatencyMillis delay of every call to simulate slow remote provider
+     */
+    void setLatencyMillis(final long pLatencyMillis) {
+        this.mLatencyMillis = pLatencyMillis;
+    }
+
+    // ==== COUNTERS ==== //
+
+    int getQueryCount() {
+        return this.mQueryCount.get();
+    }
+
+    int getGetTypeCount() {
+        return this.mGetTypeCount.get();
+    }
+
+    int getOpenFileCount() {
+        return this.mOpenFileCount.get();
+    }
+
+    int getCallCount() {
+        return this.getQueryCount() + this.getGetTypeCount() + this.getOpenFileCount();
+    }
+
+    void resetCounters() {
+
+        this.mQueryCount.set(0);
+        this.mGetTypeCount.set(0);
+        this.mOpenFileCount.set(0);
+        this.mBytesRead.set(0);
+
+    }
+
+    /**
+     * @return number of bytes read from closed descriptors, i.e. their positions when closed
+     */
+    long getBytesRead() {
+        return this.mBytesRead.get();
+    }
+
+    // ==== PROVIDER ==== //
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull final Uri pUri, @Nullable final String[] pProjection, @Nullable final String pSelection,
+                        @Nullable final String[] pSelectionArgs, @Nullable final String pSortOrder) {
+
+        this.mQueryCount.incrementAndGet();
+        this.simulateLatency();
+
+        final String[] projection = pProjection == null ? new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE} : pProjection;
+
+        final Object[] row = new Object[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+
+            if (OpenableColumns.SIZE.equals(projection[i])) {
+                row[i] = sizeOf(pUri);
+            } else if (OpenableColumns.DISPLAY_NAME.equals(projection[i])) {
+                row[i] = pUri.getLastPathSegment() + ".jpg";
+            }
+
+        }
+
+        final MatrixCursor cursor = new MatrixCursor(projection, 1);
+        cursor.addRow(row);
+
+        return cursor;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull final Uri pUri) {
+
+        this.mGetTypeCount.incrementAndGet();
+        this.simulateLatency();
+
+        return this.mMimeType;
+    }
+
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull final Uri pUri, @NonNull final String pMode)
+            throws FileNotFoundException {
+
+        this.mOpenFileCount.incrementAndGet();
+        this.simulateLatency();
+
+        final ParcelFileDescriptor pfd = ParcelFileDescriptor.open(this.fileOf(sizeOf(pUri)), ParcelFileDescriptor.MODE_READ_ONLY);
+
+        // closed along with the descriptor, whichever stream or descriptor the reader closes
+        new PositionRecorder(pfd.getFileDescriptor());
+
+        return pfd;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull final Uri pUri, @Nullable final ContentValues pValues) {
+        return null;
+    }
+
+    @Override
+    public int update(@NonNull final Uri pUri, @Nullable final ContentValues pValues, @Nullable final String pSelection,
+                      @Nullable final String[] pSelectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int delete(@NonNull final Uri pUri, @Nullable final String pSelection, @Nullable final String[] pSelectionArgs) {
+        return 0;
+    }
+
+    // ==== //
+
+    private void simulateLatency() {
+
+        final long latency = this.mLatencyMillis;
+        if (latency <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(latency);
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+
+    }
+
+    private static int sizeOf(@NonNull final Uri pUri)
+            throws IllegalArgumentException {
+        return Integer.parseInt(pUri.getPathSegments()
+                                    .get(0));
+    }
+
+    private synchronized File fileOf(final int pSize)
+            throws FileNotFoundException {
+
+        //noinspection ConstantConditions
+        final File file = new File(this.getContext()
+                                       .getCacheDir(), "synthetic_" + pSize);
+
+        if (file.length() == pSize) {
+            return file;
+        }
+
+        FileOutputStream out = null;
+        try {
+
+            out = new FileOutputStream(file);
+            out.write(content(pSize));
+
+            return file;
+        } catch (final IOException e) {
+            throw new FileNotFoundException(e.getMessage());
+        } finally {
+
+            if (out != null) {
+
+                try {
+                    out.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+    // ==== //
+
+    /**
+     * Stream attached to served descriptor. Closing the descriptor closes all streams attached to it before the descriptor itself,
+     * so this reads its position while it is still open
+     */
+    private final class PositionRecorder
+            extends FileInputStream {
+
+        private boolean mRecorded = false;
+
+        PositionRecorder(@NonNull final FileDescriptor pFd) {
+            super(pFd);
+        }
+
+        @Override
+        public void close()
+                throws IOException {
+
+            synchronized (this) {
+
+                if (!this.mRecorded) {
+
+                    this.mRecorded = true;
+
+                    try {
+                        SyntheticContentProvider.this.mBytesRead.addAndGet(this.getChannel()
+                                                                               .position());
+                    } catch (final IOException ignored) {}
+
+                }
+
+            }
+
+            super.close();
+
+        }
+
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.aviadmini.quickimagepick;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.webkit.MimeTypeMap;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowMimeTypeMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 25)
+public class UriUtilsProviderTest {
+
+    private static final int LARGE_SIZE = 8 * 1024 * 1024;
+    private static final int SMALL_SIZE = 16 * 1024;
+
+    // copy moves content through channels or a bounded buffer, heap use must not grow with content size
+    private static final long MAX_COPY_ALLOCATED_BYTES = 64 * 1024;
+
+    // probe reads a few dozen bytes, heap use must not grow with content size
+    private static final long MAX_PROBE_ALLOCATED_BYTES = 64 * 1024;
+
+    private Context mContext;
+    private SyntheticContentProvider mProvider;
+    private File mDir;
+
+    @Before
+    public void setUp() {
+
+        this.mContext = RuntimeEnvironment.application;
+
+        this.mProvider = Robolectric.buildContentProvider(SyntheticContentProvider.class)
+                                    .create(SyntheticContentProvider.AUTHORITY)
+                                    .get();
+
+        final ShadowMimeTypeMap mimeTypeMap = Shadow.extract(MimeTypeMap.getSingleton());
+        mimeTypeMap.addExtensionMimeTypMapping("jpg", "image/jpeg");
+
+        this.mDir = new File(this.mContext.getCacheDir(), "copies");
+
+        //noinspection ResultOfMethodCallIgnored
+        this.mDir.mkdirs();
+
+        UriUtils.setMetadataCache(new UriMetadataCache(64, 60000));
+
+    }
+
+    @After
+    public void tearDown() {
+
+        UriUtils.setMetadataCache(null);
+
+        final File[] files = this.mDir.listFiles();
+        if (files != null) {
+
+            for (final File file : files) {
+
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+
+            }
+
+        }
+
+    }
+
+    // ==== COPY ==== //
+
+    @Test
+    public void copiesLargeContentThroughChannelWithSingleOpen()
+            throws IOException {
+
+        // first copy loads classes, it's not what is measured
+        UriUtils.copyContent(this.mContext, SyntheticContentProvider.uri(LARGE_SIZE, 1), new File(this.mDir, "warm.jpg"));
+
+        this.mProvider.resetCounters();
+
+        final File target = new File(this.mDir, "large.jpg");
+
+        final long allocatedBefore = allocatedBytes();
+
+        final CopyResult result = UriUtils.copyContent(this.mContext, SyntheticContentProvider.uri(LARGE_SIZE, 0), target);
+
+        final long allocated = allocatedBytes() - allocatedBefore;
+
+        assertEquals(CopyStrategy.CHANNEL, result.getStrategy());
+        assertEquals(LARGE_SIZE, result.getBytesCopied());
+        assertArrayEquals(SyntheticContentProvider.content(LARGE_SIZE), read(target));
+
+        // size comes from descriptor, provider is not queried
+        assertEquals(1, this.mProvider.getOpenFileCount());
+        assertEquals(0, this.mProvider.getQueryCount());
+        assertEquals(0, this.mProvider.getGetTypeCount());
+
+        assertTrue("copy allocated " + allocated + " bytes", allocated < MAX_COPY_ALLOCATED_BYTES);
+
+    }
+
+    @Test
+    public void copiesSmallContentThroughStreamWithSingleOpen()
+            throws IOException {
+
+        final File target = new File(this.mDir, "small.jpg");
+
+        final CopyResult result = UriUtils.copyContent(this.mContext, SyntheticContentProvider.uri(SMALL_SIZE, 0), target);
+
+        assertEquals(CopyStrategy.STREAM, result.getStrategy());
+        assertEquals(SMALL_SIZE, result.getBytesCopied());
+        assertArrayEquals(SyntheticContentProvider.content(SMALL_SIZE), read(target));
+
+        assertEquals(1, this.mProvider.getOpenFileCount());
+        assertEquals(0, this.mProvider.getQueryCount());
+        assertEquals(0, this.mProvider.getGetTypeCount());
+
+    }
+
+    // ==== METADATA ==== //
+
+    @Test
+    public void knownTypeCostsOneCallAndIsCached() {
+
+        final Uri uri = SyntheticContentProvider.uri(LARGE_SIZE, 0);
+
+        assertEquals("image/jpeg", UriUtils.getMimeType(this.mContext, uri));
+        assertEquals("image/jpeg", UriUtils.getMimeType(this.mContext, uri));
+        assertEquals("jpg", UriUtils.getFileExtension(this.mContext, uri));
+        assertEquals("jpg", UriUtils.getFileExtension(this.mContext, uri));
+
+        // one type query per property, content is never opened
+        assertEquals(2, this.mProvider.getGetTypeCount());
+        assertEquals(0, this.mProvider.getOpenFileCount());
+        assertEquals(0, this.mProvider.getQueryCount());
+
+    }
+
+    @Test
+    public void genericTypeIsSniffedFromProbe() {
+
+        this.mProvider.setMimeType(UriUtils.MIME_TYPE_OCTET_STREAM);
+
+        // first probe loads classes, it's not what is measured
+        assertEquals(ImageFormat.JPEG.getMimeType(), UriUtils.getMimeType(this.mContext, SyntheticContentProvider.uri(LARGE_SIZE, 1)));
+
+        this.mProvider.resetCounters();
+
+        final Uri uri = SyntheticContentProvider.uri(LARGE_SIZE, 0);
+
+        final long allocatedBefore = allocatedBytes();
+
+        assertEquals(ImageFormat.JPEG.getMimeType(), UriUtils.getMimeType(this.mContext, uri));
+
+        final long allocated = allocatedBytes() - allocatedBefore;
+
+        assertEquals(ImageFormat.JPEG.getMimeType(), UriUtils.getMimeType(this.mContext, uri));
+
+        assertEquals(1, this.mProvider.getGetTypeCount());
+        assertEquals(1, this.mProvider.getOpenFileCount());
+
+        // probe of a 8 MiB content must not read it through
+        assertTrue("probe read " + this.mProvider.getBytesRead() + " bytes", this.mProvider.getBytesRead() <= ImageSniffer.PROBE_SIZE);
+
+        assertTrue("probe allocated " + allocated + " bytes", allocated < MAX_PROBE_ALLOCATED_BYTES);
+
+    }
+
+    @Test
+    public void extensionOfGenericTypeIsSniffedFromProbe() {
+
+        this.mProvider.setMimeType(UriUtils.MIME_TYPE_OCTET_STREAM);
+
+        final Uri uri = SyntheticContentProvider.uri(LARGE_SIZE, 1);
+
+        assertEquals(ImageFormat.JPEG.getExtension(), UriUtils.getFileExtension(this.mContext, uri));
+        assertEquals(ImageFormat.JPEG.getExtension(), UriUtils.getFileExtension(this.mContext, uri));
+
+        assertEquals(1, this.mProvider.getGetTypeCount());
+        assertEquals(1, this.mProvider.getOpenFileCount());
+        assertTrue("probe read " + this.mProvider.getBytesRead() + " bytes", this.mProvider.getBytesRead() <= ImageSniffer.PROBE_SIZE);
+
+    }
+
+    // ==== BATCH ==== //
+
+    @Test
+    public void batchOverlapsSlowProvider()
+            throws InterruptedException {
+
+        final int itemCount = 8;
+        final int parallelism = 4;
+        final long latencyMillis = 100;
+
+        this.mProvider.setLatencyMillis(latencyMillis);
+
+        final List<Uri> uris = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            uris.add(SyntheticContentProvider.uri(256 * 1024, i));
+        }
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<BatchCopyStats> stats = new AtomicReference<>();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+
+            final long startMillis = System.currentTimeMillis();
+
+            UriUtils.saveContentToFiles(this.mContext, uris, this.mDir, executor, parallelism, new BatchCopyCallback() {
+
+                @Override
+                public void onItemCopied(final int pIndex, @NonNull final Uri pUri, @NonNull final File pFile, @NonNull final CopyResult pResult) {}
+
+                @Override
+                public void onItemFailed(final int pIndex, @NonNull final Uri pUri, @NonNull final IOException pException) {}
+
+                @Override
+                public void onBatchFinished(@NonNull final BatchCopyStats pStats) {
+
+                    stats.set(pStats);
+
+                    latch.countDown();
+
+                }
+
+            });
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            final long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+            assertNotNull(stats.get());
+            assertEquals(itemCount, stats.get()
+                                         .getCopiedCount());
+
+            // type query and open per item, nothing else
+            assertEquals(itemCount, this.mProvider.getGetTypeCount());
+            assertEquals(itemCount, this.mProvider.getOpenFileCount());
+            assertEquals(0, this.mProvider.getQueryCount());
+
+            // serial copy takes at least itemCount * 2 * latency
+            assertTrue("batch took " + elapsedMillis + " ms", elapsedMillis < itemCount * 2 * latencyMillis * 2 / 3);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+    }
+
+    // ==== //
+
+    /**
+     * @return bytes allocated on heap by current thread so far
+     */
+    private static long allocatedBytes() {
+
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread()
+                                                          .getId());
+    }
+
+    private static byte[] read(@NonNull final File pFile)
+            throws IOException {
+
+        final FileInputStream in = new FileInputStream(pFile);
+        try {
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream((int) pFile.length());
+            ContentCopier.copyStream(in, out, ContentCopier.DEFAULT_BUFFER_SIZE, null);
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+
+    }
+
+}
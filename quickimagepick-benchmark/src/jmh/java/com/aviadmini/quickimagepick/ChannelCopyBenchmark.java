@@ -0,0 +1,121 @@
+package com.aviadmini.quickimagepick;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Channel copy: {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} between files,
+ * which {@code UriUtils.saveContentToFile} uses for seekable content, and copy from a non-seekable channel through a direct buffer
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChannelCopyBenchmark {
+
+    // 100 KB, 1 MB, 10 MB, 50 MB
+    @Param({"102400", "1048576", "10485760", "52428800"})
+    public int contentSize;
+
+    private byte[] mContent;
+
+    private File mSourceFile;
+    private File mTargetFile;
+
+    private ByteBuffer mBuffer;
+
+    @Setup
+    public void setUp()
+            throws IOException {
+
+        this.mContent = SyntheticContent.bytes(this.contentSize);
+
+        this.mSourceFile = SyntheticContent.tempFile(this.mContent);
+        this.mTargetFile = SyntheticContent.tempFile();
+
+        this.mBuffer = ByteBuffer.allocateDirect(ContentCopier.bufferSizeFor(this.contentSize));
+
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        //noinspection ResultOfMethodCallIgnored
+        this.mSourceFile.delete();
+
+        //noinspection ResultOfMethodCallIgnored
+        this.mTargetFile.delete();
+
+    }
+
+    @Benchmark
+    public long transferFileToFile()
+            throws IOException {
+
+        final FileInputStream fis = new FileInputStream(this.mSourceFile);
+        FileOutputStream fos = null;
+        try {
+
+            fos = new FileOutputStream(this.mTargetFile);
+
+            return ContentCopier.copyChannel(fis.getChannel(), 0, -1, fos.getChannel(), null);
+        } finally {
+
+            try {
+                fis.close();
+            } catch (final IOException ignored) {}
+
+            if (fos != null) {
+
+                try {
+                    fos.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+    @Benchmark
+    public long copyMemoryChannelToFile()
+            throws IOException {
+
+        final FileOutputStream fos = new FileOutputStream(this.mTargetFile);
+        try {
+            return ContentCopier.copyChannel(Channels.newChannel(new ByteArrayInputStream(this.mContent)), fos.getChannel(), this.mBuffer, null);
+        } finally {
+
+            try {
+                fos.close();
+            } catch (final IOException ignored) {}
+
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.aviadmini.quickimagepick;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-based MIME type and extension lookup and header probe, which {@code UriUtils} falls back to when provider doesn't know the type,
+ * for a single picked item and for a 500-item multiple pick result. Every item has its own content, so caches don't help
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FormatLookupBenchmark {
+
+    private static final int CONTENT_SIZE = SyntheticContent.JPEG_EXIF_SIZE + 1024;
+
+    @Param({SyntheticContent.JPEG, SyntheticContent.PNG, SyntheticContent.WEBP, SyntheticContent.HEIC, SyntheticContent.UNKNOWN})
+    public String format;
+
+    @Param({"1", "500"})
+    public int itemCount;
+
+    private byte[][] mItems;
+
+    private ByteBuffer[] mBuffers;
+
+    @Setup
+    public void setUp() {
+
+        this.mItems = new byte[this.itemCount][];
+        this.mBuffers = new ByteBuffer[this.itemCount];
+
+        for (int i = 0; i < this.itemCount; i++) {
+
+            this.mItems[i] = SyntheticContent.image(this.format, CONTENT_SIZE);
+
+            this.mBuffers[i] = ByteBuffer.wrap(this.mItems[i]);
+
+        }
+
+    }
+
+    @Benchmark
+    public void mimeTypeFromStream(final Blackhole pBlackhole)
+            throws IOException {
+
+        for (final byte[] item : this.mItems) {
+
+            final ImageFormat format = ImageSniffer.sniff(new ByteArrayInputStream(item));
+
+            pBlackhole.consume(format == null ? null : format.getMimeType());
+
+        }
+
+    }
+
+    @Benchmark
+    public void extensionFromBuffer(final Blackhole pBlackhole) {
+
+        for (final ByteBuffer buffer : this.mBuffers) {
+
+            final ImageFormat format = ImageSniffer.sniff(buffer);
+
+            pBlackhole.consume(format == null ? null : format.getExtension());
+
+        }
+
+    }
+
+    @Benchmark
+    public void probeHeader(final Blackhole pBlackhole)
+            throws IOException {
+
+        for (final byte[] item : this.mItems) {
+            pBlackhole.consume(ImageHeaderParser.parse(new ByteArrayInputStream(item), ImageHeaderParser.DEFAULT_BYTE_BUDGET));
+        }
+
+    }
+
+}
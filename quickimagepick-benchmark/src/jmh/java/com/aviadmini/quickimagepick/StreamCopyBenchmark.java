@@ -0,0 +1,124 @@
+package com.aviadmini.quickimagepick;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered stream copy used by {@code UriUtils.saveContentToFile} for pipes and small content,
+ * from an in-memory source to a discarding sink and from a file to a file
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamCopyBenchmark {
+
+    private static final String SOURCE_MEMORY = "memory";
+    private static final String SOURCE_DISK   = "disk";
+
+    // 100 KB, 1 MB, 10 MB, 50 MB
+    @Param({"102400", "1048576", "10485760", "52428800"})
+    public int contentSize;
+
+    // 0 is buffer size picked by ContentCopier for content size
+    @Param({"8192", "65536", "262144", "0"})
+    public int bufferSize;
+
+    @Param({SOURCE_MEMORY, SOURCE_DISK})
+    public String source;
+
+    private byte[] mContent;
+
+    private File mSourceFile;
+    private File mTargetFile;
+
+    private int mBufferSize;
+
+    @Setup
+    public void setUp()
+            throws IOException {
+
+        this.mContent = SyntheticContent.bytes(this.contentSize);
+
+        if (SOURCE_DISK.equals(this.source)) {
+
+            this.mSourceFile = SyntheticContent.tempFile(this.mContent);
+            this.mTargetFile = SyntheticContent.tempFile();
+
+        }
+
+        this.mBufferSize = this.bufferSize == 0 ? ContentCopier.bufferSizeFor(this.contentSize) : this.bufferSize;
+
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        if (this.mSourceFile != null) {
+
+            //noinspection ResultOfMethodCallIgnored
+            this.mSourceFile.delete();
+
+            //noinspection ResultOfMethodCallIgnored
+            this.mTargetFile.delete();
+
+        }
+
+    }
+
+    @Benchmark
+    public long copyStream()
+            throws IOException {
+
+        final boolean memory = this.mSourceFile == null;
+
+        final InputStream is = memory ? new ByteArrayInputStream(this.mContent) : new FileInputStream(this.mSourceFile);
+        OutputStream os = null;
+        try {
+
+            os = memory ? SyntheticContent.NULL_OUTPUT : new FileOutputStream(this.mTargetFile);
+
+            return ContentCopier.copyStream(is, os, this.mBufferSize, null);
+        } finally {
+
+            try {
+                is.close();
+            } catch (final IOException ignored) {}
+
+            if (os != null) {
+
+                try {
+                    os.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+    }
+
+}
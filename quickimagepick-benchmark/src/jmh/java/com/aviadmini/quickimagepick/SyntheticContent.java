@@ -0,0 +1,165 @@
+package com.aviadmini.quickimagepick;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic content for benchmarks: incompressible bytes behind a valid header of given format
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class SyntheticContent {
+
+    /**
+     * Header formats accepted by {@link #image(String, int)}, {@code UNKNOWN} is content without a recognizable signature
+     */
+    static final String JPEG    = "JPEG";
+    static final String PNG     = "PNG";
+    static final String WEBP    = "WEBP";
+    static final String HEIC    = "HEIC";
+    static final String UNKNOWN = "UNKNOWN";
+
+    /**
+     * Size of EXIF segment that precedes frame header of synthetic JPEG, typical for camera pictures with a thumbnail
+     */
+    static final int JPEG_EXIF_SIZE = 32 * 1024;
+
+    /**
+     * Output stream that discards everything, used as copy target when only reading side is measured
+     */
+    static final OutputStream NULL_OUTPUT = new OutputStream() {
+
+        @Override
+        public void write(final int pByte) {}
+
+        @Override
+        public void write(final byte[] pBuffer, final int pOffset, final int pLength) {}
+
+    };
+
+    private static final int WIDTH  = 4032;
+    private static final int HEIGHT = 3024;
+
+    private SyntheticContent() {}
+
+    /**
+     * @param pSize content size
+     * @return random bytes, same for same size
+     */
+    static byte[] bytes(final int pSize) {
+
+        final byte[] content = new byte[pSize];
+
+        new Random(pSize).nextBytes(content);
+
+        return content;
+    }
+
+    /**
+     * @param pFormat one of format constants
+     * @param pSize   content size, at least {@link #JPEG_EXIF_SIZE} + 64
+     * @return content of given size that starts with header of given format
+     */
+    static byte[] image(final String pFormat, final int pSize) {
+
+        final byte[] content = bytes(pSize);
+
+        if (JPEG.equals(pFormat)) {
+
+            int offset = 0;
+
+            // SOI, then APP1 with Exif identifier and zeros
+            offset = put(content, offset, 0xFF, 0xD8, 0xFF, 0xE1, JPEG_EXIF_SIZE >> 8 & 0xFF, JPEG_EXIF_SIZE & 0xFF, 'E', 'x', 'i', 'f', 0, 0);
+            Arrays.fill(content, offset, 4 + JPEG_EXIF_SIZE, (byte) 0);
+            offset = 4 + JPEG_EXIF_SIZE;
+
+            // SOF0: length, precision, height, width, 3 components
+            put(content, offset, 0xFF, 0xC0, 0, 17, 8, HEIGHT >> 8, HEIGHT & 0xFF, WIDTH >> 8, WIDTH & 0xFF, 3, 1, 0x22, 0, 2, 0x11, 1, 3, 0x11, 1);
+
+        } else if (PNG.equals(pFormat)) {
+
+            // signature, then IHDR: width, height, bit depth 8, color type 6 (RGBA)
+            put(content, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13, 'I', 'H', 'D', 'R', 0, 0, WIDTH >> 8, WIDTH & 0xFF, 0, 0,
+                    HEIGHT >> 8, HEIGHT & 0xFF, 8, 6, 0, 0, 0);
+
+        } else if (WEBP.equals(pFormat)) {
+
+            // RIFF container with VP8 chunk: frame tag, start code, 14-bit dimensions
+            put(content, 0, 'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P', 'V', 'P', '8', ' ', 0, 0, 0, 0, 0x10, 0x02, 0x00, 0x9D, 0x01, 0x2A,
+                    WIDTH & 0xFF, WIDTH >> 8, HEIGHT & 0xFF, HEIGHT >> 8);
+
+        } else if (HEIC.equals(pFormat)) {
+
+            // ftyp box: major brand, minor version, compatible brands
+            put(content, 0, 0, 0, 0, 24, 'f', 't', 'y', 'p', 'h', 'e', 'i', 'c', 0, 0, 0, 0, 'm', 'i', 'f', '1', 'h', 'e', 'i', 'c');
+
+        } else {
+
+            // plain text
+            Arrays.fill(content, 0, 64, (byte) 'a');
+
+        }
+
+        return content;
+    }
+
+    /**
+     * @param pContent file content
+     * @return temporary file with given content, deleted on exit
+     * @throws IOException if file could not be written
+     */
+    static File tempFile(final byte[] pContent)
+            throws IOException {
+
+        final File file = tempFile();
+
+        FileOutputStream fos = null;
+        try {
+
+            fos = new FileOutputStream(file);
+
+            fos.write(pContent);
+
+        } finally {
+
+            if (fos != null) {
+
+                try {
+                    fos.close();
+                } catch (final IOException ignored) {}
+
+            }
+
+        }
+
+        return file;
+    }
+
+    /**
+     * @return empty temporary file, deleted on exit
+     * @throws IOException if file could not be created
+     */
+    static File tempFile()
+            throws IOException {
+
+        final File file = File.createTempFile("qip-bench", ".bin");
+        file.deleteOnExit();
+
+        return file;
+    }
+
+    private static int put(final byte[] pTarget, final int pOffset, final int... pBytes) {
+
+        for (int i = 0; i < pBytes.length; i++) {
+            pTarget[pOffset + i] = (byte) pBytes[i];
+        }
+
+        return pOffset + pBytes.length;
+    }
+
+}
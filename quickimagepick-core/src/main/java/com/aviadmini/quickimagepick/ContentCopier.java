@@ -0,0 +1,202 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copy engine behind {@code UriUtils} copy methods. Has no Android dependencies
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class ContentCopier {
+
+    static final int MIN_BUFFER_SIZE     = 8 * 1024;
+    static final int MAX_BUFFER_SIZE     = 256 * 1024;
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Sources smaller than this are copied with a single buffer, setting up channel transfer does not pay off for them
+     */
+    static final long CHANNEL_MIN_SIZE = 64 * 1024;
+
+    /**
+     * Max bytes passed to a single {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)} call
+     */
+    static final long CHANNEL_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private ContentCopier() {}
+
+    /**
+     * @param pSize content size or negative value if unknown
+     * @return buffer size for stream copy of content with given size
+     */
+    static int bufferSizeFor(final long pSize) {
+
+        if (pSize < 0) {
+            return DEFAULT_BUFFER_SIZE;
+        }
+
+        if (pSize >= MAX_BUFFER_SIZE) {
+            return MAX_BUFFER_SIZE;
+        }
+
+        // smallest power of two that fits whole content (so that single read is enough), but not less than minimum
+        return Math.max(MIN_BUFFER_SIZE, Integer.highestOneBit((int) pSize - 1) << 1);
+    }
+
+    /**
+     * @param pSize content size or negative value if unknown
+     * @return true if content of given size is worth copying via channels (given that source is seekable)
+     */
+    static boolean useChannelFor(final long pSize) {
+        return pSize < 0 || pSize >= CHANNEL_MIN_SIZE;
+    }
+
+    /**
+     * Transfers bytes between file channels without copying them through Java heap
+     *
+     * @param pSource   source channel
+     * @param pPosition position in source channel to start transfer from
+     * @param pCount    number of bytes to transfer or negative value to transfer until end of source
+     * @param pTarget   target channel, bytes are written starting at its current position
+     * @param pCancel   optional flag checked between chunks, transfer is stopped when it's set
+     * @return number of bytes transferred
+     * @throws IOException if channel operation failed or {@link InterruptedIOException} if transfer was cancelled
+     */
+    static long copyChannel(@NonNull final FileChannel pSource, final long pPosition, final long pCount, @NonNull final FileChannel pTarget,
+                            @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        final long count = pCount < 0 ? Math.max(0, pSource.size() - pPosition) : pCount;
+
+        long transferred = 0;
+        while (transferred < count) {
+
+            checkCancelled(pCancel);
+
+            final long n = pSource.transferTo(pPosition + transferred, Math.min(CHANNEL_CHUNK_SIZE, count - transferred), pTarget);
+            if (n <= 0) {
+                break;
+            }
+
+            transferred += n;
+
+        }
+
+        return transferred;
+    }
+
+    /**
+     * Copies channel content through given buffer until end of source channel is reached. Channels are not closed.
+     * Use for channels that are not {@link FileChannel}s, e.g. pipes. A direct buffer avoids an extra copy for native channels
+     *
+     * @param pSource source channel
+     * @param pTarget target channel
+     * @param pBuffer copy buffer, it's cleared before use
+     * @param pCancel optional flag checked between reads, copy is stopped when it's set
+     * @return number of bytes copied
+     * @throws IOException if reading or writing failed or {@link InterruptedIOException} if copy was cancelled
+     */
+    static long copyChannel(@NonNull final ReadableByteChannel pSource, @NonNull final WritableByteChannel pTarget, @NonNull final ByteBuffer pBuffer,
+                            @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        pBuffer.clear();
+
+        long copied = 0;
+        while (pSource.read(pBuffer) != -1) {
+
+            checkCancelled(pCancel);
+
+            pBuffer.flip();
+
+            while (pBuffer.hasRemaining()) {
+                copied += pTarget.write(pBuffer);
+            }
+
+            pBuffer.clear();
+
+        }
+
+        return copied;
+    }
+
+    /**
+     * Copies stream content until end of input stream is reached. Streams are not closed
+     *
+     * @param pSource     input stream
+     * @param pTarget     output stream
+     * @param pBufferSize size of copy buffer
+     * @param pCancel     optional flag checked between reads, copy is stopped when it's set
+     * @return number of bytes copied
+     * @throws IOException if reading or writing failed or {@link InterruptedIOException} if copy was cancelled
+     */
+    static long copyStream(@NonNull final InputStream pSource, @NonNull final OutputStream pTarget, final int pBufferSize,
+                           @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        final byte[] buffer = new byte[pBufferSize];
+
+        long copied = 0;
+        int len;
+        while ((len = pSource.read(buffer)) != -1) {
+
+            checkCancelled(pCancel);
+
+            pTarget.write(buffer, 0, len);
+
+            copied += len;
+
+        }
+
+        return copied;
+    }
+
+    /**
+     * Reads stream until its end without keeping the bytes, e.g. so that a hashing stream sees all of them. Stream is not closed
+     *
+     * @param pSource     input stream
+     * @param pBufferSize size of read buffer
+     * @param pCancel     optional flag checked between reads, reading is stopped when it's set
+     * @return number of bytes read
+     * @throws IOException if reading failed or {@link InterruptedIOException} if reading was cancelled
+     */
+    static long discardStream(@NonNull final InputStream pSource, final int pBufferSize, @Nullable final AtomicBoolean pCancel)
+            throws IOException {
+
+        final byte[] buffer = new byte[pBufferSize];
+
+        long read = 0;
+        int len;
+        while ((len = pSource.read(buffer)) != -1) {
+
+            checkCancelled(pCancel);
+
+            read += len;
+
+        }
+
+        return read;
+    }
+
+    private static void checkCancelled(@Nullable final AtomicBoolean pCancel)
+            throws InterruptedIOException {
+
+        if (pCancel != null && pCancel.get()) {
+            throw new InterruptedIOException("Copy cancelled");
+        }
+
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.Nullable;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+/**
+ * EXIF properties read from image header by {@code UriUtils.readExif(Context, Uri)}
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExifData {
+
+    public static final int ORIENTATION_NORMAL          = 1;
+    public static final int ORIENTATION_FLIP_HORIZONTAL = 2;
+    public static final int ORIENTATION_ROTATE_180      = 3;
+    public static final int ORIENTATION_FLIP_VERTICAL   = 4;
+    public static final int ORIENTATION_TRANSPOSE       = 5;
+    public static final int ORIENTATION_ROTATE_90       = 6;
+    public static final int ORIENTATION_TRANSVERSE      = 7;
+    public static final int ORIENTATION_ROTATE_270      = 8;
+
+    private final int mOrientation;
+
+    @Nullable
+    private final String mDateTime;
+
+    private final boolean mHasGps;
+
+    private final long mThumbnailOffset;
+    private final int  mThumbnailLength;
+
+    @Nullable
+    private final byte[] mThumbnail;
+
+    ExifData(final int pOrientation, @Nullable final String pDateTime, final boolean pHasGps, final long pThumbnailOffset,
+             final int pThumbnailLength, @Nullable final byte[] pThumbnail) {
+
+        this.mOrientation = pOrientation;
+
+        this.mDateTime = pDateTime;
+
+        this.mHasGps = pHasGps;
+
+        this.mThumbnailOffset = pThumbnailOffset;
+        this.mThumbnailLength = pThumbnailLength;
+
+        this.mThumbnail = pThumbnail;
+
+    }
+
+    /**
+     * @return one of {@code ORIENTATION_} constants, {@link #ORIENTATION_NORMAL} if image has no orientation tag
+     */
+    public int getOrientation() {
+        return this.mOrientation;
+    }
+
+    /**
+     * @return clockwise rotation in degrees that should be applied to image to display it upright
+     */
+    public int getRotationDegrees() {
+
+        switch (this.mOrientation) {
+
+            case ORIENTATION_ROTATE_90:
+            case ORIENTATION_TRANSPOSE:
+                return 90;
+
+            case ORIENTATION_ROTATE_180:
+            case ORIENTATION_FLIP_VERTICAL:
+                return 180;
+
+            case ORIENTATION_ROTATE_270:
+            case ORIENTATION_TRANSVERSE:
+                return 270;
+
+            default:
+                return 0;
+
+        }
+
+    }
+
+    /**
+     * @return true if image should be mirrored horizontally (after rotation) to display it correctly
+     */
+    public boolean isFlipped() {
+        return this.mOrientation == ORIENTATION_FLIP_HORIZONTAL || this.mOrientation == ORIENTATION_FLIP_VERTICAL ||
+               this.mOrientation == ORIENTATION_TRANSPOSE || this.mOrientation == ORIENTATION_TRANSVERSE;
+    }
+
+    /**
+     * @return capture time in EXIF format {@code yyyy:MM:dd HH:mm:ss} or null if image has no time tags.
+     * Original capture time is preferred over modification time
+     */
+    @Nullable
+    public String getDateTime() {
+        return this.mDateTime;
+    }
+
+    /**
+     * @return capture time in milliseconds since epoch interpreted in device time zone (EXIF time has no zone) or -1 if unknown
+     */
+    public long getTimestamp() {
+
+        if (this.mDateTime == null) {
+            return -1;
+        }
+
+        try {
+            return new SimpleDateFormat("yyyy:MM:dd HH:mm:ss", Locale.US).parse(this.mDateTime)
+                                                                        .getTime();
+        } catch (final ParseException e) {
+            return -1;
+        }
+
+    }
+
+    /**
+     * @return true if image has GPS tags
+     */
+    public boolean hasGps() {
+        return this.mHasGps;
+    }
+
+    /**
+     * @return true if image has embedded JPEG thumbnail
+     */
+    public boolean hasThumbnail() {
+        return this.mThumbnailOffset >= 0 && this.mThumbnailLength > 0;
+    }
+
+    /**
+     * @return offset of embedded JPEG thumbnail from the start of content or -1 if there's no thumbnail
+     */
+    public long getThumbnailOffset() {
+        return this.mThumbnailOffset;
+    }
+
+    /**
+     * @return length of embedded JPEG thumbnail in bytes or -1 if there's no thumbnail
+     */
+    public int getThumbnailLength() {
+        return this.mThumbnailLength;
+    }
+
+    /**
+     * @return embedded thumbnail bytes if they were requested when reading EXIF
+     */
+    @Nullable
+    byte[] getThumbnail() {
+        return this.mThumbnail;
+    }
+
+    @Override
+    public String toString() {
+        return "ExifData{orientation=" + this.mOrientation + ", dateTime=" + this.mDateTime + ", gps=" + this.mHasGps + ", thumbnail=" +
+               this.mThumbnailOffset + "+" + this.mThumbnailLength + "}";
+    }
+
+}
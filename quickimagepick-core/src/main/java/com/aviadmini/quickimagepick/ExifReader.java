@@ -0,0 +1,298 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader of JPEG EXIF (APP1 segment with TIFF structure). Stops reading right after EXIF segment,
+ * so cost does not depend on image size. Has no Android dependencies
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class ExifReader {
+
+    /**
+     * Enough for SOI, a JFIF segment and APP1 segment of max size
+     */
+    static final int DEFAULT_BYTE_BUDGET = 128 * 1024;
+
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS  = 0xDA;
+    private static final int MARKER_EOI  = 0xD9;
+
+    private static final int TAG_ORIENTATION        = 0x0112;
+    private static final int TAG_DATE_TIME          = 0x0132;
+    private static final int TAG_EXIF_IFD           = 0x8769;
+    private static final int TAG_GPS_IFD            = 0x8825;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+    private static final int TAG_THUMBNAIL_OFFSET   = 0x0201;
+    private static final int TAG_THUMBNAIL_LENGTH   = 0x0202;
+
+    private static final int TYPE_SHORT = 3;
+
+    private static final int EXIF_HEADER_LENGTH = 6;
+
+    private static final int MAX_IFD_ENTRIES = 1000;
+
+    private ExifReader() {}
+
+    /**
+     * Reads EXIF of JPEG image. Stream is not closed
+     *
+     * @param pStream         content stream positioned at its start
+     * @param pByteBudget     max number of bytes to read or skip
+     * @param pKeepThumbnail  pass true to keep embedded thumbnail bytes in result
+     * @return EXIF data or null if content is not JPEG or it has no EXIF
+     * @throws IOException if reading failed
+     */
+    @Nullable
+    static ExifData read(@NonNull final InputStream pStream, final int pByteBudget, final boolean pKeepThumbnail)
+            throws IOException {
+
+        final HeaderReader reader = new HeaderReader(pStream, pByteBudget);
+
+        if (reader.read() != 0xFF || reader.read() != 0xD8) {
+            return null;
+        }
+
+        while (true) {
+
+            int b = reader.read();
+            if (b != 0xFF) {
+                return null;
+            }
+
+            do {
+                b = reader.read();
+            } while (b == 0xFF);
+
+            if (b == -1 || b == MARKER_SOS || b == MARKER_EOI) {
+                return null;
+            }
+
+            // standalone markers without length
+            if (b == 0x01 || b >= 0xD0 && b <= 0xD7) {
+                continue;
+            }
+
+            final int length = reader.readU16be();
+            if (length < 2) {
+                return null;
+            }
+
+            if (b == MARKER_APP1 && length - 2 > EXIF_HEADER_LENGTH) {
+
+                final long segmentOffset = reader.getPosition();
+
+                final byte[] segment = new byte[length - 2];
+                if (!reader.readFully(segment)) {
+                    return null;
+                }
+
+                // there may be XMP APP1 segments as well
+                if (ImageSniffer.matches(segment, 0, "Exif") && segment[4] == 0 && segment[5] == 0) {
+                    return parseTiff(segment, segmentOffset + EXIF_HEADER_LENGTH, pKeepThumbnail);
+                }
+
+            } else if (!reader.skip(length - 2)) {
+                return null;
+            }
+
+        }
+
+    }
+
+    @Nullable
+    private static ExifData parseTiff(@NonNull final byte[] pSegment, final long pTiffOffset, final boolean pKeepThumbnail) {
+
+        final Tiff tiff = new Tiff(pSegment, EXIF_HEADER_LENGTH);
+        if (!tiff.isValid()) {
+            return null;
+        }
+
+        int orientation = ExifData.ORIENTATION_NORMAL;
+        String dateTime = null;
+        String dateTimeOriginal = null;
+        boolean hasGps = false;
+        long thumbnailOffset = -1;
+        long thumbnailLength = -1;
+
+        final long ifd0 = tiff.u32(4);
+        final int ifd0Entries = tiff.entryCount(ifd0);
+
+        long exifIfd = -1;
+        for (int i = 0; i < ifd0Entries; i++) {
+
+            final long entry = ifd0 + 2 + 12 * i;
+
+            switch (tiff.u16(entry)) {
+
+                case TAG_ORIENTATION:
+                    orientation = tiff.u16(entry + 8);
+                    break;
+
+                case TAG_DATE_TIME:
+                    dateTime = tiff.ascii(entry);
+                    break;
+
+                case TAG_EXIF_IFD:
+                    exifIfd = tiff.u32(entry + 8);
+                    break;
+
+                case TAG_GPS_IFD:
+                    hasGps = tiff.entryCount(tiff.u32(entry + 8)) > 0;
+                    break;
+
+            }
+
+        }
+
+        final int exifEntries = tiff.entryCount(exifIfd);
+        for (int i = 0; i < exifEntries; i++) {
+
+            final long entry = exifIfd + 2 + 12 * i;
+
+            if (tiff.u16(entry) == TAG_DATE_TIME_ORIGINAL) {
+                dateTimeOriginal = tiff.ascii(entry);
+            }
+
+        }
+
+        // IFD1 describes thumbnail and follows IFD0 entries
+        final long ifd1 = ifd0Entries > 0 ? tiff.u32(ifd0 + 2 + 12 * ifd0Entries) : -1;
+        final int ifd1Entries = ifd1 > 0 ? tiff.entryCount(ifd1) : 0;
+        for (int i = 0; i < ifd1Entries; i++) {
+
+            final long entry = ifd1 + 2 + 12 * i;
+
+            final int tag = tiff.u16(entry);
+            if (tag == TAG_THUMBNAIL_OFFSET) {
+                thumbnailOffset = tiff.u32(entry + 8);
+            } else if (tag == TAG_THUMBNAIL_LENGTH) {
+                thumbnailLength = tiff.u16(entry + 2) == TYPE_SHORT ? tiff.u16(entry + 8) : tiff.u32(entry + 8);
+            }
+
+        }
+
+        // thumbnail must be inside the segment
+        final boolean hasThumbnail = thumbnailOffset > 0 && thumbnailLength > 0 && tiff.contains(thumbnailOffset, thumbnailLength);
+
+        final byte[] thumbnail = hasThumbnail && pKeepThumbnail ?
+                                 Arrays.copyOfRange(pSegment, (int) (EXIF_HEADER_LENGTH + thumbnailOffset),
+                                         (int) (EXIF_HEADER_LENGTH + thumbnailOffset + thumbnailLength)) : null;
+
+        if (orientation < ExifData.ORIENTATION_NORMAL || orientation > ExifData.ORIENTATION_ROTATE_270) {
+            orientation = ExifData.ORIENTATION_NORMAL;
+        }
+
+        return new ExifData(orientation, dateTimeOriginal != null ? dateTimeOriginal : dateTime, hasGps,
+                hasThumbnail ? pTiffOffset + thumbnailOffset : -1, hasThumbnail ? (int) thumbnailLength : -1, thumbnail);
+    }
+
+    /**
+     * Bounds-checked accessor of TIFF structure inside EXIF segment. Offsets are relative to TIFF header,
+     * out of bounds reads return -1
+     */
+    private static class Tiff {
+
+        @NonNull
+        private final byte[] mData;
+
+        private final int mStart;
+
+        private final boolean mLittleEndian;
+
+        Tiff(@NonNull final byte[] pData, final int pStart) {
+
+            this.mData = pData;
+
+            this.mStart = pStart;
+
+            this.mLittleEndian = ImageSniffer.matches(pData, pStart, "II");
+
+        }
+
+        boolean isValid() {
+            return (this.mLittleEndian || ImageSniffer.matches(this.mData, this.mStart, "MM")) && this.u16(2) == 42;
+        }
+
+        boolean contains(final long pOffset, final long pLength) {
+            return pOffset >= 0 && pLength >= 0 && this.mStart + pOffset + pLength <= this.mData.length;
+        }
+
+        int u16(final long pOffset) {
+
+            if (!this.contains(pOffset, 2)) {
+                return -1;
+            }
+
+            final int offset = (int) (this.mStart + pOffset);
+
+            return this.mLittleEndian ? ImageSniffer.u16le(this.mData, offset) : ImageSniffer.u16be(this.mData, offset);
+        }
+
+        long u32(final long pOffset) {
+
+            if (!this.contains(pOffset, 4)) {
+                return -1;
+            }
+
+            final int offset = (int) (this.mStart + pOffset);
+
+            return this.mLittleEndian ? ImageSniffer.u32le(this.mData, offset) : ImageSniffer.u32be(this.mData, offset);
+        }
+
+        /**
+         * @return number of entries in IFD at given offset or 0 if IFD is out of bounds
+         */
+        int entryCount(final long pIfdOffset) {
+
+            if (pIfdOffset <= 0) {
+                return 0;
+            }
+
+            final int count = this.u16(pIfdOffset);
+
+            return count <= 0 || count > MAX_IFD_ENTRIES || !this.contains(pIfdOffset + 2, 12 * count) ? 0 : count;
+        }
+
+        /**
+         * @return value of ASCII entry or null if it's out of bounds
+         */
+        @Nullable
+        String ascii(final long pEntry) {
+
+            final long count = this.u32(pEntry + 4);
+            if (count <= 0) {
+                return null;
+            }
+
+            // values up to 4 bytes are stored inline
+            final long valueOffset = count <= 4 ? pEntry + 8 : this.u32(pEntry + 8);
+            if (!this.contains(valueOffset, count)) {
+                return null;
+            }
+
+            final int start = (int) (this.mStart + valueOffset);
+
+            int end = start;
+            while (end < start + count && this.mData[end] != 0) {
+                end++;
+            }
+
+            final char[] chars = new char[end - start];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (this.mData[start + i] & 0xFF);
+            }
+
+            return chars.length == 0 ? null : new String(chars);
+        }
+
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stream that computes SHA-256 of everything read through it, and separately of its first bytes, so content can be copied and hashed
+ * in a single pass. Skipped bytes are read and hashed too. Has no Android dependencies
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class HashingInputStream
+        extends FilterInputStream {
+
+    static final String ALGORITHM = "SHA-256";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @NonNull
+    private final MessageDigest mDigest;
+
+    @NonNull
+    private final MessageDigest mPrefixDigest;
+
+    private final long mPrefixLength;
+
+    private final byte[] mSingleByte = new byte[1];
+
+    @Nullable
+    private byte[] mPrefixDigestValue = null;
+
+    private long mCount = 0;
+
+    /**
+     * @param pStream       stream to read from
+     * @param pPrefixLength number of first bytes that are hashed separately
+     */
+    HashingInputStream(@NonNull final InputStream pStream, final long pPrefixLength) {
+
+        super(pStream);
+
+        this.mDigest = newDigest();
+        this.mPrefixDigest = newDigest();
+
+        this.mPrefixLength = pPrefixLength;
+
+    }
+
+    @Override
+    public int read()
+            throws IOException {
+
+        final int b = this.in.read();
+
+        if (b != -1) {
+
+            this.mSingleByte[0] = (byte) b;
+
+            this.update(this.mSingleByte, 0, 1);
+
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(@NonNull final byte[] pBuffer, final int pOffset, final int pLength)
+            throws IOException {
+
+        final int n = this.in.read(pBuffer, pOffset, pLength);
+
+        if (n > 0) {
+            this.update(pBuffer, pOffset, n);
+        }
+
+        return n;
+    }
+
+    @Override
+    public long skip(final long pCount)
+            throws IOException {
+
+        final byte[] buffer = new byte[(int) Math.min(pCount, ContentCopier.MIN_BUFFER_SIZE)];
+
+        long skipped = 0;
+        while (skipped < pCount) {
+
+            final int n = this.read(buffer, 0, (int) Math.min(buffer.length, pCount - skipped));
+            if (n == -1) {
+                break;
+            }
+
+            skipped += n;
+
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(final int pReadLimit) {}
+
+    @Override
+    public synchronized void reset()
+            throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    private void update(@NonNull final byte[] pBuffer, final int pOffset, final int pLength) {
+
+        this.mDigest.update(pBuffer, pOffset, pLength);
+
+        if (this.mPrefixDigestValue == null) {
+
+            final int prefixPart = (int) Math.min(pLength, this.mPrefixLength - this.mCount);
+
+            this.mPrefixDigest.update(pBuffer, pOffset, prefixPart);
+
+            if (this.mCount + prefixPart >= this.mPrefixLength) {
+                this.mPrefixDigestValue = this.mPrefixDigest.digest();
+            }
+
+        }
+
+        this.mCount += pLength;
+
+    }
+
+    // ==== RESULTS ==== //
+
+    /**
+     * @return number of bytes read so far
+     */
+    long getCount() {
+        return this.mCount;
+    }
+
+    /**
+     * Completes hash of first bytes. Call after prefix was read or end of stream was reached, otherwise hash covers fewer bytes
+     *
+     * @return SHA-256 of first prefix length bytes of content
+     */
+    @NonNull
+    byte[] prefixDigest() {
+
+        if (this.mPrefixDigestValue == null) {
+            this.mPrefixDigestValue = this.mPrefixDigest.digest();
+        }
+
+        return this.mPrefixDigestValue;
+    }
+
+    /**
+     * Completes hash of content. Call after end of stream was reached
+     *
+     * @return SHA-256 of everything read
+     */
+    @NonNull
+    byte[] digest() {
+        return this.mDigest.digest();
+    }
+
+    // ==== //
+
+    @NonNull
+    static MessageDigest newDigest() {
+
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java and Android runtime is required to provide it
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+
+    }
+
+    @NonNull
+    static String toHex(@NonNull final byte[] pBytes) {
+
+        final char[] chars = new char[pBytes.length * 2];
+
+        for (int i = 0; i < pBytes.length; i++) {
+
+            chars[i * 2] = HEX_DIGITS[pBytes[i] >> 4 & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[pBytes[i] & 0xF];
+
+        }
+
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reader used by header parsers. Reads already buffered head first, then the stream.
+ * Counts every byte read or skipped against a byte budget. Has no Android dependencies
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class HeaderReader {
+
+    private static final byte[] NO_HEAD = new byte[0];
+
+    @NonNull
+    private final byte[] mHead;
+
+    private final int mHeadLength;
+
+    private int mHeadPosition = 0;
+
+    @NonNull
+    private final InputStream mStream;
+
+    private long mRemainingBudget;
+
+    private long mPosition = 0;
+
+    /**
+     * @param pHead       bytes already read from the start of the stream
+     * @param pHeadLength number of valid bytes in head
+     * @param pStream     the stream, positioned right after head
+     * @param pByteBudget max number of bytes to consume, including head
+     */
+    HeaderReader(@NonNull final byte[] pHead, final int pHeadLength, @NonNull final InputStream pStream, final int pByteBudget) {
+
+        this.mHead = pHead;
+        this.mHeadLength = pHeadLength;
+
+        this.mStream = pStream;
+
+        this.mRemainingBudget = pByteBudget - pHeadLength;
+
+    }
+
+    /**
+     * @param pStream     the stream positioned at its start
+     * @param pByteBudget max number of bytes to consume
+     */
+    HeaderReader(@NonNull final InputStream pStream, final int pByteBudget) {
+        this(NO_HEAD, 0, pStream, pByteBudget);
+    }
+
+    /**
+     * @return number of bytes consumed from the start of the stream
+     */
+    long getPosition() {
+        return this.mPosition;
+    }
+
+    /**
+     * @return next byte or -1 if end of content or byte budget was reached
+     */
+    int read()
+            throws IOException {
+
+        if (this.mHeadPosition < this.mHeadLength) {
+
+            this.mPosition++;
+
+            return ImageSniffer.u8(this.mHead, this.mHeadPosition++);
+        }
+
+        if (this.mRemainingBudget <= 0) {
+            return -1;
+        }
+
+        final int b = this.mStream.read();
+        if (b != -1) {
+
+            this.mRemainingBudget--;
+            this.mPosition++;
+
+        }
+
+        return b;
+    }
+
+    /**
+     * @return unsigned 16-bit big endian value or -1 if end of content or byte budget was reached
+     */
+    int readU16be()
+            throws IOException {
+
+        final int b1 = this.read();
+        final int b2 = this.read();
+
+        return b1 == -1 || b2 == -1 ? -1 : b1 << 8 | b2;
+    }
+
+    /**
+     * @return unsigned 32-bit big endian value or -1 if end of content or byte budget was reached
+     */
+    long readU32be()
+            throws IOException {
+
+        final int hi = this.readU16be();
+        final int lo = this.readU16be();
+
+        return hi == -1 || lo == -1 ? -1 : (long) hi << 16 | lo;
+    }
+
+    /**
+     * @return true if buffer was filled, false if end of content or byte budget was reached first
+     */
+    boolean readFully(@NonNull final byte[] pBuffer)
+            throws IOException {
+        return this.readFully(pBuffer, pBuffer.length);
+    }
+
+    /**
+     * @return true if first {@code pLength} bytes of buffer were filled, false if end of content or byte budget was reached first
+     */
+    boolean readFully(@NonNull final byte[] pBuffer, final int pLength)
+            throws IOException {
+
+        int read = Math.min(pLength, this.mHeadLength - this.mHeadPosition);
+
+        System.arraycopy(this.mHead, this.mHeadPosition, pBuffer, 0, read);
+        this.mHeadPosition += read;
+        this.mPosition += read;
+
+        if (pLength - read > this.mRemainingBudget) {
+            return false;
+        }
+
+        while (read < pLength) {
+
+            final int n = this.mStream.read(pBuffer, read, pLength - read);
+            if (n == -1) {
+                return false;
+            }
+
+            read += n;
+
+            this.mRemainingBudget -= n;
+            this.mPosition += n;
+
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if given number of bytes was skipped, false if end of content or byte budget was reached first
+     */
+    boolean skip(final long pCount)
+            throws IOException {
+
+        long remaining = pCount;
+
+        final int fromHead = (int) Math.min(remaining, this.mHeadLength - this.mHeadPosition);
+        this.mHeadPosition += fromHead;
+        this.mPosition += fromHead;
+        remaining -= fromHead;
+
+        if (remaining > this.mRemainingBudget) {
+            return false;
+        }
+
+        while (remaining > 0) {
+
+            final long skipped = this.mStream.skip(remaining);
+            if (skipped > 0) {
+
+                remaining -= skipped;
+
+                this.mRemainingBudget -= skipped;
+                this.mPosition += skipped;
+
+            } else if (this.mStream.read() == -1) {
+                // skip() may return 0 before end of stream, single read tells the difference
+                return false;
+            } else {
+
+                remaining--;
+
+                this.mRemainingBudget--;
+                this.mPosition++;
+
+            }
+
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Image formats recognized by content signature
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public enum ImageFormat {
+
+    JPEG("image/jpeg", "jpg"),
+
+    PNG("image/png", "png"),
+
+    GIF("image/gif", "gif"),
+
+    /**
+     * Simple lossy WebP ({@code VP8} chunk)
+     */
+    WEBP_LOSSY("image/webp", "webp"),
+
+    /**
+     * Simple lossless WebP ({@code VP8L} chunk)
+     */
+    WEBP_LOSSLESS("image/webp", "webp"),
+
+    /**
+     * Extended WebP ({@code VP8X} chunk) without animation, may have alpha, ICC profile or EXIF
+     */
+    WEBP_EXTENDED("image/webp", "webp"),
+
+    /**
+     * Extended WebP ({@code VP8X} chunk) with animation
+     */
+    WEBP_ANIMATED("image/webp", "webp"),
+
+    BMP("image/bmp", "bmp"),
+
+    /**
+     * HEIF image that is not HEVC-coded or AVIF (e.g. JPEG-coded image items)
+     */
+    HEIF("image/heif", "heif"),
+
+    /**
+     * HEVC-coded HEIF image
+     */
+    HEIC("image/heic", "heic"),
+
+    /**
+     * AV1-coded HEIF image
+     */
+    AVIF("image/avif", "avif");
+
+    @NonNull
+    private final String mMimeType;
+
+    @NonNull
+    private final String mExtension;
+
+    ImageFormat(@NonNull final String pMimeType, @NonNull final String pExtension) {
+
+        this.mMimeType = pMimeType;
+
+        this.mExtension = pExtension;
+
+    }
+
+    /**
+     * @return MIME type of the format
+     */
+    @NonNull
+    public String getMimeType() {
+        return this.mMimeType;
+    }
+
+    /**
+     * @return most common file extension of the format
+     */
+    @NonNull
+    public String getExtension() {
+        return this.mExtension;
+    }
+
+    /**
+     * @return true if format is one of WebP flavors
+     */
+    public boolean isWebP() {
+        return this == WEBP_LOSSY || this == WEBP_LOSSLESS || this == WEBP_EXTENDED || this == WEBP_ANIMATED;
+    }
+
+}
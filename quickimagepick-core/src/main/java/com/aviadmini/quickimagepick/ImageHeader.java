@@ -0,0 +1,74 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Image format and dimensions read from image header without decoding pixels
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ImageHeader {
+
+    @NonNull
+    private final ImageFormat mFormat;
+
+    private final int mWidth;
+    private final int mHeight;
+
+    private final boolean mHasAlpha;
+
+    ImageHeader(@NonNull final ImageFormat pFormat, final int pWidth, final int pHeight, final boolean pHasAlpha) {
+
+        this.mFormat = pFormat;
+
+        this.mWidth = pWidth;
+        this.mHeight = pHeight;
+
+        this.mHasAlpha = pHasAlpha;
+
+    }
+
+    /**
+     * @return image format
+     */
+    @NonNull
+    public ImageFormat getFormat() {
+        return this.mFormat;
+    }
+
+    /**
+     * @return width of stored image in pixels (EXIF orientation is not applied) or -1 if it could not be read
+     */
+    public int getWidth() {
+        return this.mWidth;
+    }
+
+    /**
+     * @return height of stored image in pixels (EXIF orientation is not applied) or -1 if it could not be read
+     */
+    public int getHeight() {
+        return this.mHeight;
+    }
+
+    /**
+     * @return true if dimensions were read
+     */
+    public boolean hasDimensions() {
+        return this.mWidth > 0 && this.mHeight > 0;
+    }
+
+    /**
+     * @return false if image is known to be opaque, true if it has or may have transparent pixels
+     */
+    public boolean hasAlpha() {
+        return this.mHasAlpha;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageHeader{" + this.mFormat + " " + this.mWidth + "x" + this.mHeight + (this.mHasAlpha ? ", alpha" : "") + "}";
+    }
+
+}
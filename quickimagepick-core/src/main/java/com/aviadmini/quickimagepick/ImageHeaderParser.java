@@ -0,0 +1,247 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of image headers. Reads only the bytes needed to get image dimensions and never more than given byte budget.
+ * Has no Android dependencies
+ * <br><br>
+ * Supports JPEG (SOFn marker), PNG (IHDR chunk), GIF (logical screen descriptor), WebP (VP8, VP8L and VP8X chunks) and BMP headers.
+ * HEIF and AVIF are recognized but their dimensions are not read
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class ImageHeaderParser {
+
+    static final int DEFAULT_BYTE_BUDGET = 256 * 1024;
+
+    private static final byte[] PNG_CHUNK_TRNS = {'t', 'R', 'N', 'S'};
+    private static final byte[] PNG_CHUNK_IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] PNG_CHUNK_IEND = {'I', 'E', 'N', 'D'};
+
+    private ImageHeaderParser() {}
+
+    /**
+     * Parses image header. Stream is not closed
+     *
+     * @param pStream     content stream positioned at its start
+     * @param pByteBudget max number of bytes to read or skip
+     * @return image header or null if content is not an image of supported format
+     * @throws IOException if reading failed
+     */
+    @Nullable
+    static ImageHeader parse(@NonNull final InputStream pStream, final int pByteBudget)
+            throws IOException {
+
+        final byte[] head = new byte[ImageSniffer.PROBE_SIZE];
+        final int headLength = ImageSniffer.readFully(pStream, head, Math.min(head.length, pByteBudget));
+
+        final ImageFormat format = ImageSniffer.sniff(head, headLength);
+        if (format == null) {
+            return null;
+        }
+
+        switch (format) {
+
+            case JPEG:
+                return parseJpeg(new HeaderReader(head, headLength, pStream, pByteBudget));
+
+            case PNG:
+                return parsePng(head, headLength, new HeaderReader(head, headLength, pStream, pByteBudget));
+
+            case GIF:
+                // transparency is declared per frame in graphic control extensions, assume it's there
+                return headLength < 10 ? unknownSize(format) :
+                       new ImageHeader(format, ImageSniffer.u16le(head, 6), ImageSniffer.u16le(head, 8), true);
+
+            case WEBP_LOSSY:
+                // frame tag (3 bytes) and start code 9D 01 2A precede 14-bit dimensions
+                return headLength < 30 || ImageSniffer.u8(head, 23) != 0x9D || ImageSniffer.u8(head, 24) != 0x01 || ImageSniffer.u8(head, 25) != 0x2A ?
+                       unknownSize(format) :
+                       new ImageHeader(format, ImageSniffer.u16le(head, 26) & 0x3FFF, ImageSniffer.u16le(head, 28) & 0x3FFF, false);
+
+            case WEBP_LOSSLESS: {
+
+                if (headLength < 25 || ImageSniffer.u8(head, 20) != 0x2F) {
+                    return unknownSize(format);
+                }
+
+                // 14 bits width - 1, 14 bits height - 1, 1 bit alpha hint
+                final long bits = ImageSniffer.u32le(head, 21);
+
+                return new ImageHeader(format, (int) (bits & 0x3FFF) + 1, (int) (bits >> 14 & 0x3FFF) + 1, (bits >> 28 & 1) != 0);
+            }
+
+            case WEBP_EXTENDED:
+            case WEBP_ANIMATED: {
+
+                if (headLength < 30) {
+                    return unknownSize(format);
+                }
+
+                // 24 bits canvas width - 1 and height - 1 after flags and 3 reserved bytes
+                final int width = (ImageSniffer.u16le(head, 24) | ImageSniffer.u8(head, 26) << 16) + 1;
+                final int height = (ImageSniffer.u16le(head, 27) | ImageSniffer.u8(head, 29) << 16) + 1;
+
+                return new ImageHeader(format, width, height, (ImageSniffer.u8(head, 20) & 0x10) != 0);
+            }
+
+            case BMP:
+                return parseBmp(head, headLength);
+
+            default:
+                return unknownSize(format);
+
+        }
+
+    }
+
+    @NonNull
+    private static ImageHeader unknownSize(@NonNull final ImageFormat pFormat) {
+        return new ImageHeader(pFormat, -1, -1, true);
+    }
+
+    @NonNull
+    private static ImageHeader parseJpeg(@NonNull final HeaderReader pReader)
+            throws IOException {
+
+        // skip SOI
+        pReader.skip(2);
+
+        while (true) {
+
+            int b = pReader.read();
+            if (b == -1) {
+                return unknownSize(ImageFormat.JPEG);
+            }
+
+            if (b != 0xFF) {
+                // garbage between segments
+                continue;
+            }
+
+            // markers may be preceded by any number of fill bytes
+            do {
+                b = pReader.read();
+            } while (b == 0xFF);
+
+            if (b == -1) {
+                return unknownSize(ImageFormat.JPEG);
+            }
+
+            final int marker = b;
+
+            // standalone markers without length
+            if (marker == 0x01 || marker >= 0xD0 && marker <= 0xD8) {
+                continue;
+            }
+
+            // end of image or start of scan, there's no frame header before image data
+            if (marker == 0xD9 || marker == 0xDA) {
+                return unknownSize(ImageFormat.JPEG);
+            }
+
+            final int length = pReader.readU16be();
+            if (length < 2) {
+                return unknownSize(ImageFormat.JPEG);
+            }
+
+            // SOF0..SOF15 except DHT (C4), JPG (C8) and DAC (CC)
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+
+                // sample precision
+                pReader.skip(1);
+
+                final int height = pReader.readU16be();
+                final int width = pReader.readU16be();
+
+                return height < 0 || width < 0 ? unknownSize(ImageFormat.JPEG) : new ImageHeader(ImageFormat.JPEG, width, height, false);
+            }
+
+            if (!pReader.skip(length - 2)) {
+                return unknownSize(ImageFormat.JPEG);
+            }
+
+        }
+
+    }
+
+    @NonNull
+    private static ImageHeader parsePng(@NonNull final byte[] pHead, final int pHeadLength, @NonNull final HeaderReader pReader)
+            throws IOException {
+
+        // signature (8), IHDR length (4) and type (4), width (4), height (4), bit depth (1), color type (1)
+        if (pHeadLength < 26 || !ImageSniffer.matches(pHead, 12, "IHDR")) {
+            return unknownSize(ImageFormat.PNG);
+        }
+
+        final int width = (int) ImageSniffer.u32be(pHead, 16);
+        final int height = (int) ImageSniffer.u32be(pHead, 20);
+
+        // grayscale + alpha and RGBA
+        final int colorType = ImageSniffer.u8(pHead, 25);
+        if (colorType == 4 || colorType == 6) {
+            return new ImageHeader(ImageFormat.PNG, width, height, true);
+        }
+
+        // other color types may still have transparency in tRNS chunk which must precede IDAT
+        pReader.skip(33);
+
+        final byte[] type = new byte[4];
+        while (true) {
+
+            final long length = pReader.readU32be();
+            if (length < 0 || !pReader.readFully(type)) {
+                // could not find out, assume transparency
+                return new ImageHeader(ImageFormat.PNG, width, height, true);
+            }
+
+            if (Arrays.equals(type, PNG_CHUNK_TRNS)) {
+                return new ImageHeader(ImageFormat.PNG, width, height, true);
+            }
+
+            if (Arrays.equals(type, PNG_CHUNK_IDAT) || Arrays.equals(type, PNG_CHUNK_IEND)) {
+                return new ImageHeader(ImageFormat.PNG, width, height, false);
+            }
+
+            // chunk data and CRC
+            if (!pReader.skip(length + 4)) {
+                return new ImageHeader(ImageFormat.PNG, width, height, true);
+            }
+
+        }
+
+    }
+
+    @NonNull
+    private static ImageHeader parseBmp(@NonNull final byte[] pHead, final int pHeadLength) {
+
+        final long dibHeaderSize = ImageSniffer.u32le(pHead, 14);
+
+        // OS/2 BITMAPCOREHEADER with 16-bit dimensions
+        if (dibHeaderSize == 12) {
+            return pHeadLength < 26 ? unknownSize(ImageFormat.BMP) :
+                   new ImageHeader(ImageFormat.BMP, ImageSniffer.u16le(pHead, 18), ImageSniffer.u16le(pHead, 20), false);
+        }
+
+        if (pHeadLength < 30) {
+            return unknownSize(ImageFormat.BMP);
+        }
+
+        final int width = (int) ImageSniffer.u32le(pHead, 18);
+
+        // negative height means top-down bitmap
+        final int height = Math.abs((int) ImageSniffer.u32le(pHead, 22));
+
+        final int bitsPerPixel = ImageSniffer.u16le(pHead, 28);
+
+        return new ImageHeader(ImageFormat.BMP, width, height, bitsPerPixel == 32);
+    }
+
+}
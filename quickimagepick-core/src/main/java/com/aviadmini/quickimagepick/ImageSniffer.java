@@ -0,0 +1,243 @@
+package com.aviadmini.quickimagepick;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Recognizes image format by the first {@link #PROBE_SIZE} bytes of content. Has no Android dependencies
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class ImageSniffer {
+
+    /**
+     * Number of bytes needed to recognize any supported format
+     */
+    static final int PROBE_SIZE = 64;
+
+    private static final ThreadLocal<byte[]> PROBE_BUFFER = new ThreadLocal<byte[]>() {
+
+        @Override
+        protected byte[] initialValue() {
+            return new byte[PROBE_SIZE];
+        }
+
+    };
+
+    private ImageSniffer() {}
+
+    /**
+     * Reads up to {@link #PROBE_SIZE} bytes from stream and recognizes the format. Stream is not closed
+     *
+     * @param pStream content stream positioned at its start
+     * @return recognized format or null if content is not one of supported formats
+     * @throws IOException if reading failed
+     */
+    @Nullable
+    static ImageFormat sniff(@NonNull final InputStream pStream)
+            throws IOException {
+
+        final byte[] buffer = PROBE_BUFFER.get();
+
+        return sniff(buffer, readFully(pStream, buffer, PROBE_SIZE));
+    }
+
+    /**
+     * Recognizes the format by up to {@link #PROBE_SIZE} bytes starting at buffer's position. Buffer's position is not changed
+     *
+     * @param pBuffer buffer with content positioned at its start
+     * @return recognized format or null if content is not one of supported formats
+     */
+    @Nullable
+    static ImageFormat sniff(@NonNull final ByteBuffer pBuffer) {
+
+        final byte[] buffer = PROBE_BUFFER.get();
+
+        final int position = pBuffer.position();
+        final int length = Math.min(PROBE_SIZE, pBuffer.remaining());
+
+        for (int i = 0; i < length; i++) {
+            buffer[i] = pBuffer.get(position + i);
+        }
+
+        return sniff(buffer, length);
+    }
+
+    /**
+     * @param pHeader first bytes of content
+     * @param pLength number of valid bytes in header
+     * @return recognized format or null if content is not one of supported formats
+     */
+    @Nullable
+    static ImageFormat sniff(@NonNull final byte[] pHeader, final int pLength) {
+
+        if (pLength >= 3 && u8(pHeader, 0) == 0xFF && u8(pHeader, 1) == 0xD8 && u8(pHeader, 2) == 0xFF) {
+            return ImageFormat.JPEG;
+        }
+
+        if (pLength >= 8 && u8(pHeader, 0) == 0x89 && matches(pHeader, 1, "PNG") && u8(pHeader, 4) == 0x0D && u8(pHeader, 5) == 0x0A &&
+            u8(pHeader, 6) == 0x1A && u8(pHeader, 7) == 0x0A) {
+            return ImageFormat.PNG;
+        }
+
+        if (pLength >= 6 && (matches(pHeader, 0, "GIF87a") || matches(pHeader, 0, "GIF89a"))) {
+            return ImageFormat.GIF;
+        }
+
+        if (pLength >= 16 && matches(pHeader, 0, "RIFF") && matches(pHeader, 8, "WEBP")) {
+            return sniffWebP(pHeader, pLength);
+        }
+
+        if (pLength >= 12 && matches(pHeader, 4, "ftyp")) {
+            return sniffHeif(pHeader, pLength);
+        }
+
+        if (pLength >= 18 && matches(pHeader, 0, "BM")) {
+
+            // DIB header size distinguishes real bitmaps from text that happens to start with "BM"
+            final long dibHeaderSize = u32le(pHeader, 14);
+            if (dibHeaderSize == 12 || dibHeaderSize == 40 || dibHeaderSize == 52 || dibHeaderSize == 56 || dibHeaderSize == 64 ||
+                dibHeaderSize == 108 || dibHeaderSize == 124) {
+                return ImageFormat.BMP;
+            }
+
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static ImageFormat sniffWebP(@NonNull final byte[] pHeader, final int pLength) {
+
+        if (matches(pHeader, 12, "VP8 ")) {
+            return ImageFormat.WEBP_LOSSY;
+        }
+
+        if (matches(pHeader, 12, "VP8L")) {
+            return ImageFormat.WEBP_LOSSLESS;
+        }
+
+        if (matches(pHeader, 12, "VP8X")) {
+
+            // flags byte follows 4-byte chunk size, bit 1 is animation flag
+            if (pLength >= 21 && (u8(pHeader, 20) & 0x02) != 0) {
+                return ImageFormat.WEBP_ANIMATED;
+            }
+
+            return ImageFormat.WEBP_EXTENDED;
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static ImageFormat sniffHeif(@NonNull final byte[] pHeader, final int pLength) {
+
+        final ImageFormat major = heifBrand(pHeader, 8);
+        if (major == ImageFormat.AVIF || major == ImageFormat.HEIC) {
+            return major;
+        }
+
+        // generic major brand (mif1, msf1), look at compatible brands that follow minor version
+        final int boxEnd = (int) Math.min(pLength, u32be(pHeader, 0));
+
+        ImageFormat result = major;
+        for (int offset = 16; offset + 4 <= boxEnd; offset += 4) {
+
+            final ImageFormat compatible = heifBrand(pHeader, offset);
+            if (compatible == ImageFormat.AVIF || compatible == ImageFormat.HEIC) {
+                return compatible;
+            }
+
+            if (compatible != null) {
+                result = compatible;
+            }
+
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private static ImageFormat heifBrand(@NonNull final byte[] pHeader, final int pOffset) {
+
+        if (matches(pHeader, pOffset, "avif") || matches(pHeader, pOffset, "avis")) {
+            return ImageFormat.AVIF;
+        }
+
+        if (matches(pHeader, pOffset, "heic") || matches(pHeader, pOffset, "heix") || matches(pHeader, pOffset, "heim") ||
+            matches(pHeader, pOffset, "heis") || matches(pHeader, pOffset, "hevc") || matches(pHeader, pOffset, "hevx") ||
+            matches(pHeader, pOffset, "hevm") || matches(pHeader, pOffset, "hevs")) {
+            return ImageFormat.HEIC;
+        }
+
+        if (matches(pHeader, pOffset, "mif1") || matches(pHeader, pOffset, "msf1")) {
+            return ImageFormat.HEIF;
+        }
+
+        return null;
+    }
+
+    // ==== BYTE HELPERS ==== //
+
+    static int readFully(@NonNull final InputStream pStream, @NonNull final byte[] pBuffer, final int pLength)
+            throws IOException {
+
+        int read = 0;
+        while (read < pLength) {
+
+            final int n = pStream.read(pBuffer, read, pLength - read);
+            if (n == -1) {
+                break;
+            }
+
+            read += n;
+
+        }
+
+        return read;
+    }
+
+    static boolean matches(@NonNull final byte[] pData, final int pOffset, @NonNull final String pAscii) {
+
+        if (pOffset + pAscii.length() > pData.length) {
+            return false;
+        }
+
+        for (int i = 0; i < pAscii.length(); i++) {
+
+            if (pData[pOffset + i] != (byte) pAscii.charAt(i)) {
+                return false;
+            }
+
+        }
+
+        return true;
+    }
+
+    static int u8(@NonNull final byte[] pData, final int pOffset) {
+        return pData[pOffset] & 0xFF;
+    }
+
+    static int u16le(@NonNull final byte[] pData, final int pOffset) {
+        return u8(pData, pOffset) | u8(pData, pOffset + 1) << 8;
+    }
+
+    static int u16be(@NonNull final byte[] pData, final int pOffset) {
+        return u8(pData, pOffset) << 8 | u8(pData, pOffset + 1);
+    }
+
+    static long u32le(@NonNull final byte[] pData, final int pOffset) {
+        return (u16le(pData, pOffset) | (long) u16le(pData, pOffset + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    static long u32be(@NonNull final byte[] pData, final int pOffset) {
+        return ((long) u16be(pData, pOffset) << 16 | u16be(pData, pOffset + 2)) & 0xFFFFFFFFL;
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class ContentCopierTest {
+
+    private File mSource;
+    private File mTarget;
+
+    @Before
+    public void setUp()
+            throws IOException {
+
+        this.mSource = File.createTempFile("qip_source", null);
+        this.mTarget = File.createTempFile("qip_target", null);
+
+    }
+
+    @After
+    public void tearDown() {
+
+        //noinspection ResultOfMethodCallIgnored
+        this.mSource.delete();
+
+        //noinspection ResultOfMethodCallIgnored
+        this.mTarget.delete();
+
+    }
+
+    @Test
+    public void bufferSizeFitsSmallContent() {
+
+        assertEquals(ContentCopier.DEFAULT_BUFFER_SIZE, ContentCopier.bufferSizeFor(-1));
+        assertEquals(ContentCopier.MIN_BUFFER_SIZE, ContentCopier.bufferSizeFor(0));
+        assertEquals(ContentCopier.MIN_BUFFER_SIZE, ContentCopier.bufferSizeFor(100));
+        assertEquals(16 * 1024, ContentCopier.bufferSizeFor(10000));
+        assertEquals(64 * 1024, ContentCopier.bufferSizeFor(64 * 1024));
+        assertEquals(128 * 1024, ContentCopier.bufferSizeFor(64 * 1024 + 1));
+        assertEquals(ContentCopier.MAX_BUFFER_SIZE, ContentCopier.bufferSizeFor(50L * 1024 * 1024));
+
+    }
+
+    @Test
+    public void channelIsUsedForLargeOrUnknownContent() {
+
+        assertTrue(ContentCopier.useChannelFor(-1));
+        assertFalse(ContentCopier.useChannelFor(ContentCopier.CHANNEL_MIN_SIZE - 1));
+        assertTrue(ContentCopier.useChannelFor(ContentCopier.CHANNEL_MIN_SIZE));
+
+    }
+
+    @Test
+    public void copiesStream()
+            throws IOException {
+
+        final byte[] data = TestImages.content(300000, 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(data.length, ContentCopier.copyStream(new ByteArrayInputStream(data), out, ContentCopier.MIN_BUFFER_SIZE, null));
+        assertArrayEquals(data, out.toByteArray());
+
+    }
+
+    @Test(expected = InterruptedIOException.class)
+    public void cancelledStreamCopyThrows()
+            throws IOException {
+        ContentCopier.copyStream(new ByteArrayInputStream(new byte[100]), new ByteArrayOutputStream(), 16, new AtomicBoolean(true));
+    }
+
+    @Test
+    public void discardsStreamThroughFilter()
+            throws IOException {
+
+        final byte[] data = TestImages.content(200000, 5);
+
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(data), 10);
+
+        assertEquals(data.length, ContentCopier.discardStream(in, ContentCopier.MIN_BUFFER_SIZE, null));
+        assertArrayEquals(HashingInputStream.newDigest()
+                                            .digest(data), in.digest());
+
+    }
+
+    @Test
+    public void copiesFileChannelFromPosition()
+            throws IOException {
+
+        final byte[] data = TestImages.content(200000, 2);
+        write(this.mSource, data);
+
+        final FileInputStream in = new FileInputStream(this.mSource);
+        final FileOutputStream out = new FileOutputStream(this.mTarget);
+        try {
+
+            final FileChannel source = in.getChannel();
+
+            // rest of file from given position
+            assertEquals(data.length - 1000, ContentCopier.copyChannel(source, 1000, -1, out.getChannel(), null));
+
+        } finally {
+
+            in.close();
+            out.close();
+
+        }
+
+        assertArrayEquals(Arrays.copyOfRange(data, 1000, data.length), read(this.mTarget));
+
+    }
+
+    @Test
+    public void copiesFileChannelRange()
+            throws IOException {
+
+        final byte[] data = TestImages.content(10000, 3);
+        write(this.mSource, data);
+
+        final FileInputStream in = new FileInputStream(this.mSource);
+        final FileOutputStream out = new FileOutputStream(this.mTarget);
+        try {
+            assertEquals(500, ContentCopier.copyChannel(in.getChannel(), 100, 500, out.getChannel(), null));
+        } finally {
+
+            in.close();
+            out.close();
+
+        }
+
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 600), read(this.mTarget));
+
+    }
+
+    @Test(expected = InterruptedIOException.class)
+    public void cancelledChannelCopyThrows()
+            throws IOException {
+
+        write(this.mSource, new byte[100]);
+
+        final FileInputStream in = new FileInputStream(this.mSource);
+        final FileOutputStream out = new FileOutputStream(this.mTarget);
+        try {
+            ContentCopier.copyChannel(in.getChannel(), 0, -1, out.getChannel(), new AtomicBoolean(true));
+        } finally {
+
+            in.close();
+            out.close();
+
+        }
+
+    }
+
+    @Test
+    public void copiesPipeLikeChannelThroughBuffer()
+            throws IOException {
+
+        final byte[] data = TestImages.content(100000, 4);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long copied = ContentCopier.copyChannel(Channels.newChannel(new ByteArrayInputStream(data)), Channels.newChannel(out),
+                ByteBuffer.allocateDirect(4096), null);
+
+        assertEquals(data.length, copied);
+        assertArrayEquals(data, out.toByteArray());
+
+    }
+
+    // ==== //
+
+    private static void write(final File pFile, final byte[] pData)
+            throws IOException {
+
+        final FileOutputStream out = new FileOutputStream(pFile);
+        try {
+            out.write(pData);
+        } finally {
+            out.close();
+        }
+
+    }
+
+    private static byte[] read(final File pFile)
+            throws IOException {
+
+        final FileInputStream in = new FileInputStream(pFile);
+        try {
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ContentCopier.copyStream(in, out, ContentCopier.MIN_BUFFER_SIZE, null);
+
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+
+    }
+
+}
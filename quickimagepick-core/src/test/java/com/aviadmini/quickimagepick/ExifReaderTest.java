@@ -0,0 +1,138 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class ExifReaderTest {
+
+    @Test
+    public void readsOrientationLittleEndian()
+            throws IOException {
+
+        final ExifData exif = read(TestImages.jpeg(8, 8, TestImages.app0Jfif(), TestImages.app1Exif(true, ExifData.ORIENTATION_ROTATE_90, null)));
+
+        assertNotNull(exif);
+        assertEquals(ExifData.ORIENTATION_ROTATE_90, exif.getOrientation());
+        assertEquals(90, exif.getRotationDegrees());
+        assertFalse(exif.isFlipped());
+        assertFalse(exif.hasThumbnail());
+
+    }
+
+    @Test
+    public void readsOrientationBigEndian()
+            throws IOException {
+
+        final ExifData exif = read(TestImages.jpeg(8, 8, TestImages.app1Exif(false, ExifData.ORIENTATION_TRANSVERSE, null)));
+
+        assertNotNull(exif);
+        assertEquals(ExifData.ORIENTATION_TRANSVERSE, exif.getOrientation());
+        assertEquals(270, exif.getRotationDegrees());
+        assertTrue(exif.isFlipped());
+
+    }
+
+    @Test
+    public void invalidOrientationIsNormal()
+            throws IOException {
+
+        final ExifData exif = read(TestImages.jpeg(8, 8, TestImages.app1Exif(true, 42, null)));
+
+        assertNotNull(exif);
+        assertEquals(ExifData.ORIENTATION_NORMAL, exif.getOrientation());
+
+    }
+
+    @Test
+    public void locatesThumbnail()
+            throws IOException {
+
+        final byte[] thumbnail = TestImages.content(100, 1);
+
+        for (final boolean littleEndian : new boolean[] {true, false}) {
+
+            final byte[] data = TestImages.jpeg(8, 8, TestImages.app0Jfif(), TestImages.app1Exif(littleEndian, ExifData.ORIENTATION_NORMAL, thumbnail));
+
+            final ExifData exif = ExifReader.read(new ByteArrayInputStream(data), ExifReader.DEFAULT_BYTE_BUDGET, true);
+
+            assertNotNull(exif);
+            assertTrue(exif.hasThumbnail());
+            assertEquals(thumbnail.length, exif.getThumbnailLength());
+            assertArrayEquals(thumbnail, exif.getThumbnail());
+
+            // offset is from the start of content
+            final byte[] atOffset = new byte[thumbnail.length];
+            System.arraycopy(data, (int) exif.getThumbnailOffset(), atOffset, 0, atOffset.length);
+            assertArrayEquals(thumbnail, atOffset);
+
+        }
+
+    }
+
+    @Test
+    public void thumbnailBytesAreKeptOnlyWhenRequested()
+            throws IOException {
+
+        final ExifData exif = read(TestImages.jpeg(8, 8, TestImages.app1Exif(true, ExifData.ORIENTATION_NORMAL, TestImages.content(100, 2))));
+
+        assertNotNull(exif);
+        assertTrue(exif.hasThumbnail());
+        assertNull(exif.getThumbnail());
+
+    }
+
+    @Test
+    public void jpegWithoutExifIsNull()
+            throws IOException {
+        assertNull(read(TestImages.jpeg(8, 8, TestImages.app0Jfif())));
+    }
+
+    @Test
+    public void otherFormatsAreNull()
+            throws IOException {
+        assertNull(read(TestImages.png(8, 8, TestImages.PNG_COLOR_RGB, "IDAT")));
+    }
+
+    @Test
+    public void truncatedExifIsNull()
+            throws IOException {
+
+        final byte[] data = TestImages.jpeg(8, 8, TestImages.app1Exif(true, ExifData.ORIENTATION_ROTATE_180, TestImages.content(100, 3)));
+
+        // cut inside APP1 segment
+        assertNull(read(TestImages.truncate(data, 40)));
+        assertNull(read(TestImages.truncate(data, 3)));
+
+    }
+
+    @Test
+    public void segmentBeyondBudgetIsNull()
+            throws IOException {
+
+        final byte[] data = TestImages.jpeg(8, 8, TestImages.app1Exif(true, ExifData.ORIENTATION_ROTATE_180, TestImages.content(4096, 4)));
+
+        assertNull(ExifReader.read(new ByteArrayInputStream(data), 1024, false));
+
+    }
+
+    // ==== //
+
+    private static ExifData read(final byte[] pData)
+            throws IOException {
+        return ExifReader.read(new ByteArrayInputStream(pData), ExifReader.DEFAULT_BYTE_BUDGET, false);
+    }
+
+}
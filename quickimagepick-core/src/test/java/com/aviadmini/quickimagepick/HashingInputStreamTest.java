@@ -0,0 +1,118 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class HashingInputStreamTest {
+
+    @Test
+    public void hashesWholeContentAndPrefix()
+            throws IOException {
+
+        final byte[] data = TestImages.content(100000, 1);
+
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(data), 65536);
+
+        // buffer size not aligned with prefix length
+        final byte[] buffer = new byte[7000];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // hashing happens on read
+        }
+
+        assertEquals(data.length, in.getCount());
+        assertArrayEquals(sha256(data), in.digest());
+        assertArrayEquals(sha256(Arrays.copyOf(data, 65536)), in.prefixDigest());
+
+    }
+
+    @Test
+    public void singleByteReadsAndSkipsAreHashed()
+            throws IOException {
+
+        final byte[] data = TestImages.content(5000, 2);
+
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(data), 10);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(data[i] & 0xFF, in.read());
+        }
+
+        assertEquals(3000, in.skip(3000));
+
+        final byte[] buffer = new byte[4096];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // hashing happens on read
+        }
+
+        assertEquals(-1, in.read());
+        assertEquals(data.length, in.getCount());
+        assertArrayEquals(sha256(data), in.digest());
+        assertArrayEquals(sha256(Arrays.copyOf(data, 10)), in.prefixDigest());
+
+    }
+
+    @Test
+    public void prefixOfShortContentIsWholeContent()
+            throws IOException {
+
+        final byte[] data = TestImages.content(100, 3);
+
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(data), 65536);
+
+        final byte[] buffer = new byte[1000];
+        while (in.read(buffer, 0, buffer.length) != -1) {
+            // hashing happens on read
+        }
+
+        assertArrayEquals(sha256(data), in.prefixDigest());
+        assertArrayEquals(sha256(data), in.digest());
+
+    }
+
+    @Test
+    public void emptyContent()
+            throws IOException {
+
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(new byte[0]), 16);
+
+        assertEquals(-1, in.read());
+        assertEquals(0, in.getCount());
+        assertArrayEquals(sha256(new byte[0]), in.digest());
+
+    }
+
+    @Test
+    public void usesSha256() {
+        assertEquals(32, HashingInputStream.newDigest()
+                                           .getDigestLength());
+    }
+
+    @Test
+    public void hexIsLowerCase() {
+        assertEquals("00ff10ab", HashingInputStream.toHex(new byte[] {0x00, (byte) 0xFF, 0x10, (byte) 0xAB}));
+    }
+
+    @Test(expected = IOException.class)
+    public void resetIsNotSupported()
+            throws IOException {
+        new HashingInputStream(new ByteArrayInputStream(new byte[4]), 4).reset();
+    }
+
+    // ==== //
+
+    private static byte[] sha256(final byte[] pData) {
+        return HashingInputStream.newDigest()
+                                 .digest(pData);
+    }
+
+}
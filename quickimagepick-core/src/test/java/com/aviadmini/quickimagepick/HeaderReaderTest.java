@@ -0,0 +1,103 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class HeaderReaderTest {
+
+    private static final byte[] DATA = {0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, (byte) 0xFF, (byte) 0xFE};
+
+    @Test
+    public void readsBigEndianValues()
+            throws IOException {
+
+        final HeaderReader reader = new HeaderReader(new ByteArrayInputStream(DATA), 100);
+
+        assertEquals(0x0102, reader.readU16be());
+        assertEquals(0x03040506L, reader.readU32be());
+        assertEquals(6, reader.getPosition());
+
+        assertTrue(reader.skip(2));
+        assertEquals(0xFFFE, reader.readU16be());
+
+        // end of content
+        assertEquals(-1, reader.read());
+        assertEquals(-1, reader.readU16be());
+        assertEquals(-1L, reader.readU32be());
+
+    }
+
+    @Test
+    public void consumesHeadBeforeStream()
+            throws IOException {
+
+        final byte[] head = {0x01, 0x02, 0x03};
+        final ByteArrayInputStream rest = new ByteArrayInputStream(DATA, 3, DATA.length - 3);
+
+        final HeaderReader reader = new HeaderReader(head, head.length, rest, 100);
+
+        // spans head and stream
+        final byte[] buffer = new byte[5];
+        assertTrue(reader.readFully(buffer));
+        assertArrayEquals(new byte[] {0x01, 0x02, 0x03, 0x04, 0x05}, buffer);
+        assertEquals(5, reader.getPosition());
+
+    }
+
+    @Test
+    public void stopsAtByteBudget()
+            throws IOException {
+
+        final ByteArrayInputStream in = new ByteArrayInputStream(DATA);
+        final HeaderReader reader = new HeaderReader(in, 4);
+
+        assertEquals(0x0102, reader.readU16be());
+
+        // would exceed budget, nothing is read
+        assertFalse(reader.readFully(new byte[3]));
+        assertFalse(reader.skip(3));
+        assertEquals(DATA.length - 2, in.available());
+
+        assertEquals(0x0304, reader.readU16be());
+        assertEquals(-1, reader.read());
+
+    }
+
+    @Test
+    public void budgetIncludesHead()
+            throws IOException {
+
+        final byte[] head = {0x01, 0x02, 0x03};
+        final HeaderReader reader = new HeaderReader(head, head.length, new ByteArrayInputStream(DATA, 3, DATA.length - 3), 4);
+
+        assertTrue(reader.skip(4));
+        assertEquals(-1, reader.read());
+
+    }
+
+    @Test
+    public void truncatedReadsFail()
+            throws IOException {
+
+        final HeaderReader reader = new HeaderReader(new ByteArrayInputStream(DATA), 100);
+
+        assertFalse(reader.readFully(new byte[DATA.length + 1]));
+
+        final HeaderReader skipper = new HeaderReader(new ByteArrayInputStream(DATA), 100);
+
+        assertFalse(skipper.skip(DATA.length + 1));
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class ImageHeaderParserTest {
+
+    @Test
+    public void readsJpegFrameAfterAppSegments()
+            throws IOException {
+
+        final ImageHeader header = parse(TestImages.jpeg(4032, 3024, TestImages.app0Jfif(), TestImages.app1Exif(true, 6, null)));
+
+        assertHeader(header, ImageFormat.JPEG, 4032, 3024);
+        assertFalse(header.hasAlpha());
+
+    }
+
+    @Test
+    public void readsProgressiveJpegFrame()
+            throws IOException {
+        assertHeader(parse(TestImages.jpeg(0xC2, 640, 480, TestImages.app0Jfif())), ImageFormat.JPEG, 640, 480);
+    }
+
+    @Test
+    public void skipsDhtBeforeFrame()
+            throws IOException {
+
+        // DHT (C4) is in SOFn range but is not a frame header
+        final byte[] dht = {(byte) 0xFF, (byte) 0xC4, 0, 6, 1, 2, 3, 4};
+
+        assertHeader(parse(TestImages.jpeg(100, 50, dht)), ImageFormat.JPEG, 100, 50);
+
+    }
+
+    @Test
+    public void jpegFrameBeyondBudgetHasUnknownSize()
+            throws IOException {
+
+        final byte[] data = TestImages.jpeg(100, 50, TestImages.app1Exif(false, 1, new byte[4096]));
+
+        final ImageHeader header = ImageHeaderParser.parse(new ByteArrayInputStream(data), 1024);
+
+        assertNotNull(header);
+        assertEquals(ImageFormat.JPEG, header.getFormat());
+        assertFalse(header.hasDimensions());
+
+    }
+
+    @Test
+    public void truncatedJpegHasUnknownSize()
+            throws IOException {
+
+        final byte[] data = TestImages.jpeg(100, 50, TestImages.app0Jfif());
+
+        // frame header (19 bytes), scan header (14) and EOI (2) follow, cut right after sample precision
+        final ImageHeader header = parse(TestImages.truncate(data, data.length - 30));
+
+        assertNotNull(header);
+        assertFalse(header.hasDimensions());
+
+    }
+
+    @Test
+    public void readsPngIhdr()
+            throws IOException {
+
+        final ImageHeader header = parse(TestImages.png(1920, 1080, TestImages.PNG_COLOR_RGB, "IDAT"));
+
+        assertHeader(header, ImageFormat.PNG, 1920, 1080);
+        assertFalse(header.hasAlpha());
+
+    }
+
+    @Test
+    public void pngAlphaFromColorTypeOrTrns()
+            throws IOException {
+
+        assertTrue(parse(TestImages.png(8, 8, TestImages.PNG_COLOR_RGBA, "IDAT")).hasAlpha());
+        assertTrue(parse(TestImages.png(8, 8, TestImages.PNG_COLOR_RGB, "pHYs", "tRNS", "IDAT")).hasAlpha());
+        assertFalse(parse(TestImages.png(8, 8, TestImages.PNG_COLOR_RGB, "pHYs", "IDAT")).hasAlpha());
+
+    }
+
+    @Test
+    public void truncatedPngAssumesAlpha()
+            throws IOException {
+
+        // IHDR is complete, chunks that follow are missing
+        final ImageHeader header = parse(TestImages.png(8, 8, TestImages.PNG_COLOR_RGB));
+
+        assertHeader(header, ImageFormat.PNG, 8, 8);
+        assertTrue(header.hasAlpha());
+
+    }
+
+    @Test
+    public void readsWebPDimensions()
+            throws IOException {
+
+        assertHeader(parse(TestImages.webpLossy(800, 600)), ImageFormat.WEBP_LOSSY, 800, 600);
+
+        final ImageHeader lossless = parse(TestImages.webpLossless(800, 600, true));
+        assertHeader(lossless, ImageFormat.WEBP_LOSSLESS, 800, 600);
+        assertTrue(lossless.hasAlpha());
+
+        final ImageHeader extended = parse(TestImages.webpExtended(70000, 3, 0));
+        assertHeader(extended, ImageFormat.WEBP_EXTENDED, 70000, 3);
+        assertFalse(extended.hasAlpha());
+
+        assertTrue(parse(TestImages.webpExtended(4, 3, 0x10)).hasAlpha());
+
+    }
+
+    @Test
+    public void truncatedWebPHasUnknownSize()
+            throws IOException {
+
+        final ImageHeader header = parse(TestImages.truncate(TestImages.webpLossy(800, 600), 24));
+
+        assertNotNull(header);
+        assertEquals(ImageFormat.WEBP_LOSSY, header.getFormat());
+        assertFalse(header.hasDimensions());
+
+    }
+
+    @Test
+    public void unknownContentIsNull()
+            throws IOException {
+        assertNull(parse("not an image at all".getBytes()));
+    }
+
+    // ==== //
+
+    private static ImageHeader parse(final byte[] pData)
+            throws IOException {
+        return ImageHeaderParser.parse(new ByteArrayInputStream(pData), ImageHeaderParser.DEFAULT_BYTE_BUDGET);
+    }
+
+    private static void assertHeader(final ImageHeader pHeader, final ImageFormat pFormat, final int pWidth, final int pHeight) {
+
+        assertNotNull(pHeader);
+        assertEquals(pFormat, pHeader.getFormat());
+        assertEquals(pWidth, pHeader.getWidth());
+        assertEquals(pHeight, pHeader.getHeight());
+
+    }
+
+}
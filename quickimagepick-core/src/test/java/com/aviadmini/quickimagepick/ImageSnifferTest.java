@@ -0,0 +1,121 @@
+package com.aviadmini.quickimagepick;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author aviadmini
+ * @since v2.2.0
+ */
+public class ImageSnifferTest {
+
+    @Test
+    public void recognizesJpeg() {
+        assertEquals(ImageFormat.JPEG, sniff(TestImages.jpeg(4, 3, TestImages.app0Jfif())));
+    }
+
+    @Test
+    public void recognizesPng() {
+        assertEquals(ImageFormat.PNG, sniff(TestImages.png(4, 3, TestImages.PNG_COLOR_RGB, "IDAT")));
+    }
+
+    @Test
+    public void recognizesGif() {
+        assertEquals(ImageFormat.GIF, sniff(new byte[] {'G', 'I', 'F', '8', '9', 'a', 4, 0, 3, 0}));
+    }
+
+    @Test
+    public void recognizesWebPVariants() {
+
+        assertEquals(ImageFormat.WEBP_LOSSY, sniff(TestImages.webpLossy(4, 3)));
+        assertEquals(ImageFormat.WEBP_LOSSLESS, sniff(TestImages.webpLossless(4, 3, false)));
+        assertEquals(ImageFormat.WEBP_EXTENDED, sniff(TestImages.webpExtended(4, 3, 0x10)));
+        assertEquals(ImageFormat.WEBP_ANIMATED, sniff(TestImages.webpExtended(4, 3, 0x02)));
+
+    }
+
+    @Test
+    public void recognizesHeifBrands() {
+
+        assertEquals(ImageFormat.HEIC, sniff(ftyp("heic")));
+        assertEquals(ImageFormat.AVIF, sniff(ftyp("avif")));
+        assertEquals(ImageFormat.HEIF, sniff(ftyp("mif1")));
+
+        // generic major brand with specific compatible brand
+        assertEquals(ImageFormat.AVIF, sniff(ftyp("mif1", "miaf", "avif")));
+
+    }
+
+    @Test
+    public void rejectsUnknownContent() {
+
+        assertNull(sniff("<html><body></body></html>".getBytes()));
+
+        // "BM" text without a valid DIB header size
+        assertNull(sniff("BMW is not a bitmap file".getBytes()));
+
+    }
+
+    @Test
+    public void rejectsTruncatedSignatures() {
+
+        assertNull(sniff(TestImages.truncate(TestImages.jpeg(4, 3), 2)));
+        assertNull(sniff(TestImages.truncate(TestImages.png(4, 3, TestImages.PNG_COLOR_RGB), 7)));
+        assertNull(sniff(TestImages.truncate(TestImages.webpLossy(4, 3), 15)));
+        assertNull(sniff(new byte[0]));
+
+    }
+
+    @Test
+    public void streamSniffReadsAtMostProbeSize()
+            throws IOException {
+
+        final byte[] data = TestImages.jpeg(4, 3, TestImages.app1Exif(true, ExifData.ORIENTATION_NORMAL, new byte[4096]));
+        final ByteArrayInputStream in = new ByteArrayInputStream(data);
+
+        assertEquals(ImageFormat.JPEG, ImageSniffer.sniff(in));
+        assertEquals(data.length - ImageSniffer.PROBE_SIZE, in.available());
+
+    }
+
+    @Test
+    public void bufferSniffKeepsPosition() {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put(new byte[10]);
+        buffer.put(TestImages.webpLossless(4, 3, true), 0, 32);
+        buffer.position(10);
+
+        assertEquals(ImageFormat.WEBP_LOSSLESS, ImageSniffer.sniff(buffer));
+        assertEquals(10, buffer.position());
+
+    }
+
+    // ==== //
+
+    private static ImageFormat sniff(final byte[] pData) {
+        return ImageSniffer.sniff(pData, pData.length);
+    }
+
+    private static byte[] ftyp(final String pMajorBrand, final String... pCompatibleBrands) {
+
+        final byte[] data = new byte[16 + 4 * pCompatibleBrands.length];
+
+        data[3] = (byte) data.length;
+        System.arraycopy("ftyp".getBytes(), 0, data, 4, 4);
+        System.arraycopy(pMajorBrand.getBytes(), 0, data, 8, 4);
+
+        for (int i = 0; i < pCompatibleBrands.length; i++) {
+            System.arraycopy(pCompatibleBrands[i].getBytes(), 0, data, 16 + 4 * i, 4);
+        }
+
+        return data;
+    }
+
+}
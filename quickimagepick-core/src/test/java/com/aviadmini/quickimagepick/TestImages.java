@@ -0,0 +1,366 @@
+package com.aviadmini.quickimagepick;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Minimal image headers built byte by byte. They contain only what header parsers look at, not decodable images
+ *
+ * @author aviadmini
+ * @since v2.2.0
+ */
+final class TestImages {
+
+    static final int PNG_COLOR_RGB  = 2;
+    static final int PNG_COLOR_RGBA = 6;
+
+    private TestImages() {}
+
+    // ==== JPEG ==== //
+
+    /**
+     * @param pWidth    image width
+     * @param pHeight   image height
+     * @param pSegments APPn segments (with markers) that precede frame header
+     * @return SOI, given segments, SOF0 with given dimensions, SOS and EOI
+     */
+    static byte[] jpeg(final int pWidth, final int pHeight, final byte[]... pSegments) {
+        return jpeg(0xC0, pWidth, pHeight, pSegments);
+    }
+
+    /**
+     * @param pSofMarker SOFn marker, e.g. 0xC2 for progressive
+     */
+    static byte[] jpeg(final int pSofMarker, final int pWidth, final int pHeight, final byte[]... pSegments) {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        out.write(0xFF);
+        out.write(0xD8);
+
+        for (final byte[] segment : pSegments) {
+            out.write(segment, 0, segment.length);
+        }
+
+        // precision, height, width, 3 components with id, sampling and table
+        final byte[] sof = new byte[1 + 2 + 2 + 1 + 3 * 3];
+        sof[0] = 8;
+        putU16be(sof, 1, pHeight);
+        putU16be(sof, 3, pWidth);
+        sof[5] = 3;
+        writeSegment(out, pSofMarker, sof);
+
+        writeSegment(out, 0xDA, new byte[10]);
+
+        out.write(0xFF);
+        out.write(0xD9);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * @return APP0 JFIF segment
+     */
+    static byte[] app0Jfif() {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writeSegment(out, 0xE0, new byte[] {'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0});
+
+        return out.toByteArray();
+    }
+
+    /**
+     * @param pLittleEndian true for "II" byte order, false for "MM"
+     * @param pOrientation  EXIF orientation tag value
+     * @param pThumbnail    embedded thumbnail bytes or null
+     * @return APP1 EXIF segment with IFD0 that has only orientation tag and optional IFD1 that points to thumbnail
+     */
+    static byte[] app1Exif(final boolean pLittleEndian, final int pOrientation, final byte[] pThumbnail) {
+
+        // TIFF header (8), IFD0 with 1 entry (2 + 12 + 4), IFD1 with 2 entries (2 + 24 + 4), thumbnail
+        final int ifd0 = 8;
+        final int ifd1 = ifd0 + 2 + 12 + 4;
+        final int thumbnailOffset = ifd1 + 2 + 24 + 4;
+
+        final byte[] tiff = new byte[thumbnailOffset + (pThumbnail == null ? 0 : pThumbnail.length)];
+        final Writer w = new Writer(tiff, pLittleEndian);
+
+        tiff[0] = tiff[1] = (byte) (pLittleEndian ? 'I' : 'M');
+        w.u16(2, 42);
+        w.u32(4, ifd0);
+
+        w.u16(ifd0, 1);
+        w.entry(ifd0 + 2, 0x0112, 3, 1);
+        w.u16(ifd0 + 2 + 8, pOrientation);
+        w.u32(ifd0 + 2 + 12, pThumbnail == null ? 0 : ifd1);
+
+        if (pThumbnail != null) {
+
+            w.u16(ifd1, 2);
+            w.entry(ifd1 + 2, 0x0201, 4, 1);
+            w.u32(ifd1 + 2 + 8, thumbnailOffset);
+            w.entry(ifd1 + 2 + 12, 0x0202, 4, 1);
+            w.u32(ifd1 + 2 + 12 + 8, pThumbnail.length);
+
+            System.arraycopy(pThumbnail, 0, tiff, thumbnailOffset, pThumbnail.length);
+
+        }
+
+        final byte[] data = new byte[6 + tiff.length];
+        data[0] = 'E';
+        data[1] = 'x';
+        data[2] = 'i';
+        data[3] = 'f';
+        System.arraycopy(tiff, 0, data, 6, tiff.length);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writeSegment(out, 0xE1, data);
+
+        return out.toByteArray();
+    }
+
+    // ==== PNG ==== //
+
+    /**
+     * @param pColorType   IHDR color type
+     * @param pChunkTypes  types of empty chunks that follow IHDR
+     * @return PNG signature, IHDR and given chunks
+     */
+    static byte[] png(final int pWidth, final int pHeight, final int pColorType, final String... pChunkTypes) {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        out.write(0x89);
+        writeAscii(out, "PNG");
+        out.write(0x0D);
+        out.write(0x0A);
+        out.write(0x1A);
+        out.write(0x0A);
+
+        final byte[] ihdr = new byte[13];
+        putU32be(ihdr, 0, pWidth);
+        putU32be(ihdr, 4, pHeight);
+        ihdr[8] = 8;
+        ihdr[9] = (byte) pColorType;
+        writeChunk(out, "IHDR", ihdr);
+
+        for (final String type : pChunkTypes) {
+            writeChunk(out, type, new byte[0]);
+        }
+
+        return out.toByteArray();
+    }
+
+    // ==== WEBP ==== //
+
+    /**
+     * @return RIFF header and VP8 chunk with key frame header
+     */
+    static byte[] webpLossy(final int pWidth, final int pHeight) {
+
+        final byte[] data = riff("VP8 ", 32);
+
+        // frame tag, start code and 14-bit dimensions
+        data[23] = (byte) 0x9D;
+        data[24] = 0x01;
+        data[25] = 0x2A;
+        putU16le(data, 26, pWidth);
+        putU16le(data, 28, pHeight);
+
+        return data;
+    }
+
+    /**
+     * @return RIFF header and VP8L chunk with signature and packed dimensions
+     */
+    static byte[] webpLossless(final int pWidth, final int pHeight, final boolean pAlpha) {
+
+        final byte[] data = riff("VP8L", 32);
+
+        data[20] = 0x2F;
+        putU32le(data, 21, (pWidth - 1) | (pHeight - 1) << 14 | (pAlpha ? 1 : 0) << 28);
+
+        return data;
+    }
+
+    /**
+     * @param pFlags VP8X flags byte, 0x10 is alpha and 0x02 is animation
+     * @return RIFF header and VP8X chunk with canvas size
+     */
+    static byte[] webpExtended(final int pWidth, final int pHeight, final int pFlags) {
+
+        final byte[] data = riff("VP8X", 30);
+
+        data[20] = (byte) pFlags;
+        putU24le(data, 24, pWidth - 1);
+        putU24le(data, 27, pHeight - 1);
+
+        return data;
+    }
+
+    private static byte[] riff(final String pChunkType, final int pLength) {
+
+        final byte[] data = new byte[pLength];
+
+        putAscii(data, 0, "RIFF");
+        putU32le(data, 4, pLength - 8);
+        putAscii(data, 8, "WEBP");
+        putAscii(data, 12, pChunkType);
+        putU32le(data, 16, pLength - 20);
+
+        return data;
+    }
+
+    // ==== //
+
+    /**
+     * @return first given number of bytes
+     */
+    static byte[] truncate(final byte[] pData, final int pLength) {
+        return Arrays.copyOf(pData, pLength);
+    }
+
+    /**
+     * @return deterministic pseudo-random content
+     */
+    static byte[] content(final int pLength, final long pSeed) {
+
+        final byte[] data = new byte[pLength];
+
+        long x = pSeed;
+        for (int i = 0; i < pLength; i++) {
+
+            x = x * 6364136223846793005L + 1442695040888963407L;
+
+            data[i] = (byte) (x >>> 56);
+
+        }
+
+        return data;
+    }
+
+    private static void writeSegment(final ByteArrayOutputStream pOut, final int pMarker, final byte[] pData) {
+
+        pOut.write(0xFF);
+        pOut.write(pMarker);
+        pOut.write((pData.length + 2) >> 8);
+        pOut.write(pData.length + 2);
+        pOut.write(pData, 0, pData.length);
+
+    }
+
+    private static void writeChunk(final ByteArrayOutputStream pOut, final String pType, final byte[] pData) {
+
+        final byte[] length = new byte[4];
+        putU32be(length, 0, pData.length);
+
+        pOut.write(length, 0, 4);
+        writeAscii(pOut, pType);
+        pOut.write(pData, 0, pData.length);
+
+        // CRC is not checked by parser
+        pOut.write(new byte[4], 0, 4);
+
+    }
+
+    private static void writeAscii(final ByteArrayOutputStream pOut, final String pAscii) {
+
+        for (int i = 0; i < pAscii.length(); i++) {
+            pOut.write(pAscii.charAt(i));
+        }
+
+    }
+
+    private static void putAscii(final byte[] pData, final int pOffset, final String pAscii) {
+
+        for (int i = 0; i < pAscii.length(); i++) {
+            pData[pOffset + i] = (byte) pAscii.charAt(i);
+        }
+
+    }
+
+    private static void putU16be(final byte[] pData, final int pOffset, final int pValue) {
+
+        pData[pOffset] = (byte) (pValue >> 8);
+        pData[pOffset + 1] = (byte) pValue;
+
+    }
+
+    private static void putU32be(final byte[] pData, final int pOffset, final int pValue) {
+
+        putU16be(pData, pOffset, pValue >>> 16);
+        putU16be(pData, pOffset + 2, pValue);
+
+    }
+
+    private static void putU16le(final byte[] pData, final int pOffset, final int pValue) {
+
+        pData[pOffset] = (byte) pValue;
+        pData[pOffset + 1] = (byte) (pValue >> 8);
+
+    }
+
+    private static void putU24le(final byte[] pData, final int pOffset, final int pValue) {
+
+        putU16le(pData, pOffset, pValue);
+        pData[pOffset + 2] = (byte) (pValue >> 16);
+
+    }
+
+    private static void putU32le(final byte[] pData, final int pOffset, final int pValue) {
+
+        putU24le(pData, pOffset, pValue);
+        pData[pOffset + 3] = (byte) (pValue >> 24);
+
+    }
+
+    /**
+     * Writes TIFF values in chosen byte order
+     */
+    private static final class Writer {
+
+        private final byte[] mData;
+
+        private final boolean mLittleEndian;
+
+        Writer(final byte[] pData, final boolean pLittleEndian) {
+
+            this.mData = pData;
+
+            this.mLittleEndian = pLittleEndian;
+
+        }
+
+        void u16(final int pOffset, final int pValue) {
+
+            if (this.mLittleEndian) {
+                putU16le(this.mData, pOffset, pValue);
+            } else {
+                putU16be(this.mData, pOffset, pValue);
+            }
+
+        }
+
+        void u32(final int pOffset, final int pValue) {
+
+            if (this.mLittleEndian) {
+                putU32le(this.mData, pOffset, pValue);
+            } else {
+                putU32be(this.mData, pOffset, pValue);
+            }
+
+        }
+
+        void entry(final int pOffset, final int pTag, final int pType, final int pCount) {
+
+            this.u16(pOffset, pTag);
+            this.u16(pOffset + 2, pType);
+            this.u32(pOffset + 4, pCount);
+
+        }
+
+    }
+
+}
@@ -14,6 +14,7 @@ import android.view.View;
 import android.widget.ImageView;
 import android.widget.Toast;
 
+import com.aviadmini.quickimagepick.CopyResult;
 import com.aviadmini.quickimagepick.PickCallback;
 import com.aviadmini.quickimagepick.PickSource;
 import com.aviadmini.quickimagepick.PickTriggerResult;
@@ -76,9 +77,10 @@ public class MainActivity
                 outDir.mkdirs();
 
                 // DO NOT do this on main thread. This is only for reference
-                UriUtils.saveContentToFile(context, pImageUri, file);
+                final CopyResult copyResult = UriUtils.copyContent(context, pImageUri, file);
 
-                Toast.makeText(context, "Save complete", Toast.LENGTH_SHORT)
+                Toast.makeText(context, "Save complete: " + copyResult.getBytesCopied() + " bytes via " + copyResult.getStrategy(),
+                        Toast.LENGTH_SHORT)
                      .show();
 
             } catch (final IOException e) {